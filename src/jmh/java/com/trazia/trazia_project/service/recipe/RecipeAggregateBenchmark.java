@@ -0,0 +1,185 @@
+package com.trazia.trazia_project.service.recipe;
+
+import com.trazia.trazia_project.entity.product.Product;
+import com.trazia.trazia_project.entity.product.ProductNutriments;
+import com.trazia.trazia_project.entity.recipe.Recipe;
+import com.trazia.trazia_project.entity.recipe.RecipeIngredient;
+import com.trazia.trazia_project.mapper.ProductMapper;
+import com.trazia.trazia_project.model.NutrientVector;
+import com.trazia.trazia_project.model.NutrimentsDTO;
+import com.trazia.trazia_project.model.RecipeAggregate;
+import com.trazia.trazia_project.service.common.NutritionConversionService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aritmética de nutrientes de recetas de 10, 100 y 1000 ingredientes.
+ *
+ * - calculate: recálculo completo (RecipeAggregateCalculator).
+ * - applyDelta: diferencia de un producto sobre los agregados, como en
+ *   RecipeRecalculationService.
+ * - legacyCalculate: referencia; el recálculo completo anterior sobre
+ *   NutrimentsDTO y BigDecimal (calculateTotalNutrients + calculatePer100g de
+ *   RecipeServiceImpl). Antes no había cálculo por diferencia, así que también
+ *   es la referencia de applyDelta.
+ *
+ * Ejecución: mvn -Pjmh test-compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecipeAggregateBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int ingredients;
+
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal ONE_THOUSAND = BigDecimal.valueOf(1000);
+
+    private final RecipeAggregateCalculator calculator = new RecipeAggregateCalculator();
+    private final ProductMapper productMapper = new ProductMapper();
+    private final NutritionConversionService nutritionConversionService = new NutritionConversionService();
+
+    private Recipe recipe;
+    private NutrientVector per100g;
+    private ProductNutriments before;
+    private ProductNutriments after;
+    private double[] factors;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<RecipeIngredient> list = new ArrayList<>(ingredients);
+        double totalWeight = 0;
+        for (int i = 0; i < ingredients; i++) {
+            BigDecimal quantity = BigDecimal.valueOf(10 + random.nextInt(490));
+            totalWeight += quantity.doubleValue();
+            list.add(RecipeIngredient.builder()
+                    .product(Product.builder()
+                            .name("Producto " + i)
+                            .costPerUnit(BigDecimal.valueOf(random.nextInt(2000), 2))
+                            .nutriments(nutriments(random))
+                            .build())
+                    .quantityGrams(quantity)
+                    .displayOrder(i)
+                    .build());
+        }
+        recipe = Recipe.builder()
+                .name("Receta " + ingredients)
+                .yieldWeightGrams(BigDecimal.valueOf(totalWeight * 0.9))
+                .ingredients(list)
+                .build();
+
+        per100g = calculator.calculate(recipe, sub -> null).per100g();
+        before = nutriments(random);
+        after = nutriments(random);
+        factors = new double[ingredients];
+        double yieldFactor = 100.0 / recipe.getYieldWeightGrams().doubleValue();
+        for (int i = 0; i < ingredients; i++) {
+            factors[i] = list.get(i).getQuantityGrams().doubleValue() / totalWeight * yieldFactor;
+        }
+    }
+
+    @Benchmark
+    public RecipeAggregate calculate() {
+        return calculator.calculate(recipe, sub -> null);
+    }
+
+    @Benchmark
+    public LegacyAggregate legacyCalculate() {
+        NutrimentsDTO total = legacyTotalNutrients(recipe);
+        NutrimentsDTO per100g = nutritionConversionService.calculatePer100g(total, recipe.getYieldWeightGrams());
+
+        BigDecimal totalCost = BigDecimal.ZERO;
+        for (RecipeIngredient ri : recipe.getIngredients()) {
+            BigDecimal quantityKg = ri.getQuantityGrams().divide(ONE_THOUSAND, 6, RoundingMode.HALF_UP);
+            totalCost = totalCost.add(ri.getProduct().getCostPerUnit().multiply(quantityKg)
+                    .setScale(6, RoundingMode.HALF_UP));
+        }
+        totalCost = totalCost.setScale(6, RoundingMode.HALF_UP);
+        BigDecimal costPer100g = totalCost.divide(recipe.getYieldWeightGrams(), 6, RoundingMode.HALF_UP)
+                .multiply(ONE_HUNDRED)
+                .setScale(6, RoundingMode.HALF_UP);
+
+        return new LegacyAggregate(productMapper.toEntityProductNutriments(per100g), totalCost, costPer100g);
+    }
+
+    /** Todos los ingredientes cambian en el mismo lote (peor caso del recálculo incremental) */
+    @Benchmark
+    public NutrientVector applyDelta() {
+        NutrientVector vector = per100g.copy();
+        for (double factor : factors) {
+            vector.addScaled(after, factor).addScaled(before, -factor);
+        }
+        return vector.clampNonNegative();
+    }
+
+    /**
+     * Copia de RecipeServiceImpl.calculateTotalNutrients antes de NutrientVector:
+     * un NutrimentsDTO por ingrediente y proporciones en BigDecimal.
+     */
+    private NutrimentsDTO legacyTotalNutrients(Recipe recipe) {
+        NutrimentsDTO total = NutrimentsDTO.builder()
+                .calories(0.0).protein(0.0).carbohydrates(0.0).sugars(0.0).fat(0.0)
+                .saturatedFat(0.0).fiber(0.0).sodium(0.0).salt(0.0)
+                .build();
+
+        BigDecimal totalWeight = recipe.getIngredients().stream()
+                .map(RecipeIngredient::getQuantityGrams)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (totalWeight.compareTo(BigDecimal.ZERO) == 0)
+            return total;
+
+        for (RecipeIngredient ri : recipe.getIngredients()) {
+            BigDecimal proportion = ri.getQuantityGrams().divide(totalWeight, 6, RoundingMode.HALF_UP);
+            NutrimentsDTO prodN = productMapper.toNutrimentsDTO(ri.getProduct().getNutriments());
+            total.setCalories(total.getCalories() + prodN.getCalories() * proportion.doubleValue());
+            total.setProtein(total.getProtein() + prodN.getProtein() * proportion.doubleValue());
+            total.setCarbohydrates(total.getCarbohydrates() + prodN.getCarbohydrates() * proportion.doubleValue());
+            total.setSugars(total.getSugars() + prodN.getSugars() * proportion.doubleValue());
+            total.setFat(total.getFat() + prodN.getFat() * proportion.doubleValue());
+            total.setSaturatedFat(total.getSaturatedFat() + prodN.getSaturatedFat() * proportion.doubleValue());
+            total.setFiber(total.getFiber() + prodN.getFiber() * proportion.doubleValue());
+            total.setSodium(total.getSodium() + prodN.getSodium() * proportion.doubleValue());
+            total.setSalt(total.getSalt() + prodN.getSalt() * proportion.doubleValue());
+        }
+        return total;
+    }
+
+    public record LegacyAggregate(ProductNutriments per100g, BigDecimal totalCost, BigDecimal costPer100g) {
+    }
+
+    private static ProductNutriments nutriments(Random random) {
+        return ProductNutriments.builder()
+                .calories(BigDecimal.valueOf(random.nextInt(90000), 2))
+                .protein(BigDecimal.valueOf(random.nextInt(3000), 2))
+                .carbohydrates(BigDecimal.valueOf(random.nextInt(8000), 2))
+                .sugars(BigDecimal.valueOf(random.nextInt(5000), 2))
+                .fat(BigDecimal.valueOf(random.nextInt(5000), 2))
+                .saturatedFat(BigDecimal.valueOf(random.nextInt(2000), 2))
+                .fiber(BigDecimal.valueOf(random.nextInt(1500), 2))
+                .sodium(BigDecimal.valueOf(random.nextInt(200), 2))
+                .salt(BigDecimal.valueOf(random.nextInt(500), 2))
+                .build();
+    }
+}
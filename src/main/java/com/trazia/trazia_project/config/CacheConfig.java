@@ -1,34 +1,137 @@
 package com.trazia.trazia_project.config;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsSearchResultDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+/**
+ * Topología de cachés: cada caché se declara con su propia configuración
+ * (CacheSpec) y el CacheManager es estático, de modo que usar un nombre no
+ * declarado falla en lugar de crear una caché con valores por defecto.
+ *
+ * Todas las cachés son asíncronas (AsyncCache) para poder cachear métodos que
+ * devuelven Mono; los métodos síncronos usan su vista síncrona.
+ *
+ * Las cachés con refresh-after-write siguen el patrón stale-while-revalidate:
+ * pasado ese TTL blando la entrada se sirve al momento y se recarga en segundo
+ * plano, con el ritmo limitado por RefreshAheadLimiter.
+ */
+@Slf4j
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    /** Peso de las búsquedas: número de resultados (mínimo 1) */
+    private static final Weigher<Object, Object> RESULT_COUNT_WEIGHER = (key, value) -> {
+        if (value instanceof Collection<?> list)
+            return Math.max(1, list.size());
+        if (value instanceof OpenFoodFactsSearchResultDTO result && result.getProducts() != null)
+            return Math.max(1, result.getProducts().size());
+        return 1;
+    };
+
+    /**
+     * Configuración por defecto de cada caché (sobrescribible por propiedades,
+     * ver CacheSpec).
+     */
+    static List<CacheSpec> defaultSpecs() {
+        return List.of(
+                CacheSpec.of(CacheNames.OPEN_FOOD_FACTS_PRODUCTS, 10_000, Duration.ofHours(24))
+                        .withRefreshAfterWrite(Duration.ofHours(6)),
+                CacheSpec.of(CacheNames.OPEN_FOOD_FACTS_NOT_FOUND, 20_000, Duration.ofHours(6)),
+                CacheSpec.of(CacheNames.OPEN_FOOD_FACTS_SEARCH, 20_000, Duration.ofHours(1))
+                        .withWeigher(RESULT_COUNT_WEIGHER),
+                CacheSpec.of(CacheNames.USDA_SEARCH, 20_000, Duration.ofHours(24))
+                        .withWeigher(RESULT_COUNT_WEIGHER),
+                CacheSpec.of(CacheNames.USDA_FOODS, 10_000, Duration.ofDays(7))
+                        .withRefreshAfterWrite(Duration.ofDays(1)),
+                CacheSpec.of(CacheNames.PRODUCT_COUNTS, 10_000, Duration.ofHours(1)),
+                CacheSpec.of(CacheNames.RECIPE_COUNTS, 10_000, Duration.ofHours(1)),
+                // TTL corto: es el plazo máximo para que una cuenta bloqueada deje de autenticarse
+                CacheSpec.of(CacheNames.USER_STATUS, 50_000, Duration.ofSeconds(30)));
+    }
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
-                "openFoodFactsProducts",  // ✅ Cache para OpenFoodFacts
-                "usdaSearchCache",        // ✅ Cache para búsquedas USDA
-                "usdaFoods"               // ✅ Cache para alimentos USDA individuales
-        );
-
-        // ✅ Tipado explícito para evitar warnings
-        @SuppressWarnings("null")
-        Caffeine<Object, Object> caffeineBuilder = Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.HOURS)
-                .maximumSize(1000)
-                .recordStats();
+    public CacheManager cacheManager(Environment environment, ObjectProvider<CacheRefresher> refreshers,
+            RefreshAheadLimiter refreshAheadLimiter) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Sin creación dinámica: solo existen las cachés registradas
+        cacheManager.setCacheNames(List.of());
+        cacheManager.setAsyncCacheMode(true);
 
-        cacheManager.setCaffeine(caffeineBuilder);
+        for (CacheSpec defaults : defaultSpecs()) {
+            CacheSpec spec = resolve(defaults, environment);
+            cacheManager.registerCustomCache(spec.name(), build(spec, refreshers, refreshAheadLimiter));
+            log.debug("Cache {}: max={}{}, ttl={}, refresh={}", spec.name(), spec.maximumSize(),
+                    spec.weigher() != null ? " (weight)" : "", spec.expireAfterWrite(), spec.refreshAfterWrite());
+        }
         return cacheManager;
     }
+
+    private static CacheSpec resolve(CacheSpec spec, Environment environment) {
+        String prefix = "caches." + spec.name() + ".";
+        return new CacheSpec(spec.name(),
+                environment.getProperty(prefix + "maximum-size", Long.class, spec.maximumSize()),
+                environment.getProperty(prefix + "expire-after-write", Duration.class, spec.expireAfterWrite()),
+                environment.getProperty(prefix + "refresh-after-write", Duration.class, spec.refreshAfterWrite()),
+                spec.weigher());
+    }
+
+    private static AsyncCache<Object, Object> build(CacheSpec spec, ObjectProvider<CacheRefresher> refreshers,
+            RefreshAheadLimiter refreshAheadLimiter) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfterWrite(spec.expireAfterWrite())
+                .recordStats();
+        if (spec.weigher() != null) {
+            builder.maximumWeight(spec.maximumSize()).weigher(spec.weigher());
+        } else {
+            builder.maximumSize(spec.maximumSize());
+        }
+
+        if (spec.refreshAfterWrite() == null)
+            return builder.buildAsync();
+
+        // El refresher se busca al recargar para no crear dependencias al arrancar.
+        // La carga no es read-through: asyncLoad devuelve null (ausente), así que en
+        // un fallo se ejecuta el método @Cacheable con su orden L1 -> L2 -> espejo.
+        // Solo las recargas consultan el refresher, y pasan por el limitador.
+        builder.refreshAfterWrite(spec.refreshAfterWrite());
+        return builder.buildAsync(new AsyncCacheLoader<>() {
+            @Override
+            public CompletableFuture<Object> asyncLoad(Object key, Executor executor) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public CompletableFuture<Object> asyncReload(Object key, Object oldValue, Executor executor) {
+                return refreshAheadLimiter.submit(() -> reload(spec, refreshers, key, executor));
+            }
+        });
+    }
+
+    private static CompletableFuture<Object> reload(CacheSpec spec, ObjectProvider<CacheRefresher> refreshers,
+            Object key, Executor executor) {
+        return refreshers.orderedStream()
+                .filter(refresher -> refresher.cacheName().equals(spec.name()))
+                .findFirst()
+                .map(refresher -> refresher.reload(key, executor))
+                .orElseGet(() -> CompletableFuture.failedFuture(
+                        new IllegalStateException("No CacheRefresher for cache " + spec.name())));
+    }
 }
@@ -0,0 +1,29 @@
+package com.trazia.trazia_project.config;
+
+/**
+ * Nombres de las cachés de la aplicación. Las anotaciones @Cacheable/@CacheEvict
+ * deben usar estas constantes; CacheConfig declara la configuración de cada una
+ * y CacheTopologyValidator comprueba al arrancar que no se usa ningún otro nombre.
+ */
+public final class CacheNames {
+
+    /** Producto de Open Food Facts por código de barras */
+    public static final String OPEN_FOOD_FACTS_PRODUCTS = "openFoodFactsProducts";
+    /** Códigos de barras que Open Food Facts no conoce (caché negativa) */
+    public static final String OPEN_FOOD_FACTS_NOT_FOUND = "openFoodFactsNotFound";
+    /** Búsquedas por nombre en Open Food Facts */
+    public static final String OPEN_FOOD_FACTS_SEARCH = "openFoodFactsSearch";
+    /** Búsquedas por texto en USDA */
+    public static final String USDA_SEARCH = "usdaSearchCache";
+    /** Alimentos USDA por FDC ID */
+    public static final String USDA_FOODS = "usdaFoods";
+    /** Totales de productos por usuario (paginación por cursor) */
+    public static final String PRODUCT_COUNTS = "productCounts";
+    /** Totales de recetas por usuario (paginación por cursor) */
+    public static final String RECIPE_COUNTS = "recipeCounts";
+    /** Estado de la cuenta por userId (autenticación por JWT sin consultar la base de datos) */
+    public static final String USER_STATUS = "userStatus";
+
+    private CacheNames() {
+    }
+}
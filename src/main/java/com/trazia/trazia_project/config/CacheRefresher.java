@@ -0,0 +1,17 @@
+package com.trazia.trazia_project.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Recarga el valor de una entrada de caché cuando vence su refreshAfterWrite.
+ * Mientras se recarga se sigue sirviendo el valor anterior; si la recarga
+ * falla, el valor anterior se mantiene hasta su expiración.
+ */
+public interface CacheRefresher {
+
+    /** Caché (CacheNames) cuyas entradas recarga */
+    String cacheName();
+
+    CompletableFuture<Object> reload(Object key, Executor executor);
+}
@@ -0,0 +1,30 @@
+package com.trazia.trazia_project.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.time.Duration;
+
+/**
+ * Configuración de una caché: tamaño (entradas o peso si hay weigher), TTL y,
+ * opcionalmente, recarga anticipada (requiere un CacheRefresher para la caché).
+ *
+ * Los valores se pueden sobrescribir por propiedades:
+ * caches.{nombre}.maximum-size, caches.{nombre}.expire-after-write y
+ * caches.{nombre}.refresh-after-write (duraciones como 10m, 6h, 7d).
+ */
+public record CacheSpec(String name, long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite,
+        Weigher<Object, Object> weigher) {
+
+    public static CacheSpec of(String name, long maximumSize, Duration expireAfterWrite) {
+        return new CacheSpec(name, maximumSize, expireAfterWrite, null, null);
+    }
+
+    public CacheSpec withRefreshAfterWrite(Duration refresh) {
+        return new CacheSpec(name, maximumSize, expireAfterWrite, refresh, weigher);
+    }
+
+    /** maximumSize pasa a ser el peso máximo total */
+    public CacheSpec withWeigher(Weigher<Object, Object> newWeigher) {
+        return new CacheSpec(name, maximumSize, expireAfterWrite, refreshAfterWrite, newWeigher);
+    }
+}
@@ -0,0 +1,92 @@
+package com.trazia.trazia_project.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Comprueba al arrancar que cada nombre usado en @Cacheable, @CachePut y
+ * @CacheEvict (servicios y repositorios de la aplicación) está declarado en
+ * CacheConfig, y que las cachés con refreshAfterWrite tienen CacheRefresher.
+ * Si no, la aplicación no arranca: un nombre mal escrito dejaría la caché sin
+ * efecto sin que nadie lo notara.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheTopologyValidator implements SmartInitializingSingleton {
+
+    private static final String BASE_PACKAGE = "com.trazia.trazia_project";
+
+    private final ApplicationContext applicationContext;
+    private final CacheManager cacheManager;
+    private final ObjectProvider<CacheRefresher> refreshers;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Set<String> configured = new TreeSet<>(cacheManager.getCacheNames());
+        Set<String> used = new TreeSet<>();
+        Set<String> errors = new LinkedHashSet<>();
+
+        for (String beanName : applicationContext.getBeanDefinitionNames()) {
+            Class<?> type = applicationContext.getType(beanName, false);
+            if (type == null)
+                continue;
+            Set<Class<?>> candidates = new LinkedHashSet<>(ClassUtils.getAllInterfacesForClassAsSet(type));
+            candidates.add(ClassUtils.getUserClass(type));
+            for (Class<?> candidate : candidates) {
+                if (!candidate.getName().startsWith(BASE_PACKAGE))
+                    continue;
+                ReflectionUtils.doWithMethods(candidate, method -> collect(candidate, method, used, configured, errors));
+            }
+        }
+
+        Set<String> refreshed = new TreeSet<>();
+        refreshers.orderedStream().forEach(refresher -> refreshed.add(refresher.cacheName()));
+        for (String name : configured) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                Cache<Object, Object> nativeCache = cache.getNativeCache();
+                if (nativeCache.policy().refreshAfterWrite().isPresent() && !refreshed.contains(name))
+                    errors.add("cache '" + name + "' has refresh-after-write but no CacheRefresher");
+            }
+        }
+
+        if (!errors.isEmpty())
+            throw new IllegalStateException("Invalid cache configuration: " + String.join("; ", errors));
+        log.info("Cache topology OK: {} caches configured, used: {}", configured.size(), used);
+    }
+
+    private void collect(Class<?> type, Method method, Set<String> used, Set<String> configured, Set<String> errors) {
+        Set<String> names = new LinkedHashSet<>();
+        AnnotatedElementUtils.findAllMergedAnnotations(method, Cacheable.class)
+                .forEach(a -> names.addAll(Arrays.asList(a.cacheNames())));
+        AnnotatedElementUtils.findAllMergedAnnotations(method, CachePut.class)
+                .forEach(a -> names.addAll(Arrays.asList(a.cacheNames())));
+        AnnotatedElementUtils.findAllMergedAnnotations(method, CacheEvict.class)
+                .forEach(a -> names.addAll(Arrays.asList(a.cacheNames())));
+
+        for (String name : names) {
+            used.add(name);
+            if (!configured.contains(name))
+                errors.add(type.getSimpleName() + "." + method.getName() + " uses undeclared cache '" + name + "'");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.trazia.trazia_project.config;
+
+import com.trazia.trazia_project.service.external.HttpClientMetricsRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Cliente HTTP de USDA FoodData Central.
+ *
+ * Usa java.net.http.HttpClient en lugar de HttpURLConnection: mantiene un pool
+ * de conexiones keep-alive (sin un handshake TLS por llamada) y negocia HTTP/2
+ * por ALPN cuando el servidor lo admite, multiplexando las peticiones en una
+ * sola conexión. Las respuestas se piden comprimidas (gzip) y se descomprimen
+ * en GzipResponseInterceptor.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public HttpClient usdaHttpClient(@Value("${usda.http.connect-timeout:3s}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @Bean
+    public RestTemplate usdaRestTemplate(HttpClient usdaHttpClient,
+            HttpClientMetricsRegistry httpClientMetricsRegistry,
+            @Value("${usda.http.read-timeout:10s}") Duration readTimeout,
+            @Value("${usda.http.compression:true}") boolean compression) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(usdaHttpClient);
+        requestFactory.setReadTimeout(readTimeout);
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        // Gzip va por fuera: las métricas reciben la respuesta original, con su
+        // Content-Encoding, para contar las comprimidas. La latencia medida llega
+        // hasta las cabeceras; el cuerpo se lee y descomprime después, en getBody().
+        if (compression)
+            restTemplate.getInterceptors().add(new GzipResponseInterceptor());
+        restTemplate.getInterceptors().add(httpClientMetricsRegistry.create("usda"));
+        return restTemplate;
+    }
+}
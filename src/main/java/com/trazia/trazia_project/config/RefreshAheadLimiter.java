@@ -0,0 +1,105 @@
+package com.trazia.trazia_project.config;
+
+import com.trazia.trazia_project.dto.common.RefreshAheadStatsResponse;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Limita el ritmo de las recargas anticipadas (refresh-after-write) de las
+ * cachés externas para no provocar throttling en Open Food Facts o USDA.
+ *
+ * Caffeine lanza la recarga cuando se lee una entrada que ha superado su TTL
+ * blando y mientras tanto sigue sirviendo el valor anterior; así solo se
+ * recargan las entradas que se están usando. Aquí las recargas esperan en una
+ * cola acotada y se lanzan como mucho rate-per-second por segundo. Si la cola
+ * está llena la recarga se descarta (cancelada, sin error en el log): la
+ * entrada sigue sirviéndose y se vuelve a intentar en la siguiente lectura.
+ */
+@Slf4j
+@Component
+public class RefreshAheadLimiter {
+
+    private final BlockingQueue<Runnable> pending;
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final double ratePerSecond;
+
+    public RefreshAheadLimiter(@Value("${caches.refresh.rate-per-second:5}") double ratePerSecond,
+            @Value("${caches.refresh.max-pending:500}") int maxPending) {
+        this.ratePerSecond = ratePerSecond;
+        this.pending = new ArrayBlockingQueue<>(maxPending);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-refresh-ahead");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMicros = Math.max(1, (long) (1_000_000 / ratePerSecond));
+        scheduler.scheduleAtFixedRate(this::startNext, periodMicros, periodMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Encola la recarga; el futuro se completa con el resultado de reload
+     * cuando le llegue el turno, o se cancela si no cabe en la cola.
+     */
+    public CompletableFuture<Object> submit(Supplier<CompletableFuture<Object>> reload) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        submitted.increment();
+        Runnable task = () -> {
+            started.increment();
+            try {
+                reload.get().whenComplete((value, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+        if (!pending.offer(task)) {
+            dropped.increment();
+            log.debug("Refresh-ahead queue full, skipping refresh");
+            result.completeExceptionally(new CancellationException("Refresh-ahead queue full"));
+        }
+        return result;
+    }
+
+    private void startNext() {
+        Runnable task = pending.poll();
+        if (task != null)
+            task.run();
+    }
+
+    public RefreshAheadStatsResponse stats() {
+        return RefreshAheadStatsResponse.builder()
+                .ratePerSecond(ratePerSecond)
+                .pending(pending.size())
+                .submitted(submitted.sum())
+                .started(started.sum())
+                .dropped(dropped.sum())
+                .build();
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.trazia.trazia_project.dto.auth.AuthResponse;
 import com.trazia.trazia_project.dto.auth.LoginRequest;
+import com.trazia.trazia_project.dto.auth.RefreshTokenRequest;
 import com.trazia.trazia_project.dto.auth.RegisterRequest;
 import com.trazia.trazia_project.service.common.AuthService;
 
@@ -36,7 +37,17 @@ public class AuthController {
         log.info("Login attempt for email: {}", request.getEmail());
         AuthResponse response = authService.login(request);
         log.info("User logged in successfully: {}", request.getEmail());
-        log.info("🔐 Token generated for frontend: {}", response.getToken()); // ← LOG AGREGADO
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        authService.logout(request);
+        return ResponseEntity.noContent().build();
+    }
+}
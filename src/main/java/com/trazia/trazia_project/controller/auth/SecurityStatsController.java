@@ -0,0 +1,29 @@
+package com.trazia.trazia_project.controller.auth;
+
+import com.trazia.trazia_project.dto.auth.PasswordHashingStatsResponse;
+import com.trazia.trazia_project.security.BoundedPasswordEncoder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Métricas de autenticación (fuera de /api/auth/** para que requieran token;
+ * solo ROLE_ADMIN, ver SecurityConfig).
+ */
+@RestController
+@RequestMapping("/api/security/stats")
+@RequiredArgsConstructor
+public class SecurityStatsController {
+
+    private final BoundedPasswordEncoder passwordEncoder;
+
+    /**
+     * Latencia de BCrypt, profundidad de cola y peticiones rechazadas.
+     */
+    @GetMapping("/password-hashing")
+    public ResponseEntity<PasswordHashingStatsResponse> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordEncoder.stats());
+    }
+}
@@ -0,0 +1,76 @@
+package com.trazia.trazia_project.controller.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.trazia.trazia_project.config.RefreshAheadLimiter;
+import com.trazia.trazia_project.dto.common.CacheStatsResponse;
+import com.trazia.trazia_project.dto.common.RefreshAheadStatsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estadísticas de aciertos, fallos y desalojos de cada caché declarada en CacheConfig.
+ */
+@RestController
+@RequestMapping("/api/caches")
+@RequiredArgsConstructor
+public class CacheStatsController {
+
+    private final CacheManager cacheManager;
+    private final RefreshAheadLimiter refreshAheadLimiter;
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStatsResponse>> getCacheStats() {
+        List<CacheStatsResponse> stats = cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .filter(CaffeineCache.class::isInstance)
+                .map(cache -> toResponse(cache.getName(), ((CaffeineCache) cache).getNativeCache()))
+                .toList();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Recargas anticipadas (stale-while-revalidate) en cola, lanzadas y descartadas.
+     */
+    @GetMapping("/refresh-stats")
+    public ResponseEntity<RefreshAheadStatsResponse> getRefreshStats() {
+        return ResponseEntity.ok(refreshAheadLimiter.stats());
+    }
+
+    private CacheStatsResponse toResponse(String name, Cache<Object, Object> cache) {
+        CacheStats stats = cache.stats();
+        Policy<Object, Object> policy = cache.policy();
+        Policy.Eviction<Object, Object> eviction = policy.eviction().orElse(null);
+        return CacheStatsResponse.builder()
+                .name(name)
+                .estimatedSize(cache.estimatedSize())
+                .maximum(eviction != null ? eviction.getMaximum() : null)
+                .weighted(eviction != null && eviction.isWeighted())
+                .expireAfterWriteSeconds(policy.expireAfterWrite()
+                        .map(expiration -> expiration.getExpiresAfter(TimeUnit.SECONDS))
+                        .orElse(null))
+                .refreshAfterWriteSeconds(policy.refreshAfterWrite()
+                        .map(refresh -> refresh.getRefreshesAfter(TimeUnit.SECONDS))
+                        .orElse(null))
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .loadSuccessCount(stats.loadSuccessCount())
+                .loadFailureCount(stats.loadFailureCount())
+                .averageLoadPenaltyMs(stats.averageLoadPenalty() / 1_000_000.0)
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.trazia.trazia_project.controller.external;
+
+import com.trazia.trazia_project.dto.external.HttpClientStatsResponse;
+import com.trazia.trazia_project.dto.external.SingleFlightStatsResponse;
+import com.trazia.trazia_project.dto.external.UpstreamStatsResponse;
+import com.trazia.trazia_project.service.external.HttpClientMetricsRegistry;
+import com.trazia.trazia_project.service.external.SingleFlightRegistry;
+import com.trazia.trazia_project.service.external.UpstreamGuardRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Métricas de los clientes de APIs externas (Open Food Facts, USDA, Spoonacular).
+ */
+@RestController
+@RequestMapping("/api/external/stats")
+@RequiredArgsConstructor
+public class ExternalApiStatsController {
+
+    private final SingleFlightRegistry singleFlightRegistry;
+    private final UpstreamGuardRegistry upstreamGuardRegistry;
+    private final HttpClientMetricsRegistry httpClientMetricsRegistry;
+
+    @GetMapping("/single-flight")
+    public ResponseEntity<List<SingleFlightStatsResponse>> getSingleFlightStats() {
+        return ResponseEntity.ok(singleFlightRegistry.stats());
+    }
+
+    @GetMapping("/upstreams")
+    public ResponseEntity<List<UpstreamStatsResponse>> getUpstreamStats() {
+        return ResponseEntity.ok(upstreamGuardRegistry.stats());
+    }
+
+    @GetMapping("/http-clients")
+    public ResponseEntity<List<HttpClientStatsResponse>> getHttpClientStats() {
+        return ResponseEntity.ok(httpClientMetricsRegistry.stats());
+    }
+}
@@ -0,0 +1,58 @@
+package com.trazia.trazia_project.controller.external;
+
+import com.trazia.trazia_project.dto.external.FoodMirrorStatusResponse;
+import com.trazia.trazia_project.repository.external.FoodMirrorImportRepository;
+import com.trazia.trazia_project.service.external.FoodMirrorImportService;
+import com.trazia.trazia_project.service.external.FoodMirrorService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Espejo local de Open Food Facts y USDA: estado e importación bajo demanda
+ * de los ficheros de volcado pendientes.
+ */
+@RestController
+@RequestMapping("/api/external/mirror")
+@RequiredArgsConstructor
+public class FoodMirrorController {
+
+    private final FoodMirrorService foodMirrorService;
+    private final FoodMirrorImportService foodMirrorImportService;
+    private final FoodMirrorImportRepository foodMirrorImportRepository;
+
+    @GetMapping("/status")
+    public ResponseEntity<FoodMirrorStatusResponse> getStatus() {
+        return ResponseEntity.ok(FoodMirrorStatusResponse.builder()
+                .importRunning(foodMirrorImportService.isRunning())
+                .openFoodFactsProducts(foodMirrorService.countOpenFoodFactsProducts())
+                .usdaFoods(foodMirrorService.countUsdaFoods())
+                .recentImports(foodMirrorImportRepository.findTop20ByOrderByImportedAtDesc().stream()
+                        .map(i -> FoodMirrorStatusResponse.ImportSummary.builder()
+                                .source(i.getSource().name())
+                                .fileName(i.getFileName())
+                                .importedCount(i.getImportedCount())
+                                .skippedCount(i.getSkippedCount())
+                                .durationMs(i.getDurationMs())
+                                .importedAt(i.getImportedAt())
+                                .build())
+                        .toList())
+                .build());
+    }
+
+    /**
+     * Importa en segundo plano los ficheros nuevos del directorio de volcados.
+     * 202 si se lanza, 409 si ya hay una importación en curso o está desactivado.
+     * Solo ROLE_ADMIN (SecurityConfig): la importación es global para todos los usuarios.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<Void> triggerImport() {
+        return foodMirrorImportService.triggerImport()
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
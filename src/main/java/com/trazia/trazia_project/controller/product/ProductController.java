@@ -1,9 +1,11 @@
 package com.trazia.trazia_project.controller.product;
 
 import org.springframework.http.MediaType;
+import com.trazia.trazia_project.dto.common.CursorPageResponse;
 import com.trazia.trazia_project.dto.product.*;
 import com.trazia.trazia_project.entity.product.ProductCategory;
 import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.service.product.ProductAutocompleteService;
 import com.trazia.trazia_project.service.product.ProductService;
 
 import jakarta.validation.Valid;
@@ -27,10 +29,13 @@ import org.springframework.web.server.ResponseStatusException;
 public class ProductController {
 
         private final ProductService productService;
+        private final ProductAutocompleteService productAutocompleteService;
 
         // Constructor para inyección de dependencias
-        public ProductController(ProductService productService) {
+        public ProductController(ProductService productService,
+                        ProductAutocompleteService productAutocompleteService) {
                 this.productService = productService;
+                this.productAutocompleteService = productAutocompleteService;
         }
 
         @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
@@ -63,6 +68,18 @@ public class ProductController {
                 return ResponseEntity.ok(response);
         }
 
+        // Paginación por cursor (createdAt DESC, id DESC): coste constante en páginas profundas
+        @GetMapping(path = "/cursor", produces = MediaType.APPLICATION_JSON_VALUE)
+        public ResponseEntity<CursorPageResponse<ProductPageResponse.ProductSummaryDTO>> getProductsByCursor(
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "20") int size,
+                        @RequestParam(defaultValue = "false") boolean includeTotal,
+                        @AuthenticationPrincipal User user) {
+                int pageSize = Math.max(1, Math.min(size, 100));
+                return ResponseEntity.ok(
+                                productService.getUserProductsByCursor(user.getId(), cursor, pageSize, includeTotal));
+        }
+
         @GetMapping("/{id}")
         public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
                 log.info("Fetching product with ID: {}", id);
@@ -104,6 +121,21 @@ public class ProductController {
                 return ResponseEntity.ok(response);
         }
 
+        // Autocompletado en memoria para el editor de recetas (prefijo + una errata)
+        @GetMapping("/autocomplete")
+        public ResponseEntity<List<ProductAutocompleteResponse>> autocompleteProducts(
+                        @RequestParam("q") String query,
+                        @RequestParam(defaultValue = "10") int limit,
+                        @AuthenticationPrincipal User user) {
+                int maxResults = Math.max(1, Math.min(limit, 50));
+                return ResponseEntity.ok(productAutocompleteService.suggest(user.getId(), query, maxResults));
+        }
+
+        @GetMapping("/autocomplete/stats")
+        public ResponseEntity<AutocompleteStatsResponse> getAutocompleteStats(@AuthenticationPrincipal User user) {
+                return ResponseEntity.ok(productAutocompleteService.stats(user.getId()));
+        }
+
         @GetMapping("/category/{category}")
         public ResponseEntity<ProductPageResponse> getProductsByCategory(
                         @PathVariable ProductCategory category,
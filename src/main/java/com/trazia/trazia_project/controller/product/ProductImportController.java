@@ -0,0 +1,51 @@
+package com.trazia.trazia_project.controller.product;
+
+import com.trazia.trazia_project.dto.product.BarcodeImportResult;
+import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.service.product.ProductBarcodeImportService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/products/import")
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportController {
+
+    private final ProductBarcodeImportService productBarcodeImportService;
+
+    /**
+     * POST /api/products/import/barcodes
+     * Importa productos de Open Food Facts a partir de una lista JSON de códigos.
+     * Devuelve un resultado por código en NDJSON a medida que se resuelven.
+     */
+    @PostMapping(path = "/barcodes", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BarcodeImportResult> importBarcodes(
+            @RequestBody List<String> barcodes,
+            @AuthenticationPrincipal User user) {
+        log.info("Barcode import of {} codes requested by user ID: {}", barcodes.size(), user.getId());
+        return productBarcodeImportService.importBarcodes(user.getId(), barcodes);
+    }
+
+    /**
+     * POST /api/products/import/barcodes
+     * Igual que el anterior, con los códigos en CSV o texto plano.
+     */
+    @PostMapping(path = "/barcodes", consumes = { "text/csv", MediaType.TEXT_PLAIN_VALUE },
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BarcodeImportResult> importBarcodesCsv(
+            @RequestBody String csv,
+            @AuthenticationPrincipal User user) {
+        List<String> barcodes = ProductBarcodeImportService.parseBarcodes(csv);
+        log.info("Barcode CSV import of {} codes requested by user ID: {}", barcodes.size(), user.getId());
+        return productBarcodeImportService.importBarcodes(user.getId(), barcodes);
+    }
+}
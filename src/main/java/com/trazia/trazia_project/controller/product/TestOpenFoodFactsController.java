@@ -6,7 +6,12 @@ import com.trazia.trazia_project.service.external.OpenFoodFactsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
+/**
+ * Endpoints asíncronos: devuelven el Mono del servicio y el hilo de Tomcat se
+ * libera mientras se espera a Open Food Facts.
+ */
 @RestController
 @RequestMapping("/api/test/openfoodfacts")
 @RequiredArgsConstructor
@@ -15,18 +20,16 @@ public class TestOpenFoodFactsController {
     private final OpenFoodFactsService openFoodFactsService;
     
     @GetMapping("/barcode/{barcode}")
-    public ResponseEntity<OpenFoodFactsProductDTO> testSearchByBarcode(@PathVariable String barcode) {
-        OpenFoodFactsProductDTO product = openFoodFactsService.searchByBarcode(barcode);
-        return ResponseEntity.ok(product);
+    public Mono<ResponseEntity<OpenFoodFactsProductDTO>> testSearchByBarcode(@PathVariable String barcode) {
+        return openFoodFactsService.searchByBarcode(barcode)
+                .map(ResponseEntity::ok);
     }
     
     @GetMapping("/search")
-    public ResponseEntity<OpenFoodFactsSearchResultDTO> testSearchByName(
+    public Mono<ResponseEntity<OpenFoodFactsSearchResultDTO>> testSearchByName(
             @RequestParam String query,
             @RequestParam(defaultValue = "10") int pageSize) {
-        OpenFoodFactsSearchResultDTO result = openFoodFactsService.searchByName(query, pageSize);
-        return ResponseEntity.ok(result);
+        return openFoodFactsService.searchByName(query, pageSize)
+                .map(ResponseEntity::ok);
     }
 }
-
-
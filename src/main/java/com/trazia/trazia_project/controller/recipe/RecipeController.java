@@ -1,5 +1,6 @@
 package com.trazia.trazia_project.controller.recipe;
 
+import com.trazia.trazia_project.dto.common.CursorPageResponse;
 import com.trazia.trazia_project.dto.recipe.*;
 import com.trazia.trazia_project.entity.user.User;
 import com.trazia.trazia_project.service.recipe.RecipeService;
@@ -53,6 +54,19 @@ public class RecipeController {
         return ResponseEntity.ok(pageResponse);
     }
 
+    // Listar recetas por cursor (paginación por clave, sin OFFSET)
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponse<RecipeSummaryResponse>> getRecipesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @AuthenticationPrincipal User principalUser) {
+
+        int pageSize = Math.max(1, Math.min(size, 100));
+        return ResponseEntity.ok(
+                recipeService.getRecipesByCursor(principalUser.getId(), cursor, pageSize, includeTotal));
+    }
+
     // Actualizar receta
     @PutMapping("/{id}")
     public ResponseEntity<RecipeResponse> updateRecipe(
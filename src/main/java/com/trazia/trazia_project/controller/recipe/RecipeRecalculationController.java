@@ -0,0 +1,48 @@
+package com.trazia.trazia_project.controller.recipe;
+
+import com.trazia.trazia_project.dto.recipe.RecipeRecalculationJobResponse;
+import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.service.recipe.RecipeBulkRecalculationService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Recálculo masivo de las recetas del usuario autenticado.
+ */
+@RestController
+@RequestMapping("/api/recipes/recalculation-jobs")
+@RequiredArgsConstructor
+public class RecipeRecalculationController {
+
+    private final RecipeBulkRecalculationService bulkRecalculationService;
+
+    // Lanzar (o reanudar) el recálculo de todas las recetas
+    @PostMapping
+    public ResponseEntity<RecipeRecalculationJobResponse> startRecalculation(
+            @AuthenticationPrincipal User principalUser) {
+
+        RecipeRecalculationJobResponse job = bulkRecalculationService.start(principalUser.getId());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    // Progreso de la última ejecución
+    @GetMapping("/latest")
+    public ResponseEntity<RecipeRecalculationJobResponse> getLatestJob(
+            @AuthenticationPrincipal User principalUser) {
+
+        return ResponseEntity.ok(bulkRecalculationService.getLatestJob(principalUser.getId()));
+    }
+
+    // Progreso de una ejecución concreta
+    @GetMapping("/{jobId}")
+    public ResponseEntity<RecipeRecalculationJobResponse> getJob(
+            @PathVariable Long jobId,
+            @AuthenticationPrincipal User principalUser) {
+
+        return ResponseEntity.ok(bulkRecalculationService.getJob(jobId, principalUser.getId()));
+    }
+}
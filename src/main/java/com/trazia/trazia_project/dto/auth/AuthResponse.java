@@ -11,6 +11,9 @@ import lombok.NoArgsConstructor;
 @Builder
 public class AuthResponse {
     private String token;
+
+    /** Un solo uso: /api/auth/refresh lo sustituye por otro */
+    private String refreshToken;
     
     @Builder.Default  // ← AÑADIR
     private String type = "Bearer";
@@ -0,0 +1,39 @@
+package com.trazia.trazia_project.dto.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estado del executor de hash de contraseñas (BCrypt).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PasswordHashingStatsResponse {
+
+    /** Factor de trabajo de BCrypt con el que se generan los hashes nuevos */
+    private int strength;
+    private int threads;
+    private int activeThreads;
+    private int queueCapacity;
+    private int queueDepth;
+    private int peakQueueDepth;
+    private long completed;
+    /** Rechazadas con cola llena (429) */
+    private long rejected;
+    /** Abandonadas tras esperar más de max-wait (429) */
+    private long timedOut;
+    /** Hashes regenerados en el login por cambio de factor de trabajo */
+    private long rehashed;
+    private long hashP50Ms;
+    private long hashP99Ms;
+    private long queueWaitP50Ms;
+    private long queueWaitP99Ms;
+    /** Límites superiores (ms) de los buckets de latencia de hash */
+    private long[] hashLatencyBucketsMs;
+    /** Recuento por bucket, más el bucket +Inf */
+    private long[] hashLatencyHistogram;
+}
@@ -0,0 +1,32 @@
+package com.trazia.trazia_project.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Configuración y estadísticas de una caché.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsResponse {
+
+    private String name;
+    private long estimatedSize;
+    /** Máximo de entradas, o de peso si weighted */
+    private Long maximum;
+    private boolean weighted;
+    private Long expireAfterWriteSeconds;
+    private Long refreshAfterWriteSeconds;
+
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long loadSuccessCount;
+    private long loadFailureCount;
+    private double averageLoadPenaltyMs;
+}
@@ -0,0 +1,26 @@
+package com.trazia.trazia_project.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de una paginación por cursor. nextCursor es opaco y se envía tal cual
+ * para pedir el siguiente bloque; totalElements solo se rellena si se pide
+ * (y puede venir de caché).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageResponse<T> {
+
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasNext;
+    private int pageSize;
+    private Long totalElements;
+}
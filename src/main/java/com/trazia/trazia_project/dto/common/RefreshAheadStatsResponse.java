@@ -0,0 +1,25 @@
+package com.trazia.trazia_project.dto.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contadores de las recargas anticipadas de caché.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshAheadStatsResponse {
+
+    /** Recargas lanzadas por segundo como máximo */
+    private double ratePerSecond;
+    /** Recargas esperando turno */
+    private int pending;
+    private long submitted;
+    private long started;
+    /** Descartadas por cola llena (la entrada se sigue sirviendo) */
+    private long dropped;
+}
@@ -0,0 +1,37 @@
+package com.trazia.trazia_project.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Estado del espejo local de Open Food Facts y USDA.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FoodMirrorStatusResponse {
+
+    private boolean importRunning;
+    private long openFoodFactsProducts;
+    private long usdaFoods;
+    private List<ImportSummary> recentImports;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ImportSummary {
+        private String source;
+        private String fileName;
+        private long importedCount;
+        private long skippedCount;
+        private long durationMs;
+        private LocalDateTime importedAt;
+    }
+}
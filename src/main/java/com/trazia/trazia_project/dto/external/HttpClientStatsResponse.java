@@ -0,0 +1,28 @@
+package com.trazia.trazia_project.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contadores de un cliente HTTP externo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HttpClientStatsResponse {
+
+    private String name;
+    private long requests;
+    /** Respuestas 4xx/5xx y errores de conexión o lectura */
+    private long errors;
+    /** Respuestas recibidas comprimidas */
+    private long compressedResponses;
+    private double averageLatencyMs;
+    private long maxLatencyMs;
+    /** Peticiones en curso: conexiones (HTTP/1.1) o streams (HTTP/2) ocupados */
+    private int inFlight;
+    private int peakInFlight;
+}
@@ -0,0 +1,25 @@
+package com.trazia.trazia_project.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contadores de agrupación de llamadas de un cliente externo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SingleFlightStatsResponse {
+
+    private String name;
+    /** Peticiones que llegaron a la capa single-flight (fallos de caché) */
+    private long requests;
+    /** Llamadas que salieron realmente al proveedor */
+    private long upstreamCalls;
+    /** Peticiones servidas por una llamada ya en curso */
+    private long savedCalls;
+    private int inFlight;
+}
@@ -0,0 +1,41 @@
+package com.trazia.trazia_project.dto.external;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Estado del circuit breaker, bulkhead y latencias de una API externa.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UpstreamStatsResponse {
+
+    private String name;
+    /** CLOSED, OPEN o HALF_OPEN */
+    private String state;
+    /** Porcentaje de fallos en la ventana actual */
+    private double failureRate;
+    private long successes;
+    private long failures;
+    private long timeouts;
+    /** Llamadas rechazadas con el circuito abierto */
+    private long rejectedOpen;
+    /** Llamadas rechazadas por superar el máximo de llamadas simultáneas */
+    private long rejectedBulkhead;
+    private int inFlight;
+    private int maxConcurrentCalls;
+    /** Timeout adaptativo vigente */
+    private long currentTimeoutMs;
+    /** Percentiles de las últimas llamadas correctas (-1 sin muestras) */
+    private long p50Ms;
+    private long p95Ms;
+    private long p99Ms;
+    /** Llamadas correctas por bucket de latencia (límite superior en ms) */
+    private Map<String, Long> latencyHistogram;
+}
@@ -0,0 +1,28 @@
+package com.trazia.trazia_project.dto.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estado de los índices de autocompletado en memoria: el del usuario y el
+ * total del nodo frente al límite configurado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AutocompleteStatsResponse {
+
+    private boolean loaded;
+    private int products;
+    private long trieNodes;
+    private long estimatedBytes;
+
+    private long loadedTenants;
+    private long totalEstimatedBytes;
+    private long maxBytes;
+    private long evictions;
+    private double hitRate;
+}
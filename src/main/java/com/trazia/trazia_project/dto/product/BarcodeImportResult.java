@@ -0,0 +1,34 @@
+package com.trazia.trazia_project.dto.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de un código de barras en la importación masiva (una línea NDJSON).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BarcodeImportResult {
+
+    public enum Status {
+        /** Producto creado a partir de Open Food Facts */
+        CREATED,
+        /** El usuario ya tenía un producto con ese código */
+        ALREADY_EXISTS,
+        /** El nombre de Open Food Facts ya lo usa otro producto del usuario */
+        DUPLICATE_NAME,
+        NOT_FOUND,
+        INVALID_BARCODE,
+        ERROR
+    }
+
+    private String barcode;
+    private Status status;
+    private Long productId;
+    private String name;
+    private String message;
+}
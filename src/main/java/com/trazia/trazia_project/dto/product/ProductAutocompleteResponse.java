@@ -0,0 +1,19 @@
+package com.trazia.trazia_project.dto.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductAutocompleteResponse {
+
+    private Long id;
+    private String name;
+    private String brand;
+    /** true si la coincidencia admite una errata (distancia de edición 1) */
+    private boolean fuzzy;
+}
@@ -10,6 +10,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 /**
  * DTO para crear un nuevo producto
  */
@@ -68,6 +70,12 @@ public class ProductRequest {
      * Región de etiquetado (opcional, por defecto EU)
      */
     private LabelingRegion labelingRegion;
+
+    /**
+     * Costo por unidad (kg) (opcional)
+     */
+    @DecimalMin(value = "0.0", inclusive = false, message = "Cost per unit must be positive")
+    private BigDecimal costPerUnit;
 }
 
 
@@ -4,6 +4,7 @@ import com.trazia.trazia_project.entity.company.LabelingRegion;
 import com.trazia.trazia_project.entity.product.ProductCategory;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
@@ -12,6 +13,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -39,5 +42,8 @@ public class UpdateProductRequest {
     private String servingDescription;
 
     private LabelingRegion labelingRegion;
+
+    @DecimalMin(value = "0.0", inclusive = false)
+    private BigDecimal costPerUnit;
 }
 
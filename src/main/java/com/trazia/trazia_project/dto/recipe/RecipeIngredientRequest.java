@@ -24,6 +24,12 @@ public class RecipeIngredientRequest {
     @NotNull(message = "El ID del producto es obligatorio")
     private Long productId;
 
+    /**
+     * ID de una receta propia a usar como ingrediente (sub-receta, opcional)
+     * Si se indica, tiene prioridad sobre productId y name
+     */
+    private Long subRecipeId;
+
     /**
      * Nombre del producto (opcional - se puede usar productId en su lugar)
      */
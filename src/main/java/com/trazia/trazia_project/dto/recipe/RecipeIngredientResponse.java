@@ -24,6 +24,16 @@ public class RecipeIngredientResponse {
      */
     private ProductDTO product;
 
+    /**
+     * ID de la sub-receta usada como ingrediente (null si es un producto)
+     */
+    private Long subRecipeId;
+
+    /**
+     * Nombre de la sub-receta usada como ingrediente
+     */
+    private String subRecipeName;
+
     /**
      * Cantidad del producto usado (en gramos)
      */
@@ -0,0 +1,25 @@
+package com.trazia.trazia_project.dto.recipe;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeRecalculationJobResponse {
+    private Long id;
+    private String status;
+    /** true mientras la ejecución está activa en este nodo */
+    private boolean running;
+    private long processedCount;
+    private long failedCount;
+    private Long totalCount;
+    private Long lastProcessedRecipeId;
+    private Double recipesPerSecond;
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,41 @@
+package com.trazia.trazia_project.entity.external;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada de la caché persistente (L2) de respuestas de APIs externas.
+ * Sobrevive a reinicios y despliegues; el payload es binario (ExternalCacheCodec).
+ */
+@Entity
+@Table(name = "external_cache_entries", uniqueConstraints = @UniqueConstraint(name = "uk_external_cache_key",
+        columnNames = { "cache_name", "cache_key" }), indexes = {
+                @Index(name = "idx_external_cache_expiry", columnList = "cache_name, expires_at")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExternalCacheEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cache_name", nullable = false, length = 50)
+    private String cacheName;
+
+    @Column(name = "cache_key", nullable = false, length = 200)
+    private String cacheKey;
+
+    @Column(nullable = false, length = 1_000_000)
+    private byte[] payload;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,57 @@
+package com.trazia.trazia_project.entity.external;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fichero de volcado ya importado en el espejo local. Un fichero con el mismo
+ * nombre, tamaño y fecha de modificación no se vuelve a importar, de modo que
+ * cada ejecución solo procesa los ficheros nuevos (deltas).
+ */
+@Entity
+@Table(name = "food_mirror_imports", uniqueConstraints = @UniqueConstraint(name = "uk_food_mirror_import_file",
+        columnNames = { "file_name", "file_size", "file_modified_at" }))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FoodMirrorImport {
+
+    public enum Source {
+        OPEN_FOOD_FACTS,
+        USDA
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Source source;
+
+    @Column(name = "file_name", nullable = false, length = 255)
+    private String fileName;
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    @Column(name = "file_modified_at", nullable = false)
+    private Long fileModifiedAt;
+
+    /** Registros insertados o actualizados */
+    @Column(name = "imported_count", nullable = false)
+    private Long importedCount;
+
+    /** Registros descartados (sin clave, mal formados o más antiguos que los guardados) */
+    @Column(name = "skipped_count", nullable = false)
+    private Long skippedCount;
+
+    @Column(name = "duration_ms", nullable = false)
+    private Long durationMs;
+
+    @Column(name = "imported_at", nullable = false)
+    private LocalDateTime importedAt;
+}
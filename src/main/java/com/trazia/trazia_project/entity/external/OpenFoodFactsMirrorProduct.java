@@ -0,0 +1,63 @@
+package com.trazia.trazia_project.entity.external;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copia local de un producto de Open Food Facts, cargada desde los volcados
+ * JSONL y sus ficheros delta. El payload es el OpenFoodFactsProductDTO en JSON.
+ *
+ * El id es el código de barras (asignado), por eso implementa Persistable:
+ * los productos nuevos se insertan por lotes sin un SELECT previo por fila.
+ */
+@Entity
+@Table(name = "off_mirror_products")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OpenFoodFactsMirrorProduct implements Persistable<String> {
+
+    @Id
+    @Column(length = 32)
+    private String barcode;
+
+    @Column(name = "product_name", length = 255)
+    private String productName;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    /** last_modified_t del volcado; un delta más antiguo no sobrescribe */
+    @Column(name = "last_modified")
+    private Long lastModified;
+
+    @Column(name = "imported_at", nullable = false)
+    private LocalDateTime importedAt;
+
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean isNew = true;
+
+    @Override
+    public String getId() {
+        return barcode;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -0,0 +1,65 @@
+package com.trazia.trazia_project.entity.external;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copia local de un alimento de USDA FoodData Central, cargada desde las
+ * descargas JSON (Foundation, SR Legacy, FNDDS). El payload es el UsdaFoodDTO
+ * en JSON; searchText es la descripción normalizada (SearchText.normalize).
+ */
+@Entity
+@Table(name = "usda_mirror_foods", indexes = {
+        @Index(name = "idx_usda_mirror_search_text", columnList = "search_text")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UsdaMirrorFood implements Persistable<Long> {
+
+    @Id
+    @Column(name = "fdc_id")
+    private Long fdcId;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(name = "search_text", length = 500)
+    private String searchText;
+
+    @Column(name = "data_type", length = 50)
+    private String dataType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "imported_at", nullable = false)
+    private LocalDateTime importedAt;
+
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean isNew = true;
+
+    @Override
+    public Long getId() {
+        return fdcId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -3,6 +3,7 @@ package com.trazia.trazia_project.entity.product;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -16,6 +17,7 @@ import com.trazia.trazia_project.entity.company.LabelingRegion;
 import com.trazia.trazia_project.entity.recipe.Recipe;
 import com.trazia.trazia_project.entity.recipe.RecipeIngredient;
 import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.model.SearchText;
 
 /**
  * Entidad para productos personalizados del usuario
@@ -28,7 +30,9 @@ import com.trazia.trazia_project.entity.user.User;
         @Index(name = "idx_user_id", columnList = "user_id"),
         @Index(name = "idx_category", columnList = "category"),
         @Index(name = "idx_created_at", columnList = "created_at"),
-        @Index(name = "idx_deleted", columnList = "deleted")
+        @Index(name = "idx_deleted", columnList = "deleted"),
+        @Index(name = "idx_product_user_seek", columnList = "user_id, deleted, created_at, id"),
+        @Index(name = "idx_product_user_barcode", columnList = "user_id, barcode")
 })
 @Getter
 @Setter
@@ -37,8 +41,10 @@ import com.trazia.trazia_project.entity.user.User;
 @Builder
 public class Product {
 
+    /** Secuencia con asignación en bloque para permitir inserciones por lotes */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
 
     /** Usuario creador del producto */
@@ -72,17 +78,37 @@ public class Product {
     @Column(length = 100)
     private String brand;
 
+    /** Código de barras (EAN/UPC) si el producto se importó de Open Food Facts */
+    @Column(length = 32)
+    private String barcode;
+
     /**
      * Alérgenos del producto.
      * @TODO: Normalizar a entidad propia en el futuro para evitar duplicados y facilitar búsquedas.
      */
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "product_allergens", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "allergen", length = 100)
     @Builder.Default
     private List<String> allergens = new ArrayList<>();
     // TODO: Consider normalizing allergens to a separate entity to avoid duplicates and simplify searches.
 
+    /**
+     * Texto de búsqueda normalizado (sin acentos, minúsculas), en dos columnas
+     * para ponderar la relevancia: search_name con el nombre (peso A) y
+     * search_document con marca, alérgenos y descripción (peso B). En
+     * PostgreSQL se indexan juntas con un índice GIN (ver ProductSearchService).
+     * Se recalculan con updateSearchDocument().
+     */
+    @Column(name = "search_name", length = SearchText.MAX_NAME_LENGTH)
+    @ToString.Exclude
+    private String searchName;
+
+    @Column(name = "search_document", length = SearchText.MAX_DOCUMENT_LENGTH)
+    @ToString.Exclude
+    private String searchDocument;
+
     /** Categoría */
     @NotNull
     @Enumerated(EnumType.STRING)
@@ -142,6 +168,19 @@ public class Product {
 
     // ---------- MÉTODOS ----------
 
+    /**
+     * Recalcula searchName y searchDocument. Los callbacks solo saltan si cambia alguna
+     * columna de products: un cambio solo en alérgenos (tabla
+     * product_allergens) no dispara @PreUpdate, así que ProductService lo
+     * llama antes de guardar.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateSearchDocument() {
+        this.searchName = SearchText.name(name);
+        this.searchDocument = SearchText.document(brand, description, allergens);
+    }
+
     /**
      * Marca el producto como eliminado lógicamente.
      */
@@ -17,14 +17,27 @@ import com.trazia.trazia_project.entity.user.User;
         "name" }), indexes = {
                 @Index(name = "idx_recipe_user_id", columnList = "user_id"),
                 @Index(name = "idx_recipe_created_at", columnList = "created_at"),
-                @Index(name = "idx_recipe_deleted", columnList = "deleted")
+                @Index(name = "idx_recipe_deleted", columnList = "deleted"),
+                @Index(name = "idx_recipe_user_seek", columnList = "user_id, deleted, created_at, id")
         })
+@NamedEntityGraph(name = Recipe.GRAPH_INGREDIENTS, attributeNodes = @NamedAttributeNode(value = "ingredients", subgraph = "ingredient-product"), subgraphs = @NamedSubgraph(name = "ingredient-product", attributeNodes = {
+        @NamedAttributeNode("product"), @NamedAttributeNode("subRecipe") }))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Recipe {
 
+    /**
+     * Plan de carga de las lecturas que recorren los ingredientes (detalle,
+     * etiqueta, resumen de filas sin agregados y recálculo): ingredientes +
+     * producto o sub-receta en una sola consulta. Los alérgenos se cargan por
+     * lotes (@BatchSize en Product) y los lotes finales con una consulta
+     * aparte, porque Hibernate no permite hacer fetch de varias colecciones
+     * List a la vez.
+     */
+    public static final String GRAPH_INGREDIENTS = "Recipe.ingredients";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -77,6 +90,38 @@ public class Recipe {
     @Embedded
     private ProductNutriments nutrimentsPor100g;
 
+    // ====== AGREGADOS MATERIALIZADOS ======
+    // Se recalculan al crear/editar la receta o cuando cambia un producto usado
+    // como ingrediente; las lecturas solo leen estas columnas.
+
+    /** Coste total de los ingredientes */
+    @Column(name = "total_cost", precision = 19, scale = 6)
+    private BigDecimal totalCost;
+
+    /** Coste por 100g de rendimiento */
+    @Column(name = "cost_per_100g", precision = 19, scale = 6)
+    private BigDecimal costPer100g;
+
+    /** Peso total de los ingredientes en gramos (antes de mermas) */
+    @Column(name = "total_weight_grams", precision = 12, scale = 2)
+    private BigDecimal totalWeightGrams;
+
+    /** Número de ingredientes */
+    @Column(name = "ingredient_count")
+    private Integer ingredientCount;
+
+    /** Momento del último recálculo; null si nunca se han calculado */
+    @Column(name = "aggregates_updated_at")
+    private LocalDateTime aggregatesUpdatedAt;
+
+    /**
+     * Actualizaciones incrementales (por diferencia) desde el último recálculo
+     * completo. Cada una parte de nutrientes ya redondeados a 2 decimales, así
+     * que al llegar al máximo se recalcula entera para no acumular error.
+     */
+    @Column(name = "incremental_updates")
+    private Integer incrementalUpdates;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -127,6 +172,13 @@ public class Recipe {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
+    /**
+     * Indica si los agregados materializados (coste, peso, nutrientes) están calculados.
+     */
+    public boolean hasAggregates() {
+        return aggregatesUpdatedAt != null && nutrimentsPor100g != null;
+    }
+
     public boolean hasIngredients() {
         return ingredients != null && !ingredients.isEmpty();
     }
@@ -11,13 +11,15 @@ import java.math.BigDecimal;
 
 /**
  * Entidad que representa un ingrediente dentro de una receta
- * Vincula una receta con un producto (insumo) y especifica la cantidad usada
+ * Vincula una receta con un producto (insumo) o con otra receta (sub-receta,
+ * p. ej. una masa o una salsa) y especifica la cantidad usada
  */
 @Entity
 @Table(name = "recipe_ingredients",
     indexes = {
         @Index(name = "idx_recipe_ingredient_recipe_id", columnList = "recipe_id"),
-        @Index(name = "idx_recipe_ingredient_product_id", columnList = "product_id")
+        @Index(name = "idx_recipe_ingredient_product_id", columnList = "product_id"),
+        @Index(name = "idx_recipe_ingredient_sub_recipe_id", columnList = "sub_recipe_id")
     })
 @Data
 @NoArgsConstructor
@@ -25,8 +27,13 @@ import java.math.BigDecimal;
 @Builder
 public class RecipeIngredient {
 
+    /**
+     * Secuencia con allocationSize > 1 para que Hibernate pueda agrupar los
+     * INSERT en lotes JDBC (IDENTITY obliga a un INSERT inmediato por fila)
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_ingredient_seq")
+    @SequenceGenerator(name = "recipe_ingredient_seq", sequenceName = "recipe_ingredient_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -40,12 +47,23 @@ public class RecipeIngredient {
     /**
      * Producto base (insumo) utilizado como ingrediente
      * Este producto contiene la información nutricional y de costo
+     * Null cuando el ingrediente es una sub-receta
      */
-    @ManyToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "product_id", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id")
     @ToString.Exclude
     private Product product;
 
+    /**
+     * Receta intermedia utilizada como ingrediente (sub-receta)
+     * Aporta sus agregados materializados por 100g (nutrientes y coste)
+     * Null cuando el ingrediente es un producto
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sub_recipe_id")
+    @ToString.Exclude
+    private Recipe subRecipe;
+
     /**
      * Cantidad del ingrediente en gramos
      * Cambiado a BigDecimal para permitir cálculos precisos en nutrición
@@ -76,6 +94,22 @@ public class RecipeIngredient {
         return this.recipe != null && this.recipe.getId().equals(recipeId);
     }
 
+    /**
+     * Verifica si este ingrediente es una sub-receta en lugar de un producto
+     */
+    public boolean isSubRecipe() {
+        return this.subRecipe != null;
+    }
+
+    /**
+     * Nombre a mostrar: el del producto o el de la sub-receta
+     */
+    public String getDisplayName() {
+        if (this.subRecipe != null)
+            return this.subRecipe.getName();
+        return this.product != null ? this.product.getName() : null;
+    }
+
     /**
      * Verifica si este ingrediente usa un producto específico
      */
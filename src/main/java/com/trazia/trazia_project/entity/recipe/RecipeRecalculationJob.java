@@ -0,0 +1,80 @@
+package com.trazia.trazia_project.entity.recipe;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ejecución del recálculo masivo de las recetas de un usuario.
+ * Guarda el último id procesado (checkpoint) en la misma transacción que los
+ * agregados de cada bloque, de modo que una ejecución interrumpida se reanuda
+ * desde ahí sin repetir ni saltarse recetas.
+ */
+@Entity
+@Table(name = "recipe_recalculation_jobs", indexes = {
+        @Index(name = "idx_recipe_recalc_job_user_status", columnList = "user_id, status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeRecalculationJob {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    /**
+     * Último id de receta ya recalculado; las recetas se recorren por id ascendente
+     */
+    @Builder.Default
+    @Column(name = "last_processed_recipe_id", nullable = false)
+    private Long lastProcessedRecipeId = 0L;
+
+    @Builder.Default
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+
+    @Builder.Default
+    @Column(name = "failed_count", nullable = false)
+    private Long failedCount = 0L;
+
+    @Column(name = "total_count")
+    private Long totalCount;
+
+    /**
+     * Recetas procesadas por segundo en la ejecución actual
+     */
+    @Column(name = "recipes_per_second")
+    private Double recipesPerSecond;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED;
+    }
+}
@@ -0,0 +1,54 @@
+package com.trazia.trazia_project.entity.user;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token emitido (solo su identificador, nunca el token).
+ *
+ * Todos los tokens que salen de un mismo login comparten familyId: cada uso
+ * revoca el token y emite el siguiente de la familia (rotación). Si se
+ * presenta un token ya revocado, se revoca la familia entera (reutilización).
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_token_user", columnList = "user_id"),
+        @Index(name = "idx_refresh_token_revoked", columnList = "revoked, expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    /** Claim jti del token */
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "issued_at", nullable = false)
+    private LocalDateTime issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean revoked = false;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    /** jti del token que lo sustituyó al rotar */
+    @Column(name = "replaced_by", length = 36)
+    private String replacedBy;
+}
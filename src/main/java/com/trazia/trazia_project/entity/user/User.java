@@ -3,6 +3,7 @@ package com.trazia.trazia_project.entity.user;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
@@ -10,6 +11,7 @@ import com.trazia.trazia_project.entity.company.Company;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 @Entity
 @Table(name = "users")
@@ -19,6 +21,8 @@ import java.util.Collections;
 @Builder
 public class User implements UserDetails {
 
+    public static final String ROLE_ADMIN = "ROLE_ADMIN";
+
     @JsonBackReference
     @OneToOne(mappedBy = "user", cascade = CascadeType.ALL)
     private Company company;
@@ -52,11 +56,28 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private Boolean credentialsNonExpired = true;
 
+    /**
+     * Operador de la plataforma (ROLE_ADMIN): importaciones globales y
+     * estadísticas internas. Se asigna directamente en base de datos.
+     */
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean admin = false;
+
+    /**
+     * Empresa del usuario cuando el principal se construye desde el JWT, sin
+     * cargar la entidad ni su relación con Company.
+     */
+    @Transient
+    private Long companyId;
+
     // Implementación de UserDetails
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.emptyList();
+        return Boolean.TRUE.equals(admin)
+                ? List.of(new SimpleGrantedAuthority(ROLE_ADMIN))
+                : Collections.emptyList();
     }
 
     @Override
@@ -0,0 +1,26 @@
+package com.trazia.trazia_project.event.product;
+
+import com.trazia.trazia_project.entity.product.Product;
+
+/**
+ * Evento publicado cuando se crea, modifica, borra o restaura un producto.
+ * Lo consumen los índices de búsqueda y autocompletado en memoria para
+ * mantenerse al día sin volver a leer todo el catálogo del usuario.
+ */
+public record ProductCatalogChangedEvent(Long userId, Long productId, String name, String brand, boolean removed) {
+
+    /**
+     * El producto existe (creado, modificado o restaurado) con estos valores.
+     */
+    public static ProductCatalogChangedEvent upserted(Product product) {
+        Long userId = product.getUser() != null ? product.getUser().getId() : null;
+        return new ProductCatalogChangedEvent(userId, product.getId(), product.getName(), product.getBrand(), false);
+    }
+
+    /**
+     * El producto ya no debe aparecer en búsquedas (borrado lógico o físico).
+     */
+    public static ProductCatalogChangedEvent removed(Long userId, Long productId) {
+        return new ProductCatalogChangedEvent(userId, productId, null, null, true);
+    }
+}
@@ -0,0 +1,60 @@
+package com.trazia.trazia_project.event.product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import com.trazia.trazia_project.entity.product.Product;
+import com.trazia.trazia_project.entity.product.ProductNutriments;
+
+/**
+ * Evento publicado cuando cambian el coste o los nutrientes de un producto.
+ * Lleva el estado anterior y el nuevo para que las recetas que lo usan puedan
+ * aplicar solo la diferencia en lugar de volver a sumar todos los ingredientes.
+ *
+ * changedAt se toma dentro de la transacción que modifica el producto, antes
+ * del commit: una receta cuyos agregados se calcularon en ese instante o
+ * después puede haber leído ya los valores nuevos, y no debe recibir la
+ * diferencia otra vez.
+ */
+public record ProductChangedEvent(Long productId, Snapshot before, Snapshot after, LocalDateTime changedAt) {
+
+    /**
+     * Copia inmutable de los valores de un producto que afectan a los agregados de receta.
+     */
+    public record Snapshot(BigDecimal costPerUnit, ProductNutriments nutriments) {
+
+        public static Snapshot of(Product product) {
+            ProductNutriments n = product.getNutriments();
+            ProductNutriments copy = n == null ? null
+                    : ProductNutriments.builder()
+                            .calories(n.getCalories())
+                            .protein(n.getProtein())
+                            .carbohydrates(n.getCarbohydrates())
+                            .sugars(n.getSugars())
+                            .fat(n.getFat())
+                            .saturatedFat(n.getSaturatedFat())
+                            .fiber(n.getFiber())
+                            .sodium(n.getSodium())
+                            .salt(n.getSalt())
+                            .build();
+            return new Snapshot(product.getCostPerUnit(), copy);
+        }
+    }
+
+    /**
+     * Indica si el cambio modifica algún valor que usen las recetas.
+     */
+    public boolean affectsRecipes() {
+        return !Objects.equals(before.costPerUnit(), after.costPerUnit())
+                || !Objects.equals(before.nutriments(), after.nutriments());
+    }
+
+    /**
+     * Fusiona dos cambios consecutivos del mismo producto: conserva el estado
+     * inicial y el instante del primero, y el estado final del segundo.
+     */
+    public ProductChangedEvent mergeWith(ProductChangedEvent next) {
+        return new ProductChangedEvent(productId, before, next.after(), changedAt);
+    }
+}
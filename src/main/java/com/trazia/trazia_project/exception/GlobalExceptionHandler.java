@@ -1,6 +1,7 @@
 package com.trazia.trazia_project.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -9,9 +10,14 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 
 import com.trazia.trazia_project.dto.common.ErrorResponse;
+import com.trazia.trazia_project.exception.auth.AuthenticationOverloadedException;
 import com.trazia.trazia_project.exception.auth.InvalidCredentialsException;
 import com.trazia.trazia_project.exception.auth.UserAlreadyExistsException;
+import com.trazia.trazia_project.exception.common.InvalidCursorException;
+import com.trazia.trazia_project.exception.external.UpstreamUnavailableException;
+import com.trazia.trazia_project.exception.product.OpenFoodFactsApiException;
 import com.trazia.trazia_project.exception.product.ProductNotFoundException;
+import com.trazia.trazia_project.exception.recipe.RecipeInUseException;
 
 import org.springframework.security.access.AccessDeniedException;
 
@@ -19,6 +25,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RestControllerAdvice
 @Slf4j
@@ -49,6 +56,42 @@ public class GlobalExceptionHandler {
                                 HttpStatus.NOT_FOUND);
         }
 
+        @ExceptionHandler(RecipeInUseException.class)
+        public ResponseEntity<ErrorResponse> handleRecipeInUseException(RecipeInUseException ex, WebRequest request) {
+                log.warn("Recipe in use: {}", ex.getMessage());
+                ErrorResponse errorResponse = buildErrorResponse(ex, request, HttpStatus.CONFLICT, "Recipe In Use");
+                errorResponse.getErrors().put("referencingRecipeIds", ex.getReferencingRecipeIds().stream()
+                                .map(String::valueOf)
+                                .collect(Collectors.joining(",")));
+                return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+        }
+
+        @ExceptionHandler(OpenFoodFactsApiException.class)
+        public ResponseEntity<ErrorResponse> handleOpenFoodFactsApiException(OpenFoodFactsApiException ex,
+                        WebRequest request) {
+                log.warn("Open Food Facts error: {}", ex.getMessage());
+                return new ResponseEntity<>(buildErrorResponse(ex, request, HttpStatus.BAD_GATEWAY, "External Service Error"),
+                                HttpStatus.BAD_GATEWAY);
+        }
+
+        @ExceptionHandler(UpstreamUnavailableException.class)
+        public ResponseEntity<ErrorResponse> handleUpstreamUnavailableException(UpstreamUnavailableException ex,
+                        WebRequest request) {
+                log.warn("External service unavailable: {}", ex.getMessage());
+                return new ResponseEntity<>(
+                                buildErrorResponse(ex, request, HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable"),
+                                HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        @ExceptionHandler(AuthenticationOverloadedException.class)
+        public ResponseEntity<ErrorResponse> handleAuthenticationOverloadedException(
+                        AuthenticationOverloadedException ex, WebRequest request) {
+                log.warn("Authentication overloaded: {}", ex.getMessage());
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body(buildErrorResponse(ex, request, HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests"));
+        }
+
         @ExceptionHandler(InvalidCredentialsException.class)
         public ResponseEntity<ErrorResponse> handleInvalidCredentialsException(InvalidCredentialsException ex,
                         WebRequest request) {
@@ -65,6 +108,22 @@ public class GlobalExceptionHandler {
                                 HttpStatus.FORBIDDEN);
         }
 
+        @ExceptionHandler(InvalidCursorException.class)
+        public ResponseEntity<ErrorResponse> handleInvalidCursorException(InvalidCursorException ex,
+                        WebRequest request) {
+                log.warn("Invalid pagination cursor: {}", ex.getMessage());
+                return new ResponseEntity<>(buildErrorResponse(ex, request, HttpStatus.BAD_REQUEST, "Invalid Cursor"),
+                                HttpStatus.BAD_REQUEST);
+        }
+
+        @ExceptionHandler(IllegalArgumentException.class)
+        public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex,
+                        WebRequest request) {
+                log.warn("Bad request: {}", ex.getMessage());
+                return new ResponseEntity<>(buildErrorResponse(ex, request, HttpStatus.BAD_REQUEST, "Bad Request"),
+                                HttpStatus.BAD_REQUEST);
+        }
+
         @ExceptionHandler(MethodArgumentNotValidException.class)
         public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex,
                         WebRequest request) {
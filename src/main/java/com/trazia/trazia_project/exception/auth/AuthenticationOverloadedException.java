@@ -0,0 +1,12 @@
+package com.trazia.trazia_project.exception.auth;
+
+/**
+ * El executor de hash de contraseñas está saturado: la petición se rechaza
+ * (429) en lugar de esperar y bloquear el hilo de Tomcat.
+ */
+public class AuthenticationOverloadedException extends RuntimeException {
+
+    public AuthenticationOverloadedException(String message) {
+        super(message);
+    }
+}
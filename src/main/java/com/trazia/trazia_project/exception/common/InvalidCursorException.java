@@ -0,0 +1,7 @@
+package com.trazia.trazia_project.exception.common;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
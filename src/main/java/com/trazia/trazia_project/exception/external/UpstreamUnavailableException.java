@@ -0,0 +1,19 @@
+package com.trazia.trazia_project.exception.external;
+
+/**
+ * La llamada a una API externa se rechaza sin intentarla: su circuit breaker
+ * está abierto o se ha alcanzado el máximo de llamadas simultáneas.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    private final String upstream;
+
+    public UpstreamUnavailableException(String upstream, String message) {
+        super(message);
+        this.upstream = upstream;
+    }
+
+    public String getUpstream() {
+        return upstream;
+    }
+}
@@ -0,0 +1,20 @@
+package com.trazia.trazia_project.exception.recipe;
+
+import java.util.List;
+
+/**
+ * La receta se usa como sub-receta en otras y no se puede borrar (409).
+ */
+public class RecipeInUseException extends RuntimeException {
+
+    private final List<Long> referencingRecipeIds;
+
+    public RecipeInUseException(Long recipeId, List<Long> referencingRecipeIds) {
+        super("Recipe " + recipeId + " is used as an ingredient in recipes " + referencingRecipeIds);
+        this.referencingRecipeIds = List.copyOf(referencingRecipeIds);
+    }
+
+    public List<Long> getReferencingRecipeIds() {
+        return referencingRecipeIds;
+    }
+}
@@ -1,7 +1,9 @@
 package com.trazia.trazia_project.mapper;
 
+import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsProductDTO;
 import com.trazia.trazia_project.dto.product.*;
 import com.trazia.trazia_project.entity.product.Product;
+import com.trazia.trazia_project.entity.product.ProductCategory;
 import com.trazia.trazia_project.entity.product.ProductNutriments;
 import com.trazia.trazia_project.entity.user.User;
 import com.trazia.trazia_project.model.NutrimentsDTO;
@@ -10,6 +12,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -76,6 +79,7 @@ public class ProductMapper {
                 .servingSizeGrams(dto.getServingSizeGrams())
                 .servingDescription(dto.getServingDescription())
                 .labelingRegion(dto.getLabelingRegion() != null ? dto.getLabelingRegion() : com.trazia.trazia_project.entity.company.LabelingRegion.EU)
+                .costPerUnit(dto.getCostPerUnit())
                 .build();
         if (dto.getNutriments() != null) {
             product.setNutriments(toEntityProductNutriments(dto.getNutriments()));
@@ -83,6 +87,55 @@ public class ProductMapper {
         return product;
     }
 
+    /**
+     * Producto del usuario a partir de una ficha de Open Food Facts (importación
+     * por código de barras). Los textos se recortan a la longitud de las columnas.
+     */
+    public Product fromOpenFoodFacts(OpenFoodFactsProductDTO dto, String barcode, User user) {
+        if (dto == null || user == null) return null;
+        String name = dto.getProductName() != null && !dto.getProductName().isBlank()
+                ? dto.getProductName().trim()
+                : barcode;
+        Product product = Product.builder()
+                .user(user)
+                .barcode(barcode)
+                .name(truncate(name, 150))
+                .brand(truncate(dto.getBrands(), 100))
+                .description(truncate(dto.getIngredientsText(), 1000))
+                .category(ProductCategory.OTHER)
+                .allergens(parseOpenFoodFactsTags(dto.getAllergens()))
+                .servingDescription(truncate(dto.getQuantity(), 100))
+                .build();
+        NutrimentsDTO nutriments = dto.getNutriments();
+        if (nutriments != null) {
+            ProductNutriments entity = toEntityProductNutriments(nutriments);
+            // Open Food Facts usa "proteins_100g"
+            if (entity.getProtein() == null && nutriments.getProteins() != null)
+                entity.setProtein(BigDecimal.valueOf(nutriments.getProteins()));
+            product.setNutriments(entity);
+        }
+        return product;
+    }
+
+    // "en:milk,en:gluten" -> ["milk", "gluten"]
+    private static List<String> parseOpenFoodFactsTags(String tags) {
+        List<String> result = new ArrayList<>();
+        if (tags == null || tags.isBlank()) return result;
+        for (String tag : tags.split(",")) {
+            String value = tag.trim();
+            int colon = value.indexOf(':');
+            if (colon >= 0) value = value.substring(colon + 1);
+            if (!value.isEmpty() && !result.contains(value)) result.add(truncate(value, 100));
+        }
+        return result;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.length() > maxLength ? trimmed.substring(0, maxLength) : trimmed;
+    }
+
     public ProductResponse toResponse(Product product) {
         if (product == null) return null;
         return ProductResponse.builder()
@@ -127,6 +180,7 @@ public class ProductMapper {
         if (updateDto.getServingSizeGrams() != null) product.setServingSizeGrams(updateDto.getServingSizeGrams());
         if (updateDto.getServingDescription() != null) product.setServingDescription(updateDto.getServingDescription());
         if (updateDto.getLabelingRegion() != null) product.setLabelingRegion(updateDto.getLabelingRegion());
+        if (updateDto.getCostPerUnit() != null) product.setCostPerUnit(updateDto.getCostPerUnit());
     }
 
     public ProductPageResponse.ProductSummaryDTO toProductSummaryDTO(Product product) {
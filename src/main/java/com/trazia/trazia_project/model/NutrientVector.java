@@ -0,0 +1,172 @@
+package com.trazia.trazia_project.model;
+
+import com.trazia.trazia_project.entity.product.ProductNutriments;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Vector de nutrientes sobre un double[] de índices fijos para los cálculos
+ * internos de recetas. Las operaciones modifican el vector en sitio y no
+ * reservan memoria; la conversión a ProductNutriments / NutrimentsDTO solo se
+ * hace en el borde de la API.
+ */
+public final class NutrientVector {
+
+    public static final int CALORIES = 0;
+    public static final int PROTEIN = 1;
+    public static final int CARBOHYDRATES = 2;
+    public static final int SUGARS = 3;
+    public static final int FAT = 4;
+    public static final int SATURATED_FAT = 5;
+    public static final int FIBER = 6;
+    public static final int SODIUM = 7;
+    public static final int SALT = 8;
+    public static final int SIZE = 9;
+
+    private final double[] values = new double[SIZE];
+
+    public NutrientVector() {
+    }
+
+    /**
+     * Crea un vector con los valores de la entidad (null se trata como 0).
+     */
+    public static NutrientVector of(ProductNutriments nutriments) {
+        return new NutrientVector().addScaled(nutriments, 1.0);
+    }
+
+    public double get(int index) {
+        return values[index];
+    }
+
+    public NutrientVector set(int index, double value) {
+        values[index] = value;
+        return this;
+    }
+
+    /**
+     * this += other × factor
+     */
+    public NutrientVector addScaled(NutrientVector other, double factor) {
+        for (int i = 0; i < SIZE; i++) {
+            values[i] += other.values[i] * factor;
+        }
+        return this;
+    }
+
+    /**
+     * this += nutriments × factor, leyendo los BigDecimal de la entidad sin
+     * crear objetos intermedios.
+     */
+    public NutrientVector addScaled(ProductNutriments n, double factor) {
+        if (n == null || factor == 0.0)
+            return this;
+        values[CALORIES] += value(n.getCalories()) * factor;
+        values[PROTEIN] += value(n.getProtein()) * factor;
+        values[CARBOHYDRATES] += value(n.getCarbohydrates()) * factor;
+        values[SUGARS] += value(n.getSugars()) * factor;
+        values[FAT] += value(n.getFat()) * factor;
+        values[SATURATED_FAT] += value(n.getSaturatedFat()) * factor;
+        values[FIBER] += value(n.getFiber()) * factor;
+        values[SODIUM] += value(n.getSodium()) * factor;
+        values[SALT] += value(n.getSalt()) * factor;
+        return this;
+    }
+
+    public NutrientVector add(NutrientVector other) {
+        return addScaled(other, 1.0);
+    }
+
+    public NutrientVector scale(double factor) {
+        for (int i = 0; i < SIZE; i++) {
+            values[i] *= factor;
+        }
+        return this;
+    }
+
+    /**
+     * Convierte valores totales de un peso dado a valores por 100g.
+     * Con peso 0 el resultado es el vector nulo.
+     */
+    public NutrientVector per100g(double weightGrams) {
+        return scale(weightGrams > 0 ? 100.0 / weightGrams : 0.0);
+    }
+
+    /**
+     * Sustituye los valores negativos (p. ej. por redondeos acumulados) por 0.
+     */
+    public NutrientVector clampNonNegative() {
+        for (int i = 0; i < SIZE; i++) {
+            if (values[i] < 0)
+                values[i] = 0.0;
+        }
+        return this;
+    }
+
+    public NutrientVector copy() {
+        NutrientVector copy = new NutrientVector();
+        System.arraycopy(values, 0, copy.values, 0, SIZE);
+        return copy;
+    }
+
+    public NutrientVector clear() {
+        Arrays.fill(values, 0.0);
+        return this;
+    }
+
+    // ====== CONVERSIONES EN EL BORDE DE LA API ======
+
+    /**
+     * Entidad con los valores redondeados a 2 decimales.
+     */
+    public ProductNutriments toProductNutriments() {
+        return ProductNutriments.builder()
+                .calories(decimal(values[CALORIES]))
+                .protein(decimal(values[PROTEIN]))
+                .carbohydrates(decimal(values[CARBOHYDRATES]))
+                .sugars(decimal(values[SUGARS]))
+                .fat(decimal(values[FAT]))
+                .saturatedFat(decimal(values[SATURATED_FAT]))
+                .fiber(decimal(values[FIBER]))
+                .sodium(decimal(values[SODIUM]))
+                .salt(decimal(values[SALT]))
+                .build();
+    }
+
+    /**
+     * DTO con los valores redondeados a 2 decimales (calories y energyKcal iguales).
+     */
+    public NutrimentsDTO toNutrimentsDTO() {
+        NutrimentsDTO dto = new NutrimentsDTO();
+        dto.setCalories(round2(values[CALORIES]));
+        dto.setEnergyKcal(round2(values[CALORIES]));
+        dto.setProtein(round2(values[PROTEIN]));
+        dto.setCarbohydrates(round2(values[CARBOHYDRATES]));
+        dto.setSugars(round2(values[SUGARS]));
+        dto.setFat(round2(values[FAT]));
+        dto.setSaturatedFat(round2(values[SATURATED_FAT]));
+        dto.setFiber(round2(values[FIBER]));
+        dto.setSodium(round2(values[SODIUM]));
+        dto.setSalt(round2(values[SALT]));
+        return dto;
+    }
+
+    public static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static double value(BigDecimal value) {
+        return value != null ? value.doubleValue() : 0.0;
+    }
+
+    private static BigDecimal decimal(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public String toString() {
+        return "NutrientVector" + Arrays.toString(values);
+    }
+}
@@ -0,0 +1,51 @@
+package com.trazia.trazia_project.model;
+
+import com.trazia.trazia_project.entity.recipe.Recipe;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Resultado del cálculo de una receta: los valores que se materializan en la
+ * entidad Recipe. Sirve también como valor memoizado de una sub-receta al
+ * evaluar las recetas que la usan.
+ */
+public record RecipeAggregate(
+        NutrientVector per100g,
+        BigDecimal totalCost,
+        BigDecimal costPer100g,
+        BigDecimal totalWeightGrams,
+        int ingredientCount) {
+
+    /**
+     * Lee los agregados ya materializados en la entidad.
+     */
+    public static RecipeAggregate of(Recipe recipe) {
+        return new RecipeAggregate(
+                NutrientVector.of(recipe.getNutrimentsPor100g()),
+                recipe.getTotalCost() != null ? recipe.getTotalCost() : BigDecimal.ZERO,
+                recipe.getCostPer100g() != null ? recipe.getCostPer100g() : BigDecimal.ZERO,
+                recipe.getTotalWeightGrams() != null ? recipe.getTotalWeightGrams() : BigDecimal.ZERO,
+                recipe.getIngredientCount() != null ? recipe.getIngredientCount() : 0);
+    }
+
+    /**
+     * Coste por kg, la misma unidad que Product.costPerUnit.
+     */
+    public BigDecimal costPerKg() {
+        return costPer100g.multiply(BigDecimal.TEN);
+    }
+
+    /**
+     * Escribe los agregados en la entidad.
+     */
+    public void applyTo(Recipe recipe) {
+        recipe.setNutrimentsPor100g(per100g.toProductNutriments());
+        recipe.setTotalCost(totalCost);
+        recipe.setCostPer100g(costPer100g);
+        recipe.setTotalWeightGrams(totalWeightGrams);
+        recipe.setIngredientCount(ingredientCount);
+        recipe.setAggregatesUpdatedAt(LocalDateTime.now());
+        recipe.setIncrementalUpdates(0);
+    }
+}
@@ -0,0 +1,92 @@
+package com.trazia.trazia_project.model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Normalización de texto para la búsqueda de productos: sin acentos ni
+ * diéresis, en minúsculas y partido en palabras, igual para español e inglés
+ * ("Azúcar moreno" -> [azucar, moreno]). Se usa tanto para el documento
+ * indexado como para la consulta, así que ambos coinciden siempre.
+ */
+public final class SearchText {
+
+    /** Longitud máxima del documento guardado en products.search_document */
+    public static final int MAX_DOCUMENT_LENGTH = 2000;
+    /** Longitud máxima del nombre normalizado guardado en products.search_name */
+    public static final int MAX_NAME_LENGTH = 150;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchText() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null)
+            return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Palabras distintas del texto, en orden de aparición.
+     */
+    public static List<String> tokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty())
+                tokens.add(token);
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Nombre normalizado de un producto; en PostgreSQL pesa más (peso A) que el
+     * resto del documento al ordenar por relevancia.
+     */
+    public static String name(String name) {
+        return join(List.of(name == null ? "" : name), MAX_NAME_LENGTH);
+    }
+
+    /**
+     * Resto del documento de búsqueda de un producto (peso B): marca, alérgenos
+     * y descripción, en ese orden para que un recorte afecte a la descripción.
+     */
+    public static String document(String brand, String description, Collection<String> allergens) {
+        List<String> parts = new ArrayList<>(Arrays.asList(brand));
+        if (allergens != null)
+            parts.addAll(allergens);
+        parts.add(description);
+        return join(parts, MAX_DOCUMENT_LENGTH);
+    }
+
+    private static String join(List<String> parts, int maxLength) {
+        String document = parts.stream()
+                .flatMap(part -> tokens(part).stream())
+                .collect(Collectors.joining(" "));
+        if (document.length() <= maxLength)
+            return document;
+        int cut = document.lastIndexOf(' ', maxLength);
+        return document.substring(0, cut > 0 ? cut : maxLength);
+    }
+
+    /**
+     * Consulta tsquery de PostgreSQL con coincidencia por prefijo de todas las
+     * palabras ("azuc mor" -> "azuc:* & mor:*"). Los tokens solo contienen
+     * letras y dígitos, así que no hace falta escapar operadores.
+     */
+    public static String toPrefixTsQuery(List<String> tokens) {
+        return tokens.stream()
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+}
@@ -0,0 +1,40 @@
+package com.trazia.trazia_project.model;
+
+import com.trazia.trazia_project.exception.common.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de la última fila devuelta en una paginación por clave
+ * (createdAt DESC, id DESC). Se envía al cliente como un token opaco.
+ */
+public record SeekCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String VERSION = "v1";
+
+    /**
+     * Token opaco (Base64 URL-safe) para el siguiente bloque.
+     */
+    public String encode() {
+        String raw = VERSION + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidCursorException si el token no es válido
+     */
+    public static SeekCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3 || !VERSION.equals(parts[0]))
+                throw new IllegalArgumentException("Unknown cursor format");
+            return new SeekCursor(LocalDateTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+    }
+}
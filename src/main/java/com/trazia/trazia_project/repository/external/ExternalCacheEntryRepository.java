@@ -0,0 +1,28 @@
+package com.trazia.trazia_project.repository.external;
+
+import com.trazia.trazia_project.entity.external.ExternalCacheEntry;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExternalCacheEntryRepository extends JpaRepository<ExternalCacheEntry, Long> {
+
+    Optional<ExternalCacheEntry> findByCacheNameAndCacheKey(String cacheName, String cacheKey);
+
+    /** Entradas vigentes más recientes de una caché (precarga de L1 al arrancar) */
+    List<ExternalCacheEntry> findByCacheNameAndExpiresAtAfterOrderByUpdatedAtDesc(String cacheName,
+            LocalDateTime now, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM ExternalCacheEntry e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
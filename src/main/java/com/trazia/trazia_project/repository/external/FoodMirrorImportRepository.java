@@ -0,0 +1,16 @@
+package com.trazia.trazia_project.repository.external;
+
+import com.trazia.trazia_project.entity.external.FoodMirrorImport;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FoodMirrorImportRepository extends JpaRepository<FoodMirrorImport, Long> {
+
+    boolean existsByFileNameAndFileSizeAndFileModifiedAt(String fileName, Long fileSize, Long fileModifiedAt);
+
+    List<FoodMirrorImport> findTop20ByOrderByImportedAtDesc();
+}
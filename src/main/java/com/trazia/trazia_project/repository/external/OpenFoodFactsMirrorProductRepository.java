@@ -0,0 +1,10 @@
+package com.trazia.trazia_project.repository.external;
+
+import com.trazia.trazia_project.entity.external.OpenFoodFactsMirrorProduct;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OpenFoodFactsMirrorProductRepository extends JpaRepository<OpenFoodFactsMirrorProduct, String> {
+}
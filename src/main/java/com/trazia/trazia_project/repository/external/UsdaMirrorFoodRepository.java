@@ -0,0 +1,19 @@
+package com.trazia.trazia_project.repository.external;
+
+import com.trazia.trazia_project.entity.external.UsdaMirrorFood;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UsdaMirrorFoodRepository extends JpaRepository<UsdaMirrorFood, Long> {
+
+    /** Alimentos cuya descripción normalizada contiene el texto (también normalizado) */
+    @Query("SELECT f FROM UsdaMirrorFood f WHERE f.searchText LIKE CONCAT('%', :text, '%') ORDER BY LENGTH(f.searchText), f.fdcId")
+    List<UsdaMirrorFood> searchByText(@Param("text") String text, Limit limit);
+}
@@ -0,0 +1,14 @@
+package com.trazia.trazia_project.repository.product;
+
+/**
+ * Proyección mínima de un producto para el autocompletado (sin nutrientes ni
+ * alérgenos).
+ */
+public interface ProductNameView {
+
+        Long getId();
+
+        String getName();
+
+        String getBrand();
+}
@@ -1,8 +1,12 @@
 package com.trazia.trazia_project.repository.product;
 
+import java.util.Collection;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,17 +14,38 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.trazia.trazia_project.config.CacheNames;
 import com.trazia.trazia_project.entity.product.Product;
 import com.trazia.trazia_project.entity.product.ProductCategory;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+        /**
+         * Documento de texto completo ponderado (PostgreSQL): nombre con peso A,
+         * resto con peso B. Lo comparten la consulta y el índice GIN.
+         */
+        String SEARCH_VECTOR = "(setweight(to_tsvector('simple', coalesce(search_name, '')), 'A')"
+                        + " || setweight(to_tsvector('simple', coalesce(search_document, '')), 'B'))";
+
         // ==================== BÚSQUEDA BÁSICA ====================
         Optional<Product> findByIdAndUserIdAndDeletedFalse(Long id, Long userId);
 
         Page<Product> findByUserIdAndDeletedFalse(Long userId, Pageable pageable);
 
+        // ==================== PAGINACIÓN POR CLAVE (createdAt DESC, id DESC) ====================
+
+        /** Primer bloque: sin OFFSET ni count(*) */
+        @Query("SELECT p FROM Product p WHERE p.user.id = :userId AND p.deleted = false ORDER BY p.createdAt DESC, p.id DESC")
+        List<Product> findFirstPageByUserId(@Param("userId") Long userId, Limit limit);
+
+        /** Bloques siguientes: continúa justo después de la última fila devuelta */
+        @Query("SELECT p FROM Product p WHERE p.user.id = :userId AND p.deleted = false"
+                        + " AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id))"
+                        + " ORDER BY p.createdAt DESC, p.id DESC")
+        List<Product> findPageByUserIdAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                        @Param("id") Long id, Limit limit);
+
         // ==================== BÚSQUEDA POR NOMBRE ====================
         Page<Product> findByUserIdAndDeletedFalseAndNameContainingIgnoreCaseOrBrandContainingIgnoreCase(
                         Long userId, String name, String brand, Pageable pageable);
@@ -37,6 +62,8 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
         boolean existsByUserIdAndNameIgnoreCaseAndIdNotAndDeletedFalse(Long userId, String name, Long excludeId);
 
         // ==================== CONTADORES ====================
+        /** Cacheado por usuario; ProductService lo invalida al crear, borrar o restaurar */
+        @Cacheable(cacheNames = CacheNames.PRODUCT_COUNTS, key = "#p0")
         long countByUserIdAndDeletedFalse(Long userId);
 
         long countByUserIdAndCategoryAndDeletedFalse(Long userId, ProductCategory category);
@@ -57,6 +84,38 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
         Optional<Product> findByNameIgnoreCase(String name);
 
-        @Query("SELECT p FROM Product p WHERE (LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR LOWER(p.brand) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) AND p.user.id = :userId")
-        Page<Product> searchByNameOrBrand(@Param("searchTerm") String searchTerm, @Param("userId") Long userId, Pageable pageable);
+        /**
+         * Resuelve en una sola consulta todos los productos cuyo nombre (en minúsculas)
+         * está en la colección recibida. Los nombres deben llegar ya normalizados a minúsculas.
+         */
+        @Query("SELECT p FROM Product p WHERE LOWER(p.name) IN :lowerNames")
+        List<Product> findByLowerNameIn(@Param("lowerNames") Collection<String> lowerNames);
+
+        /** Id, nombre y marca de los productos activos del usuario (índice de autocompletado) */
+        @Query("SELECT p.id AS id, p.name AS name, p.brand AS brand FROM Product p WHERE p.user.id = :userId AND p.deleted = false")
+        List<ProductNameView> findNameViewsByUserId(@Param("userId") Long userId);
+
+        /** Códigos de barras de la colección que el usuario ya tiene (incluye borrados) */
+        @Query("SELECT p.barcode FROM Product p WHERE p.user.id = :userId AND p.barcode IN :barcodes")
+        List<String> findExistingBarcodes(@Param("userId") Long userId, @Param("barcodes") Collection<String> barcodes);
+
+        /** Nombres de la colección ya usados por el usuario (restricción uk_user_product_name) */
+        @Query("SELECT p.name FROM Product p WHERE p.user.id = :userId AND p.name IN :names")
+        List<String> findExistingNames(@Param("userId") Long userId, @Param("names") Collection<String> names);
+
+        // ==================== BÚSQUEDA DE TEXTO COMPLETO (PostgreSQL) ====================
+
+        /**
+         * Búsqueda con el índice GIN idx_product_search_weighted sobre
+         * SEARCH_VECTOR, ordenada por relevancia: una coincidencia en el nombre
+         * puntúa más que en la marca o la descripción. tsQuery se construye con
+         * SearchText.toPrefixTsQuery.
+         */
+        @Query(value = "SELECT p.* FROM products p WHERE p.user_id = :userId AND p.deleted = false"
+                        + " AND " + SEARCH_VECTOR + " @@ to_tsquery('simple', :tsQuery)"
+                        + " ORDER BY ts_rank(" + SEARCH_VECTOR + ", to_tsquery('simple', :tsQuery)) DESC, p.id DESC",
+                        countQuery = "SELECT count(*) FROM products p WHERE p.user_id = :userId AND p.deleted = false"
+                                        + " AND " + SEARCH_VECTOR + " @@ to_tsquery('simple', :tsQuery)",
+                        nativeQuery = true)
+        Page<Product> fullTextSearch(@Param("userId") Long userId, @Param("tsQuery") String tsQuery, Pageable pageable);
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.trazia.trazia_project.repository.recipe;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.trazia.trazia_project.entity.recipe.RecipeIngredient;
@@ -32,6 +35,24 @@ public interface RecipeIngredientRepository extends JpaRepository<RecipeIngredie
      */
         List<RecipeIngredient> findByProductId(Long productId);
 
+/**
+     * Índice inverso por lotes: ingredientes (con su receta) que usan cualquiera de los productos
+     */
+        @Query("SELECT ri FROM RecipeIngredient ri JOIN FETCH ri.recipe WHERE ri.product.id IN :productIds")
+        List<RecipeIngredient> findWithRecipeByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+/**
+     * Ids de las sub-recetas usadas directamente por las recetas indicadas (grafo hacia abajo)
+     */
+        @Query("SELECT DISTINCT ri.subRecipe.id FROM RecipeIngredient ri WHERE ri.recipe.id IN :recipeIds AND ri.subRecipe IS NOT NULL")
+        List<Long> findSubRecipeIdsByRecipeIdIn(@Param("recipeIds") Collection<Long> recipeIds);
+
+/**
+     * Ids de las recetas que usan como ingrediente alguna de las sub-recetas indicadas (grafo hacia arriba)
+     */
+        @Query("SELECT DISTINCT ri.recipe.id FROM RecipeIngredient ri WHERE ri.subRecipe.id IN :subRecipeIds")
+        List<Long> findParentRecipeIdsBySubRecipeIdIn(@Param("subRecipeIds") Collection<Long> subRecipeIds);
+
 /**
      * Verifica si un producto está siendo usado en alguna receta
      */
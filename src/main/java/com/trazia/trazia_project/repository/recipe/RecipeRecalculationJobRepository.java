@@ -0,0 +1,17 @@
+package com.trazia.trazia_project.repository.recipe;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.trazia.trazia_project.entity.recipe.RecipeRecalculationJob;
+
+@Repository
+public interface RecipeRecalculationJobRepository extends JpaRepository<RecipeRecalculationJob, Long> {
+
+        Optional<RecipeRecalculationJob> findByIdAndUserId(Long id, Long userId);
+
+        /** Última ejecución del usuario; si no terminó se reanuda desde su checkpoint */
+        Optional<RecipeRecalculationJob> findFirstByUserIdOrderByStartedAtDesc(Long userId);
+}
@@ -1,13 +1,21 @@
 package com.trazia.trazia_project.repository.recipe;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.trazia.trazia_project.config.CacheNames;
 import com.trazia.trazia_project.entity.recipe.Recipe;
 
 @Repository
@@ -15,8 +23,64 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
 
         Optional<Recipe> findByIdAndUserId(Long id, Long userId);
 
+        // ==================== PLANES DE CARGA (sin N+1) ====================
+
+        /** Receta con ingredientes y productos en una sola consulta (detalle y actualización) */
+        @EntityGraph(Recipe.GRAPH_INGREDIENTS)
+        Optional<Recipe> findDetailByIdAndUserId(Long id, Long userId);
+
+        /** Receta con ingredientes y productos para generar etiquetas */
+        @EntityGraph(Recipe.GRAPH_INGREDIENTS)
+        Optional<Recipe> findLabelByIdAndUserId(Long id, Long userId);
+
+        /**
+         * Carga ingredientes y productos de las recetas de una página ya obtenida.
+         * Se hace aparte para que la paginación siga ocurriendo en SQL.
+         */
+        @EntityGraph(Recipe.GRAPH_INGREDIENTS)
+        List<Recipe> findSummaryByIdIn(Collection<Long> ids);
+
+        /** Varias recetas con ingredientes, productos y sub-recetas (recálculo del grafo) */
+        @EntityGraph(Recipe.GRAPH_INGREDIENTS)
+        List<Recipe> findDetailByIdIn(Collection<Long> ids);
+
+        /** Recetas del usuario entre los ids indicados (resolución de sub-recetas) */
+        List<Recipe> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+        /**
+         * Siguiente bloque de ids de recetas del usuario por encima de afterId
+         * (paginación por clave para el recálculo masivo, sin OFFSET)
+         */
+        @Query("SELECT r.id FROM Recipe r WHERE r.user.id = :userId AND r.id > :afterId ORDER BY r.id")
+        List<Long> findIdsByUserIdAfter(@Param("userId") Long userId, @Param("afterId") Long afterId,
+                        Pageable pageable);
+
+        long countByUserIdAndIdGreaterThan(Long userId, Long afterId);
+
+        /**
+         * Recetas con agregados calculados antes de la última modificación de
+         * alguno de sus productos (cambios pendientes que se perdieron en un reinicio)
+         */
+        @Query("SELECT DISTINCT ri.recipe.id FROM RecipeIngredient ri"
+                        + " WHERE ri.recipe.aggregatesUpdatedAt IS NOT NULL"
+                        + " AND ri.product.updatedAt > ri.recipe.aggregatesUpdatedAt")
+        List<Long> findIdsWithStaleAggregates();
+
         Page<Recipe> findByUserId(Long userId, Pageable pageable);
 
+        // ==================== PAGINACIÓN POR CLAVE (createdAt DESC, id DESC) ====================
+
+        /** Primer bloque: sin OFFSET ni count(*) */
+        @Query("SELECT r FROM Recipe r WHERE r.user.id = :userId AND r.deleted = false ORDER BY r.createdAt DESC, r.id DESC")
+        List<Recipe> findFirstPageByUserId(@Param("userId") Long userId, Limit limit);
+
+        /** Bloques siguientes: continúa justo después de la última fila devuelta */
+        @Query("SELECT r FROM Recipe r WHERE r.user.id = :userId AND r.deleted = false"
+                        + " AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id))"
+                        + " ORDER BY r.createdAt DESC, r.id DESC")
+        List<Recipe> findPageByUserIdAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                        @Param("id") Long id, Limit limit);
+
         Page<Recipe> findByUserIdAndDeletedFalse(Long userId, Pageable pageable);
 
         Optional<Recipe> findByIdAndUserIdAndDeletedFalse(Long id, Long userId);
@@ -29,6 +93,8 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
         // colección de ingredientes
         List<Recipe> findDistinctByUserIdAndDeletedFalseAndIngredients_Product_Id(Long userId, Long productId);
 
+        /** Cacheado por usuario; RecipeServiceImpl lo invalida al crear o borrar */
+        @Cacheable(cacheNames = CacheNames.RECIPE_COUNTS, key = "#p0")
         long countByUserIdAndDeletedFalse(Long userId);
 
         boolean existsByUserIdAndNameAndDeletedFalse(Long userId, String name);
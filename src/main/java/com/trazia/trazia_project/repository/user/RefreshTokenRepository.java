@@ -0,0 +1,40 @@
+package com.trazia.trazia_project.repository.user;
+
+import com.trazia.trazia_project.entity.user.RefreshToken;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    /**
+     * Revoca el token solo si seguía vigente; devuelve 0 si ya estaba revocado
+     * (otra petición lo usó antes: reutilización).
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true, t.revokedAt = :now, t.replacedBy = :replacedBy"
+            + " WHERE t.id = :id AND t.revoked = false")
+    int revokeIfActive(@Param("id") String id, @Param("replacedBy") String replacedBy, @Param("now") LocalDateTime now);
+
+    @Query("SELECT t.id FROM RefreshToken t WHERE t.familyId = :familyId AND t.revoked = false")
+    List<String> findActiveIdsByFamilyId(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true, t.revokedAt = :now WHERE t.familyId = :familyId AND t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    /** Revocados aún no caducados (carga del conjunto en memoria al arrancar) */
+    @Query("SELECT t.id AS id, t.expiresAt AS expiresAt FROM RefreshToken t WHERE t.revoked = true AND t.expiresAt > :now")
+    List<RevokedTokenView> findRevokedNotExpired(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,13 @@
+package com.trazia.trazia_project.repository.user;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identificador y caducidad de un refresh token revocado.
+ */
+public interface RevokedTokenView {
+
+    String getId();
+
+    LocalDateTime getExpiresAt();
+}
@@ -1,6 +1,8 @@
 package com.trazia.trazia_project.repository.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.trazia.trazia_project.entity.user.User;
@@ -13,4 +15,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
+
+    /** Estado de la cuenta sin cargar la entidad (autenticación por JWT) */
+    @Query("SELECT u.enabled AS enabled, u.accountNonExpired AS accountNonExpired, u.accountNonLocked AS accountNonLocked,"
+            + " u.credentialsNonExpired AS credentialsNonExpired FROM User u WHERE u.id = :id")
+    Optional<UserStatusView> findStatusById(@Param("id") Long id);
 }
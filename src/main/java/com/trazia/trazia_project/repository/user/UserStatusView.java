@@ -0,0 +1,16 @@
+package com.trazia.trazia_project.repository.user;
+
+/**
+ * Proyección mínima del estado de la cuenta de un usuario (autenticación sin
+ * cargar la entidad).
+ */
+public interface UserStatusView {
+
+    Boolean getEnabled();
+
+    Boolean getAccountNonExpired();
+
+    Boolean getAccountNonLocked();
+
+    Boolean getCredentialsNonExpired();
+}
@@ -0,0 +1,233 @@
+package com.trazia.trazia_project.security;
+
+import com.trazia.trazia_project.dto.auth.PasswordHashingStatsResponse;
+import com.trazia.trazia_project.exception.auth.AuthenticationOverloadedException;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PasswordEncoder BCrypt que ejecuta encode/matches en un pool de hilos
+ * propio y acotado, para que una avalancha de logins no ocupe los hilos de
+ * Tomcat que atienden el resto de endpoints.
+ *
+ * - Cola acotada: con la cola llena, o si la espera supera max-wait, se lanza
+ *   AuthenticationOverloadedException (429) en lugar de encolar sin límite.
+ * - Factor de trabajo configurable (security.password.bcrypt-strength).
+ *   upgradeEncoding() detecta hashes con otro factor y DaoAuthenticationProvider
+ *   los regenera en el siguiente login correcto (UserDetailsPasswordService).
+ */
+@Slf4j
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    static final long[] LATENCY_BUCKETS_MS = { 25, 50, 100, 250, 500, 1000, 2500 };
+
+    private static final int LATENCY_SAMPLES = 1024;
+
+    private final BCryptPasswordEncoder delegate;
+    private final int strength;
+    private final int queueCapacity;
+    private final Duration maxWait;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+    private final LongAdder[] histogram = new LongAdder[LATENCY_BUCKETS_MS.length + 1];
+    private final LatencyWindow hashLatencies = new LatencyWindow();
+    private final LatencyWindow queueWaits = new LatencyWindow();
+
+    public BoundedPasswordEncoder(
+            @Value("${security.password.bcrypt-strength:10}") int strength,
+            @Value("${security.password.hash-threads:0}") int threads,
+            @Value("${security.password.queue-size:64}") int queueCapacity,
+            @Value("${security.password.max-wait:3s}") Duration maxWait) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxWait = maxWait;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+        log.info("Password hashing: BCrypt strength {}, {} threads, queue {}", strength, poolSize, this.queueCapacity);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * true si el hash se generó con un factor de trabajo distinto del actual
+     * (en ambos sentidos: también permite bajarlo). No calcula ningún hash.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int encodedStrength = strengthOf(encodedPassword);
+        boolean upgrade = encodedStrength > 0 && encodedStrength != strength;
+        if (upgrade)
+            rehashed.increment();
+        return upgrade;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ===========================
+    // EJECUCIÓN
+    // ===========================
+
+    private <T> T submit(Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWaits.record(TimeUnit.NANOSECONDS.toMillis(startedAt - enqueuedAt));
+                try {
+                    return task.call();
+                } finally {
+                    recordHashLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new AuthenticationOverloadedException("Too many authentication requests, please retry later");
+        }
+        peakQueueDepth.accumulateAndGet(executor.getQueue().size(), Math::max);
+
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            future.cancel(false);
+            executor.remove((Runnable) future);
+            throw new AuthenticationOverloadedException("Too many authentication requests, please retry later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new AuthenticationOverloadedException("Password hashing interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime)
+                throw runtime;
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Factor de trabajo de un hash "$2a$10$...", o -1 si no tiene ese formato.
+     */
+    static int strengthOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$')
+            return -1;
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ===========================
+    // MÉTRICAS
+    // ===========================
+
+    private void recordHashLatency(long millis) {
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS_MS.length && millis > LATENCY_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        histogram[bucket].increment();
+        hashLatencies.record(millis);
+    }
+
+    public PasswordHashingStatsResponse stats() {
+        long[] counts = new long[histogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return PasswordHashingStatsResponse.builder()
+                .strength(strength)
+                .threads(executor.getCorePoolSize())
+                .activeThreads(executor.getActiveCount())
+                .queueCapacity(queueCapacity)
+                .queueDepth(executor.getQueue().size())
+                .peakQueueDepth(peakQueueDepth.get())
+                .completed(executor.getCompletedTaskCount())
+                .rejected(rejected.sum())
+                .timedOut(timedOut.sum())
+                .rehashed(rehashed.sum())
+                .hashP50Ms(hashLatencies.percentile(50))
+                .hashP99Ms(hashLatencies.percentile(99))
+                .queueWaitP50Ms(queueWaits.percentile(50))
+                .queueWaitP99Ms(queueWaits.percentile(99))
+                .hashLatencyBucketsMs(LATENCY_BUCKETS_MS.clone())
+                .hashLatencyHistogram(counts)
+                .build();
+    }
+
+    /**
+     * Últimas LATENCY_SAMPLES latencias (ms) en un buffer circular.
+     */
+    private static final class LatencyWindow {
+
+        private final long[] samples = new long[LATENCY_SAMPLES];
+        private int index;
+        private int count;
+
+        synchronized void record(long millis) {
+            samples[index] = millis;
+            index = (index + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /** Percentil (0-100), o -1 sin muestras */
+        long percentile(double percentile) {
+            long[] sorted;
+            synchronized (this) {
+                if (count == 0)
+                    return -1;
+                sorted = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(sorted);
+            int position = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(position, sorted.length - 1))];
+        }
+    }
+}
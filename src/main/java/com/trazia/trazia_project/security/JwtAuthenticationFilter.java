@@ -1,13 +1,19 @@
 package com.trazia.trazia_project.security;
 
+import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.security.SecurityAuditLog.Category;
+import com.trazia.trazia_project.service.security.UserStatusService;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,14 +22,21 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
-@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final UserStatusService userStatusService;
+    private final SecurityAuditLog auditLog;
+
+    /** Principal a partir de los claims del JWT, sin cargar el usuario en cada petición */
+    @Value("${security.jwt.stateless:true}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(
@@ -31,13 +44,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
 
-        log.info("🛡️ JWT Filter - Path: {}, Method: {}, Auth Header: {}",
-                request.getServletPath(), request.getMethod(),
-                request.getHeader("Authorization") != null ? "PRESENT" : "MISSING");
-
         String path = request.getServletPath();
         if (path.startsWith("/api/auth/") || path.startsWith("/h2-console/")) {
-            log.info("⏭️  Saltando JWT Filter para ruta pública: {}", path);
             filterChain.doFilter(request, response);
             return;
         }
@@ -45,42 +53,90 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader("Authorization");
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            log.warn("🚫 No JWT token found or invalid format for path: {}", path);
             filterChain.doFilter(request, response);
             return;
         }
 
         final String jwt = authHeader.substring(7).trim();
-        final String username = jwtTokenProvider.extractUsername(jwt);
-
-        log.info("🔐 Processing JWT for user: {}, Path: {}", username, path);
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-                if (jwtTokenProvider.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-
-                    // LOGS DE DEBUG AGREGADOS
-                    log.info("✅ Authentication established for user: {}", username);
-                    log.info("✅ User authorities: {}", userDetails.getAuthorities());
-                    log.info("✅ Request path: {}", request.getServletPath());
-                } else {
-                    log.warn("❌ Invalid JWT token for user '{}'", username);
-                }
-            } catch (Exception ex) {
-                log.error("❌ Failed to authenticate user '{}': {}", username, ex.getMessage());
+
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String username = null;
+        try {
+            // Única verificación del token en toda la petición
+            VerifiedToken token = jwtTokenProvider.verify(jwt);
+            username = token.subject();
+
+            if (token.isRefreshToken()) {
+                auditLog.record(Category.AUTH_FAILURE, username, path, "refresh token used as access token");
+            } else if (stateless && token.userId() != null) {
+                authenticateFromClaims(token, request);
+            } else {
+                // Tokens emitidos antes de incluir el id de usuario: se carga el usuario
+                authenticateFromDatabase(token, request);
             }
-        } else {
-            log.info("ℹ️  Authentication already exists or username is null");
+        } catch (Exception ex) {
+            auditLog.record(Category.AUTH_FAILURE, username, path, ex.getClass().getSimpleName());
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Principal construido con los claims del token ya verificado; solo se
+     * comprueba que la cuenta sigue activa (caché userStatus).
+     */
+    private void authenticateFromClaims(VerifiedToken token, HttpServletRequest request) {
+        Long userId = token.userId();
+        UserStatusService.UserStatus status = userStatusService.getStatus(userId);
+        if (!status.active()) {
+            auditLog.record(Category.ACCOUNT_INACTIVE, token.subject(), request.getServletPath());
+            return;
+        }
+
+        User principal = User.builder()
+                .id(userId)
+                .email(token.subject())
+                .username(token.username())
+                .companyId(token.companyId())
+                .enabled(status.enabled())
+                .accountNonExpired(status.accountNonExpired())
+                .accountNonLocked(status.accountNonLocked())
+                .credentialsNonExpired(status.credentialsNonExpired())
+                .build();
+
+        List<SimpleGrantedAuthority> authorities = token.authorities().stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+
+        setAuthentication(principal, authorities, request);
+        auditLog.record(Category.AUTH_SUCCESS, token.subject(), request.getServletPath());
+    }
+
+    private void authenticateFromDatabase(VerifiedToken token, HttpServletRequest request) {
+        String username = token.subject();
+        if (username == null)
+            return;
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+
+        if (jwtTokenProvider.isTokenValid(token, userDetails)) {
+            setAuthentication(userDetails, userDetails.getAuthorities(), request);
+            auditLog.record(Category.AUTH_SUCCESS, username, request.getServletPath());
+        } else {
+            auditLog.record(Category.AUTH_FAILURE, username, request.getServletPath(), "subject mismatch or expired");
+        }
+    }
+
+    private void setAuthentication(Object principal, Collection<? extends GrantedAuthority> authorities,
+            HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                authorities);
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+}
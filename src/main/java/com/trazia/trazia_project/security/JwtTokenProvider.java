@@ -1,18 +1,37 @@
 package com.trazia.trazia_project.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * Emisión y verificación de JWT.
+ *
+ * El parser (inmutable y thread-safe) se construye una sola vez. Los tokens
+ * verificados se guardan hasta su caducidad en una caché acotada, indexada
+ * por el hash SHA-256 del token: las peticiones repetidas de una misma sesión
+ * no vuelven a decodificar ni a comprobar la firma HMAC.
+ */
 @Slf4j
 @Component
 public class JwtTokenProvider {
@@ -23,8 +42,48 @@ public class JwtTokenProvider {
     private static final long JWT_EXPIRATION = 86400000L;
     private static final long REFRESH_EXPIRATION = 604800000L;
 
+    // Claims con los que se construye el principal sin consultar la base de datos
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_USERNAME = "username";
+    public static final String CLAIM_COMPANY_ID = "cid";
+    public static final String CLAIM_AUTHORITIES = "authorities";
+
+    // Refresh tokens: tipo, familia de rotación e id (jti) para revocarlos
+    public static final String CLAIM_TOKEN_TYPE = "token_type";
+    public static final String CLAIM_FAMILY_ID = "fam";
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+
+    private final JwtParser parser = Jwts.parser().verifyWith(key).build();
+
+    /** Tokens ya verificados por hash; cada entrada caduca con su token */
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtTokenProvider(@Value("${security.jwt.verified-cache-size:10000}") long verifiedCacheSize) {
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(Expiry.creating((String hash, VerifiedToken token) -> token.expiration() == null
+                        ? Duration.ZERO
+                        : Duration.ofMillis(Math.max(0, token.expiration().getTime() - System.currentTimeMillis()))))
+                .build();
+    }
+
+    /**
+     * Verifica firma y caducidad una sola vez por token (lanza JwtException si
+     * no es válido) y devuelve sus claims.
+     */
+    public VerifiedToken verify(String token) {
+        String hash = hash(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(hash);
+        if (cached != null && !cached.isExpired())
+            return cached;
+
+        VerifiedToken verified = new VerifiedToken(parse(token));
+        verifiedTokens.put(hash, verified);
+        return verified;
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -38,13 +97,23 @@ public class JwtTokenProvider {
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
         String token = buildToken(extraClaims, userDetails, JWT_EXPIRATION);
-        log.info("🔐 TOKEN GENERATED for user: {}", userDetails.getUsername());
-        log.info("🔐 Generated token: {}", token);
         return token;
     }
 
-    public String generateRefreshToken(UserDetails userDetails) {
-        return buildToken(new HashMap<>(), userDetails, REFRESH_EXPIRATION);
+    /**
+     * Refresh token con su id (jti) y familia; RefreshTokenService lo registra
+     * para poder rotarlo y revocarlo.
+     */
+    public String generateRefreshToken(UserDetails userDetails, String tokenId, String familyId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_TOKEN_TYPE, REFRESH_TOKEN_TYPE);
+        claims.put(CLAIM_FAMILY_ID, familyId);
+        claims.put(Claims.ID, tokenId);
+        return buildToken(claims, userDetails, REFRESH_EXPIRATION);
+    }
+
+    public long getRefreshExpirationMillis() {
+        return REFRESH_EXPIRATION;
     }
 
     private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
@@ -56,20 +125,34 @@ public class JwtTokenProvider {
             subject = userDetails.getUsername();
         }
 
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        if (userDetails instanceof com.trazia.trazia_project.entity.user.User user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_USERNAME, user.getUsername());
+            if (user.getCompany() != null)
+                claims.put(CLAIM_COMPANY_ID, user.getCompany().getId());
+            claims.put(CLAIM_AUTHORITIES, user.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .toList());
+        }
+
         String token = Jwts.builder()
-                .claims(extraClaims)
+                .claims(claims)
                 .subject(subject) // ← Ahora usa email para usuarios personalizados
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(key)
                 .compact();
 
-        log.info("🔐 TOKEN BUILT - Subject: {}, Expiration: {}ms", subject, expiration);
         return token;
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String usernameFromToken = extractUsername(token);
+        return isTokenValid(verify(token), userDetails);
+    }
+
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        final String usernameFromToken = token.subject();
 
         // Obtener el username REAL del UserDetails (que podría ser email o username)
         String usernameFromUserDetails;
@@ -80,43 +163,24 @@ public class JwtTokenProvider {
             usernameFromUserDetails = userDetails.getUsername();
         }
 
-        boolean usernameMatch = usernameFromToken.equals(usernameFromUserDetails);
-        boolean notExpired = !isTokenExpired(token);
-        boolean valid = usernameMatch && notExpired;
-
-        log.info("🔐 TOKEN VALIDATION DEBUG:");
-        log.info("🔐   Token: {}", token);
-        log.info("🔐   Username from token: '{}'", usernameFromToken);
-        log.info("🔐   Username from UserDetails: '{}'", usernameFromUserDetails);
-        log.info("🔐   Username match: {}", usernameMatch);
-        log.info("🔐   Token expired: {}", !notExpired);
-        log.info("🔐   Overall valid: {}", valid);
-
-        return valid;
+        return usernameFromToken.equals(usernameFromUserDetails) && !token.isExpired();
     }
 
-    private boolean isTokenExpired(String token) {
-        boolean expired = extractExpiration(token).before(new Date());
-        if (expired) {
-            log.info("🔐 Token EXPIRED - Expiration: {}", extractExpiration(token));
-        }
-        return expired;
+    public Claims extractAllClaims(String token) {
+        return verify(token).claims();
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /** Los tokens rechazados los registra quien llama en el log de auditoría */
+    private Claims parse(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    private Claims extractAllClaims(String token) {
+    private static String hash(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-        } catch (Exception e) {
-            log.error("🔐 ERROR parsing token: {}", e.getMessage());
-            throw e;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 
@@ -128,7 +192,7 @@ public class JwtTokenProvider {
         try {
             return extractUsername(token);
         } catch (Exception e) {
-            log.error("Error extracting username from token: {}", e.getMessage());
+            log.debug("Error extracting username from token: {}", e.getMessage());
             return null;
         }
     }
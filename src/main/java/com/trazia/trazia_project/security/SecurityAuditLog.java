@@ -0,0 +1,165 @@
+package com.trazia.trazia_project.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log de auditoría de seguridad, asíncrono y estructurado (clave=valor) en el
+ * logger "security.audit".
+ *
+ * - Los éxitos tienen tasa de muestreo por categoría
+ *   (security.audit.sample-rate.*); los fallos se registran siempre.
+ * - El muestreo se decide antes de crear el evento: un éxito no muestreado no
+ *   reserva memoria.
+ * - Los eventos pasan por una cola acotada a un hilo escritor. Una parte de la
+ *   cola (security.audit.failure-reserve) queda para los fallos: los éxitos se
+ *   descartan (y se cuentan) al llegar a ella, así una avalancha de intentos
+ *   fallidos no compite con ellos. Si aun así la cola está llena, el fallo se
+ *   escribe en el hilo de la petición en lugar de perderse.
+ * - Nunca se registran tokens, solo el sujeto.
+ */
+@Component
+public class SecurityAuditLog {
+
+    private static final Logger AUDIT = LoggerFactory.getLogger("security.audit");
+
+    public enum Category {
+        AUTH_SUCCESS(0.01, false),
+        AUTH_FAILURE(1.0, true),
+        ACCOUNT_INACTIVE(1.0, true),
+        LOGIN_SUCCESS(1.0, false),
+        LOGIN_FAILURE(1.0, true),
+        TOKEN_ISSUED(1.0, false),
+        TOKEN_REFRESHED(1.0, false),
+        REFRESH_TOKEN_REUSE(1.0, true),
+        LOGOUT(1.0, false);
+
+        private final double defaultSampleRate;
+        private final boolean failure;
+
+        Category(double defaultSampleRate, boolean failure) {
+            this.defaultSampleRate = defaultSampleRate;
+            this.failure = failure;
+        }
+
+        String propertyName() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    private record AuditEvent(Instant timestamp, Category category, String subject, String path, String reason) {
+    }
+
+    private final double[] sampleRates = new double[Category.values().length];
+    private final BlockingQueue<AuditEvent> queue;
+    /** Huecos de la cola que solo pueden ocupar los fallos */
+    private final int failureReserve;
+    private final Thread writer;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder writtenInline = new LongAdder();
+
+    public SecurityAuditLog(Environment environment) {
+        for (Category category : Category.values()) {
+            sampleRates[category.ordinal()] = category.failure ? 1.0
+                    : environment.getProperty("security.audit.sample-rate." + category.propertyName(), Double.class,
+                            category.defaultSampleRate);
+        }
+        int queueSize = Math.max(1, environment.getProperty("security.audit.queue-size", Integer.class, 10_000));
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.failureReserve = Math.min(queueSize - 1,
+                environment.getProperty("security.audit.failure-reserve", Integer.class, queueSize / 5));
+        this.writer = Thread.ofPlatform().name("security-audit-writer").daemon(true).start(this::drain);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.interrupt();
+    }
+
+    public void record(Category category, String subject, String path) {
+        record(category, subject, path, null);
+    }
+
+    /**
+     * Encola el evento si sale en el muestreo de su categoría. Los éxitos se
+     * descartan con la cola casi llena; los fallos nunca.
+     */
+    public void record(Category category, String subject, String path, String reason) {
+        if (!sampled(category))
+            return;
+        if (!category.failure && queue.remainingCapacity() <= failureReserve) {
+            dropped.increment();
+            return;
+        }
+        AuditEvent event = new AuditEvent(Instant.now(), category, subject, path, reason);
+        if (queue.offer(event)) {
+            recorded.increment();
+        } else if (category.failure) {
+            write(event);
+            writtenInline.increment();
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    /** Solo éxitos: los fallos no se descartan */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /** Fallos escritos en el hilo de la petición por tener la cola llena */
+    public long getWrittenInline() {
+        return writtenInline.sum();
+    }
+
+    private boolean sampled(Category category) {
+        double rate = sampleRates[category.ordinal()];
+        if (rate >= 1.0)
+            return true;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                write(queue.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lo que quede al parar
+        AuditEvent event;
+        while ((event = queue.poll()) != null) {
+            write(event);
+        }
+    }
+
+    private void write(AuditEvent event) {
+        // sample permite extrapolar los recuentos de las categorías muestreadas
+        double rate = sampleRates[event.category().ordinal()];
+        String reason = event.reason() != null ? " reason=" + event.reason() : "";
+        if (event.category().failure) {
+            AUDIT.warn("ts={} event={} subject={} path={} sample={}{}", event.timestamp(), event.category(),
+                    event.subject(), event.path(), rate, reason);
+        } else {
+            AUDIT.info("ts={} event={} subject={} path={} sample={}{}", event.timestamp(), event.category(),
+                    event.subject(), event.path(), rate, reason);
+        }
+    }
+}
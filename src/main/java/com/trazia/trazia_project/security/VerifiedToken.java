@@ -0,0 +1,59 @@
+package com.trazia.trazia_project.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * JWT cuya firma y caducidad ya se han comprobado. Se obtiene con
+ * JwtTokenProvider.verify y se pasa por el filtro para no volver a parsear
+ * el token. No guarda el token en sí, solo sus claims.
+ */
+public record VerifiedToken(Claims claims) {
+
+    public String subject() {
+        return claims.getSubject();
+    }
+
+    public Date expiration() {
+        return claims.getExpiration();
+    }
+
+    public boolean isExpired() {
+        return expiration() != null && expiration().before(new Date());
+    }
+
+    /** Id del usuario, o null en tokens emitidos antes de incluirlo */
+    public Long userId() {
+        return claims.get(JwtTokenProvider.CLAIM_USER_ID, Long.class);
+    }
+
+    public String username() {
+        return claims.get(JwtTokenProvider.CLAIM_USERNAME, String.class);
+    }
+
+    public Long companyId() {
+        return claims.get(JwtTokenProvider.CLAIM_COMPANY_ID, Long.class);
+    }
+
+    /** Los refresh tokens solo sirven para /api/auth/refresh, no como token de acceso */
+    public boolean isRefreshToken() {
+        return JwtTokenProvider.REFRESH_TOKEN_TYPE.equals(claims.get(JwtTokenProvider.CLAIM_TOKEN_TYPE, String.class));
+    }
+
+    /** jti (refresh tokens) */
+    public String tokenId() {
+        return claims.getId();
+    }
+
+    /** Familia de rotación (refresh tokens) */
+    public String familyId() {
+        return claims.get(JwtTokenProvider.CLAIM_FAMILY_ID, String.class);
+    }
+
+    public List<String> authorities() {
+        List<?> names = claims.get(JwtTokenProvider.CLAIM_AUTHORITIES, List.class);
+        return names == null ? List.of() : names.stream().map(String::valueOf).toList();
+    }
+}
@@ -8,10 +8,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.trazia.trazia_project.dto.auth.*;
 import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.exception.auth.AuthenticationOverloadedException;
 import com.trazia.trazia_project.exception.auth.InvalidCredentialsException;
 import com.trazia.trazia_project.exception.auth.UserAlreadyExistsException;
 import com.trazia.trazia_project.repository.user.UserRepository;
 import com.trazia.trazia_project.security.JwtTokenProvider;
+import com.trazia.trazia_project.security.SecurityAuditLog;
+import com.trazia.trazia_project.security.SecurityAuditLog.Category;
+import com.trazia.trazia_project.service.security.RefreshTokenService;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -28,7 +32,9 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider jwtTokenProvider;
+    private final SecurityAuditLog auditLog;
     private final AuthenticationManager authenticationManager;
+    private final RefreshTokenService refreshTokenService;
     private final com.trazia.trazia_project.service.security.UserDetailsServiceImpl userDetailsService; // ← AGREGAR
 
     @Transactional
@@ -65,11 +71,15 @@ public class AuthService {
         return buildAuthResponse(userDetails, savedUser);
     }
 
+    @Transactional
     public AuthResponse login(LoginRequest request) {
         log.info("Login attempt for email: {}", request.getEmail());
 
         User user = Objects.requireNonNull(userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new InvalidCredentialsException("Invalid email or password")));
+                .orElseThrow(() -> {
+                    auditLog.record(Category.LOGIN_FAILURE, request.getEmail(), "/api/auth/login", "unknown email");
+                    return new InvalidCredentialsException("Invalid email or password");
+                }));
 
         try {
             var authentication = authenticationManager.authenticate(
@@ -81,27 +91,47 @@ public class AuthService {
             org.springframework.security.core.userdetails.UserDetails userDetails = 
                 (org.springframework.security.core.userdetails.UserDetails) authentication.getPrincipal();
 
-            log.info("User authenticated successfully: {}", user.getEmail());
-            log.info("🔐 UserDetails type: {}", userDetails.getClass().getName());
-            log.info("🔐 UserDetails username: {}", userDetails.getUsername());
+            auditLog.record(Category.LOGIN_SUCCESS, user.getEmail(), "/api/auth/login");
 
             return buildAuthResponse(userDetails, user);
 
+        } catch (AuthenticationOverloadedException e) {
+            // Sin hash no hay veredicto: no es un fallo de credenciales
+            throw e;
         } catch (Exception e) {
-            log.error("Authentication failed for email: {}", request.getEmail());
+            auditLog.record(Category.LOGIN_FAILURE, request.getEmail(), "/api/auth/login", e.getClass().getSimpleName());
             throw new InvalidCredentialsException("Invalid email or password");
         }
     }
 
+    /**
+     * Rota el refresh token: no vuelve a comprobar la contraseña.
+     */
+    @Transactional(noRollbackFor = InvalidCredentialsException.class)
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        RefreshTokenService.TokenPair tokens = refreshTokenService.rotate(request.getRefreshToken());
+        User user = tokens.user();
+        return AuthResponse.builder()
+                .token(tokens.accessToken())
+                .refreshToken(tokens.refreshToken())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .enabled(user.isEnabled())
+                .build();
+    }
+
+    @Transactional
+    public void logout(RefreshTokenRequest request) {
+        refreshTokenService.revoke(request.getRefreshToken());
+    }
+
     private AuthResponse buildAuthResponse(
             @NonNull org.springframework.security.core.userdetails.UserDetails userDetails, @NonNull User user) {
         String token = jwtTokenProvider.generateToken(userDetails);
-        log.info("🔐 TOKEN GENERATION DEBUG:");
-        log.info("🔐   UserDetails type: {}", userDetails.getClass().getName());
-        log.info("🔐   UserDetails username: '{}'", userDetails.getUsername());
-        log.info("🔐   Generated token: {}", token);
+        auditLog.record(Category.TOKEN_ISSUED, user.getEmail(), null);
         return AuthResponse.builder()
                 .token(token)
+                .refreshToken(refreshTokenService.issue(user))
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .enabled(user.isEnabled())
@@ -1,6 +1,7 @@
 package com.trazia.trazia_project.service.common;
 
 import com.trazia.trazia_project.constants.ReferenceDailyIntakes;
+import com.trazia.trazia_project.model.NutrientVector;
 import com.trazia.trazia_project.model.NutrimentsDTO;
 import org.springframework.stereotype.Service;
 
@@ -18,7 +19,7 @@ public class NutritionConversionService {
             return new NutrimentsDTO();
         }
 
-        BigDecimal factor = BigDecimal.valueOf(100).divide(yieldWeightGrams, 6, RoundingMode.HALF_UP);
+        double factor = 100.0 / yieldWeightGrams.doubleValue();
 
         NutrimentsDTO per100g = new NutrimentsDTO();
         per100g.setEnergyKcal(safeMultiply(totalNutrients.getEnergyKcal(), factor));
@@ -42,7 +43,7 @@ public class NutritionConversionService {
         BigDecimal divisor = (servingSize != null && servingSize.compareTo(BigDecimal.ZERO) > 0) 
                 ? servingSize 
                 : BigDecimal.valueOf(100);
-        BigDecimal factor = quantityGrams.divide(divisor, 6, RoundingMode.HALF_UP);
+        double factor = quantityGrams.doubleValue() / divisor.doubleValue();
 
         NutrimentsDTO normalized = new NutrimentsDTO();
         normalized.setEnergyKcal(safeMultiply(nutrients.getEnergyKcal(), factor));
@@ -103,9 +104,9 @@ public class NutritionConversionService {
         return (a != null ? a : 0.0) + (b != null ? b : 0.0);
     }
 
-    private Double safeMultiply(Double value, BigDecimal factor) {
+    private Double safeMultiply(Double value, double factor) {
         if (value == null) return 0.0;
-        return BigDecimal.valueOf(value).multiply(factor).setScale(2, RoundingMode.HALF_UP).doubleValue();
+        return NutrientVector.round2(value * factor);
     }
 
     private Double percentageOfTotal(Double value, Double reference) {
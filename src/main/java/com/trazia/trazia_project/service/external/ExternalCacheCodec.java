@@ -0,0 +1,247 @@
+package com.trazia.trazia_project.service.external;
+
+import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsProductDTO;
+import com.trazia.trazia_project.dto.external.usda.UsdaFoodDTO;
+import com.trazia.trazia_project.dto.external.usda.UsdaNutrientDTO;
+import com.trazia.trazia_project.model.NutrimentsDTO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Serialización binaria compacta de los DTO externos para la caché L2.
+ *
+ * Formato: un byte de cabecera (versión en los 7 bits bajos, bit alto = cuerpo
+ * comprimido con Deflate) y los campos en orden fijo. Cadenas y números
+ * nullable llevan un byte de presencia; no se guardan nombres de campo.
+ * Los cuerpos pequeños no se comprimen.
+ */
+public final class ExternalCacheCodec {
+
+    private static final int VERSION = 1;
+    private static final int COMPRESSED = 0x80;
+    private static final int COMPRESS_THRESHOLD = 512;
+
+    private ExternalCacheCodec() {
+    }
+
+    // ===========================
+    // OPEN FOOD FACTS
+    // ===========================
+
+    public static byte[] encode(OpenFoodFactsProductDTO product) {
+        return write(out -> {
+            writeString(out, product.getCode());
+            writeString(out, product.getProductName());
+            writeString(out, product.getBrands());
+            writeString(out, product.getQuantity());
+            writeString(out, product.getImageUrl());
+            writeString(out, product.getIngredientsText());
+            writeString(out, product.getAllergens());
+            NutrimentsDTO n = product.getNutriments();
+            out.writeBoolean(n != null);
+            if (n != null) {
+                writeDouble(out, n.getEnergyKcal());
+                writeDouble(out, n.getProteins());
+                writeDouble(out, n.getCarbohydrates());
+                writeDouble(out, n.getFat());
+                writeDouble(out, n.getFiber());
+                writeDouble(out, n.getSodium());
+                writeDouble(out, n.getSugars());
+                writeDouble(out, n.getSalt());
+                writeDouble(out, n.getSaturatedFat());
+                writeDouble(out, n.getUnsaturatedFat());
+                writeDouble(out, n.getCalories());
+                writeDouble(out, n.getProtein());
+            }
+        });
+    }
+
+    public static OpenFoodFactsProductDTO decodeOpenFoodFactsProduct(byte[] data) {
+        return read(data, in -> {
+            OpenFoodFactsProductDTO product = new OpenFoodFactsProductDTO();
+            product.setCode(readString(in));
+            product.setProductName(readString(in));
+            product.setBrands(readString(in));
+            product.setQuantity(readString(in));
+            product.setImageUrl(readString(in));
+            product.setIngredientsText(readString(in));
+            product.setAllergens(readString(in));
+            if (in.readBoolean()) {
+                NutrimentsDTO n = new NutrimentsDTO();
+                n.setEnergyKcal(readDouble(in));
+                n.setProteins(readDouble(in));
+                n.setCarbohydrates(readDouble(in));
+                n.setFat(readDouble(in));
+                n.setFiber(readDouble(in));
+                n.setSodium(readDouble(in));
+                n.setSugars(readDouble(in));
+                n.setSalt(readDouble(in));
+                n.setSaturatedFat(readDouble(in));
+                n.setUnsaturatedFat(readDouble(in));
+                n.setCalories(readDouble(in));
+                n.setProtein(readDouble(in));
+                product.setNutriments(n);
+            }
+            return product;
+        });
+    }
+
+    // ===========================
+    // USDA
+    // ===========================
+
+    public static byte[] encode(UsdaFoodDTO food) {
+        return write(out -> {
+            writeLong(out, food.getFdcId());
+            writeString(out, food.getDescription());
+            writeString(out, food.getBrandOwner());
+            writeString(out, food.getDataType());
+            writeDouble(out, food.getServingSize());
+            writeString(out, food.getServingSizeUnit());
+            List<UsdaNutrientDTO> nutrients = food.getFoodNutrients();
+            out.writeInt(nutrients != null ? nutrients.size() : -1);
+            if (nutrients != null) {
+                for (UsdaNutrientDTO nutrient : nutrients) {
+                    out.writeBoolean(nutrient.getNutrientId() != null);
+                    if (nutrient.getNutrientId() != null)
+                        out.writeInt(nutrient.getNutrientId());
+                    writeString(out, nutrient.getNutrientName());
+                    writeString(out, nutrient.getNutrientNumber());
+                    writeString(out, nutrient.getUnitName());
+                    writeDouble(out, nutrient.getValue());
+                }
+            }
+        });
+    }
+
+    public static UsdaFoodDTO decodeUsdaFood(byte[] data) {
+        return read(data, in -> {
+            UsdaFoodDTO food = new UsdaFoodDTO();
+            food.setFdcId(readLong(in));
+            food.setDescription(readString(in));
+            food.setBrandOwner(readString(in));
+            food.setDataType(readString(in));
+            food.setServingSize(readDouble(in));
+            food.setServingSizeUnit(readString(in));
+            int count = in.readInt();
+            if (count >= 0) {
+                List<UsdaNutrientDTO> nutrients = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    UsdaNutrientDTO nutrient = new UsdaNutrientDTO();
+                    nutrient.setNutrientId(in.readBoolean() ? in.readInt() : null);
+                    nutrient.setNutrientName(readString(in));
+                    nutrient.setNutrientNumber(readString(in));
+                    nutrient.setUnitName(readString(in));
+                    nutrient.setValue(readDouble(in));
+                    nutrients.add(nutrient);
+                }
+                food.setFoodNutrients(nutrients);
+            }
+            return food;
+        });
+    }
+
+    // ===========================
+    // AUXILIARES
+    // ===========================
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static byte[] write(Writer writer) {
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+            try (DataOutputStream out = new DataOutputStream(body)) {
+                writer.write(out);
+            }
+            byte[] raw = body.toByteArray();
+            if (raw.length < COMPRESS_THRESHOLD) {
+                byte[] result = new byte[raw.length + 1];
+                result[0] = (byte) VERSION;
+                System.arraycopy(raw, 0, result, 1, raw.length);
+                return result;
+            }
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2);
+            compressed.write(VERSION | COMPRESSED);
+            try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed,
+                    new Deflater(Deflater.BEST_SPEED))) {
+                deflater.write(raw);
+            }
+            return compressed.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T read(byte[] data, Reader<T> reader) {
+        if (data == null || data.length == 0 || (data[0] & ~COMPRESSED) != VERSION)
+            throw new IllegalArgumentException("Unsupported cache payload");
+        InputStream body = new ByteArrayInputStream(data, 1, data.length - 1);
+        if ((data[0] & COMPRESSED) != 0)
+            body = new InflaterInputStream(body);
+        try (DataInputStream in = new DataInputStream(body)) {
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeDouble(value);
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeLong(value);
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+}
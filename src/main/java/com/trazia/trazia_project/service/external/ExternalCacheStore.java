@@ -0,0 +1,211 @@
+package com.trazia.trazia_project.service.external;
+
+import com.trazia.trazia_project.config.CacheNames;
+import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsProductDTO;
+import com.trazia.trazia_project.dto.external.usda.UsdaFoodDTO;
+import com.trazia.trazia_project.entity.external.ExternalCacheEntry;
+import com.trazia.trazia_project.repository.external.ExternalCacheEntryRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché persistente (L2) de productos de Open Food Facts y alimentos de USDA,
+ * detrás de las cachés Caffeine (L1).
+ *
+ * - Lectura: en un fallo de L1 los servicios consultan aquí antes que el espejo
+ *   local y la API.
+ * - Escritura: tras cada respuesta correcta de la API, en segundo plano (cola
+ *   acotada; si se llena se descarta, es solo una caché).
+ * - Al arrancar se precargan en L1 las entradas vigentes más recientes.
+ * - Las entradas caducadas se conservan staleRetention más: si la API está
+ *   caída (circuit breaker abierto) se sirven como respuesta obsoleta.
+ * - Pasado ese margen se borran periódicamente.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExternalCacheStore {
+
+    private final ExternalCacheEntryRepository repository;
+    private final PlatformTransactionManager transactionManager;
+    private final CacheManager cacheManager;
+
+    @Value("${external-cache.l2.enabled:true}")
+    private boolean enabled;
+
+    @Value("${external-cache.l2.open-food-facts-ttl:30d}")
+    private Duration openFoodFactsTtl;
+
+    @Value("${external-cache.l2.usda-ttl:90d}")
+    private Duration usdaTtl;
+
+    @Value("${external-cache.l2.stale-retention:7d}")
+    private Duration staleRetention;
+
+    @Value("${external-cache.l2.warm-load-size:2000}")
+    private int warmLoadSize;
+
+    private final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(1000), r -> {
+                Thread thread = new Thread(r, "external-cache-l2-writer");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdown();
+    }
+
+    // ===========================
+    // OPEN FOOD FACTS
+    // ===========================
+
+    public Optional<OpenFoodFactsProductDTO> getOpenFoodFactsProduct(String barcode) {
+        return get(CacheNames.OPEN_FOOD_FACTS_PRODUCTS, barcode, ExternalCacheCodec::decodeOpenFoodFactsProduct, false);
+    }
+
+    /** Incluye entradas caducadas: solo para cuando la API no está disponible */
+    public Optional<OpenFoodFactsProductDTO> getStaleOpenFoodFactsProduct(String barcode) {
+        return get(CacheNames.OPEN_FOOD_FACTS_PRODUCTS, barcode, ExternalCacheCodec::decodeOpenFoodFactsProduct, true);
+    }
+
+    public void putOpenFoodFactsProduct(String barcode, OpenFoodFactsProductDTO product) {
+        putAsync(CacheNames.OPEN_FOOD_FACTS_PRODUCTS, barcode, () -> ExternalCacheCodec.encode(product),
+                openFoodFactsTtl);
+    }
+
+    // ===========================
+    // USDA
+    // ===========================
+
+    public Optional<UsdaFoodDTO> getUsdaFood(Long fdcId) {
+        return get(CacheNames.USDA_FOODS, String.valueOf(fdcId), ExternalCacheCodec::decodeUsdaFood, false);
+    }
+
+    /** Incluye entradas caducadas: solo para cuando la API no está disponible */
+    public Optional<UsdaFoodDTO> getStaleUsdaFood(Long fdcId) {
+        return get(CacheNames.USDA_FOODS, String.valueOf(fdcId), ExternalCacheCodec::decodeUsdaFood, true);
+    }
+
+    public void putUsdaFood(Long fdcId, UsdaFoodDTO food) {
+        putAsync(CacheNames.USDA_FOODS, String.valueOf(fdcId), () -> ExternalCacheCodec.encode(food), usdaTtl);
+    }
+
+    // ===========================
+    // PRECARGA Y LIMPIEZA
+    // ===========================
+
+    /**
+     * Precarga en L1 las entradas vigentes más recientes de cada caché.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmLoad() {
+        if (!enabled || warmLoadSize <= 0)
+            return;
+        long start = System.currentTimeMillis();
+        int products = warmLoad(CacheNames.OPEN_FOOD_FACTS_PRODUCTS, Function.identity(),
+                ExternalCacheCodec::decodeOpenFoodFactsProduct);
+        int foods = warmLoad(CacheNames.USDA_FOODS, Long::valueOf, ExternalCacheCodec::decodeUsdaFood);
+        log.info("Warm-loaded L1 from L2 cache: {} OpenFoodFacts products, {} USDA foods in {} ms",
+                products, foods, System.currentTimeMillis() - start);
+    }
+
+    @Scheduled(fixedDelayString = "${external-cache.l2.cleanup-interval-ms:3600000}",
+            initialDelayString = "${external-cache.l2.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        if (!enabled)
+            return;
+        Integer deleted = new TransactionTemplate(transactionManager)
+                .execute(status -> repository.deleteExpired(LocalDateTime.now().minus(staleRetention)));
+        if (deleted != null && deleted > 0)
+            log.info("Deleted {} expired L2 cache entries", deleted);
+    }
+
+    private <K, V> int warmLoad(String cacheName, Function<String, K> keyParser, Function<byte[], V> decoder) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null)
+            return 0;
+        try {
+            List<ExternalCacheEntry> entries = repository.findByCacheNameAndExpiresAtAfterOrderByUpdatedAtDesc(
+                    cacheName, LocalDateTime.now(), Limit.of(warmLoadSize));
+            int loaded = 0;
+            for (ExternalCacheEntry entry : entries) {
+                try {
+                    cache.put(keyParser.apply(entry.getCacheKey()), decoder.apply(entry.getPayload()));
+                    loaded++;
+                } catch (RuntimeException e) {
+                    log.debug("Skipping unreadable L2 entry {}/{}: {}", cacheName, entry.getCacheKey(), e.getMessage());
+                }
+            }
+            return loaded;
+        } catch (DataAccessException e) {
+            log.warn("Could not warm-load cache {} from L2: {}", cacheName, e.getMessage());
+            return 0;
+        }
+    }
+
+    // ===========================
+    // AUXILIARES
+    // ===========================
+
+    private <V> Optional<V> get(String cacheName, String key, Function<byte[], V> decoder, boolean allowStale) {
+        if (!enabled || key == null)
+            return Optional.empty();
+        try {
+            return repository.findByCacheNameAndCacheKey(cacheName, key)
+                    .filter(entry -> allowStale || entry.getExpiresAt().isAfter(LocalDateTime.now()))
+                    .map(entry -> decoder.apply(entry.getPayload()));
+        } catch (DataAccessException | IllegalArgumentException e) {
+            log.warn("L2 cache read failed for {}/{}: {}", cacheName, key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void putAsync(String cacheName, String key, Supplier<byte[]> payload, Duration ttl) {
+        if (!enabled || key == null)
+            return;
+        writer.execute(() -> {
+            try {
+                byte[] bytes = payload.get();
+                LocalDateTime now = LocalDateTime.now();
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    ExternalCacheEntry entry = repository.findByCacheNameAndCacheKey(cacheName, key)
+                            .orElseGet(() -> ExternalCacheEntry.builder()
+                                    .cacheName(cacheName)
+                                    .cacheKey(key)
+                                    .build());
+                    entry.setPayload(bytes);
+                    entry.setExpiresAt(now.plus(ttl));
+                    entry.setUpdatedAt(now);
+                    repository.save(entry);
+                });
+            } catch (RuntimeException e) {
+                log.warn("L2 cache write failed for {}/{}: {}", cacheName, key, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,416 @@
+package com.trazia.trazia_project.service.external;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsProductDTO;
+import com.trazia.trazia_project.dto.external.usda.UsdaFoodDTO;
+import com.trazia.trazia_project.dto.external.usda.UsdaNutrientDTO;
+import com.trazia.trazia_project.entity.external.FoodMirrorImport;
+import com.trazia.trazia_project.entity.external.OpenFoodFactsMirrorProduct;
+import com.trazia.trazia_project.entity.external.UsdaMirrorFood;
+import com.trazia.trazia_project.model.SearchText;
+import com.trazia.trazia_project.repository.external.FoodMirrorImportRepository;
+import com.trazia.trazia_project.repository.external.OpenFoodFactsMirrorProductRepository;
+import com.trazia.trazia_project.repository.external.UsdaMirrorFoodRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Carga del espejo local de Open Food Facts y USDA desde ficheros de volcado.
+ *
+ * Los ficheros se dejan en food-mirror.import-dir (la descarga queda fuera de
+ * la aplicación, p. ej. un cron que sincroniza los volcados y deltas):
+ * - *.jsonl / *.jsonl.gz: volcado o delta de Open Food Facts, un producto por
+ *   línea. Un producto con last_modified_t anterior al guardado se ignora.
+ * - *.json / *.json.gz: descarga de USDA FoodData Central (objeto con un
+ *   array de alimentos, p. ej. "FoundationFoods", o un array directamente).
+ *
+ * Cada fichero se importa una sola vez (food_mirror_imports), en orden de
+ * nombre, leyéndolo en streaming y guardando por lotes en transacciones
+ * separadas. Los métodos que reciben un InputStream permiten cargar volcados
+ * pequeños sin red ni directorio.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FoodMirrorImportService {
+
+    private final OpenFoodFactsMirrorProductRepository offRepository;
+    private final UsdaMirrorFoodRepository usdaRepository;
+    private final FoodMirrorImportRepository importRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${food-mirror.enabled:true}")
+    private boolean enabled;
+
+    @Value("${food-mirror.import-dir:./data/food-mirror}")
+    private String importDir;
+
+    @Value("${food-mirror.batch-size:500}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "food-mirror-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Registros guardados y descartados de un fichero */
+    public record ImportCounts(long imported, long skipped) {
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(initialDelayString = "${food-mirror.initial-delay-ms:60000}",
+            fixedDelayString = "${food-mirror.scan-interval-ms:3600000}")
+    public void scheduledImport() {
+        // En el executor propio: un volcado completo no debe ocupar el hilo del planificador
+        triggerImport();
+    }
+
+    /**
+     * Lanza en segundo plano la importación de los ficheros pendientes.
+     * @return false si ya hay una importación en curso o el espejo está desactivado
+     */
+    public boolean triggerImport() {
+        if (!enabled || running.get())
+            return false;
+        executor.submit(this::importPendingFiles);
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Importa los ficheros del directorio que aún no se han importado.
+     */
+    public List<FoodMirrorImport> importPendingFiles() {
+        if (!enabled || !running.compareAndSet(false, true))
+            return List.of();
+        try {
+            Path dir = Paths.get(importDir);
+            if (!Files.isDirectory(dir)) {
+                log.debug("Food mirror import directory {} does not exist", dir.toAbsolutePath());
+                return List.of();
+            }
+
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(dir)) {
+                files = listing.filter(Files::isRegularFile)
+                        .filter(path -> sourceOf(path) != null)
+                        .sorted()
+                        .toList();
+            }
+
+            List<FoodMirrorImport> imported = new ArrayList<>();
+            for (Path file : files) {
+                long size = Files.size(file);
+                long modifiedAt = Files.getLastModifiedTime(file).toMillis();
+                String name = file.getFileName().toString();
+                if (importRepository.existsByFileNameAndFileSizeAndFileModifiedAt(name, size, modifiedAt))
+                    continue;
+                try {
+                    imported.add(importFile(file, size, modifiedAt));
+                } catch (IOException | UncheckedIOException e) {
+                    log.error("Food mirror import of {} failed: {}", name, e.getMessage());
+                }
+            }
+            return imported;
+        } catch (IOException e) {
+            log.error("Could not scan food mirror import directory {}: {}", importDir, e.getMessage());
+            return List.of();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private FoodMirrorImport importFile(Path file, long size, long modifiedAt) throws IOException {
+        FoodMirrorImport.Source source = sourceOf(file);
+        String name = file.getFileName().toString();
+        long start = System.currentTimeMillis();
+        log.info("Importing {} into the food mirror ({})", name, source);
+
+        ImportCounts counts;
+        try (InputStream in = open(file)) {
+            counts = source == FoodMirrorImport.Source.OPEN_FOOD_FACTS
+                    ? importOpenFoodFacts(in)
+                    : importUsda(in);
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("Imported {}: {} records, {} skipped in {} ms", name, counts.imported(), counts.skipped(), duration);
+        return importRepository.save(FoodMirrorImport.builder()
+                .source(source)
+                .fileName(name)
+                .fileSize(size)
+                .fileModifiedAt(modifiedAt)
+                .importedCount(counts.imported())
+                .skippedCount(counts.skipped())
+                .durationMs(duration)
+                .importedAt(LocalDateTime.now())
+                .build());
+    }
+
+    // ===========================
+    // OPEN FOOD FACTS (JSONL)
+    // ===========================
+
+    /**
+     * Importa un volcado o delta JSONL de Open Food Facts (sin comprimir).
+     */
+    public ImportCounts importOpenFoodFacts(InputStream in) throws IOException {
+        long imported = 0;
+        long skipped = 0;
+        Map<String, OpenFoodFactsMirrorProduct> batch = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank())
+                continue;
+            OpenFoodFactsMirrorProduct product = toMirrorProduct(line);
+            if (product == null) {
+                skipped++;
+                continue;
+            }
+            batch.put(product.getBarcode(), product);
+            if (batch.size() >= batchSize) {
+                ImportCounts counts = saveOpenFoodFactsBatch(batch);
+                imported += counts.imported();
+                skipped += counts.skipped();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            ImportCounts counts = saveOpenFoodFactsBatch(batch);
+            imported += counts.imported();
+            skipped += counts.skipped();
+        }
+        return new ImportCounts(imported, skipped);
+    }
+
+    private OpenFoodFactsMirrorProduct toMirrorProduct(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            OpenFoodFactsProductDTO product = objectMapper.treeToValue(node, OpenFoodFactsProductDTO.class);
+            if (product.getCode() == null || product.getCode().isBlank() || product.getCode().length() > 32)
+                return null;
+            long lastModified = node.path("last_modified_t").asLong(0);
+            return OpenFoodFactsMirrorProduct.builder()
+                    .barcode(product.getCode().trim())
+                    .productName(truncate(product.getProductName(), 255))
+                    .payload(objectMapper.writeValueAsString(product))
+                    .lastModified(lastModified > 0 ? lastModified : null)
+                    .importedAt(LocalDateTime.now())
+                    .build();
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Upsert del lote: una consulta para los existentes, actualización en sitio
+     * de esos (si el dato entrante no es más antiguo) e inserción por lotes del resto.
+     */
+    private ImportCounts saveOpenFoodFactsBatch(Map<String, OpenFoodFactsMirrorProduct> batch) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return tx.execute(status -> {
+            Map<String, OpenFoodFactsMirrorProduct> existing = offRepository.findAllById(batch.keySet()).stream()
+                    .collect(Collectors.toMap(OpenFoodFactsMirrorProduct::getBarcode, Function.identity()));
+            List<OpenFoodFactsMirrorProduct> inserts = new ArrayList<>();
+            long imported = 0;
+            long skipped = 0;
+            for (OpenFoodFactsMirrorProduct incoming : batch.values()) {
+                OpenFoodFactsMirrorProduct current = existing.get(incoming.getBarcode());
+                if (current == null) {
+                    inserts.add(incoming);
+                    imported++;
+                } else if (current.getLastModified() != null && incoming.getLastModified() != null
+                        && incoming.getLastModified() < current.getLastModified()) {
+                    skipped++;
+                } else {
+                    current.setProductName(incoming.getProductName());
+                    current.setPayload(incoming.getPayload());
+                    current.setLastModified(incoming.getLastModified());
+                    current.setImportedAt(incoming.getImportedAt());
+                    imported++;
+                }
+            }
+            offRepository.saveAll(inserts);
+            return new ImportCounts(imported, skipped);
+        });
+    }
+
+    // ===========================
+    // USDA (JSON)
+    // ===========================
+
+    /**
+     * Importa una descarga JSON de USDA FoodData Central (sin comprimir),
+     * leyendo los alimentos uno a uno sin cargar el documento entero.
+     */
+    public ImportCounts importUsda(InputStream in) throws IOException {
+        long imported = 0;
+        long skipped = 0;
+        Map<Long, UsdaMirrorFood> batch = new LinkedHashMap<>();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            // Avanza hasta el primer array: raíz o primer campo del objeto raíz
+            JsonToken token = parser.nextToken();
+            while (token != null && token != JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            if (token == null)
+                return new ImportCounts(0, 0);
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode node = objectMapper.readTree(parser);
+                UsdaMirrorFood food = toMirrorFood(node);
+                if (food == null) {
+                    skipped++;
+                    continue;
+                }
+                batch.put(food.getFdcId(), food);
+                if (batch.size() >= batchSize) {
+                    imported += saveUsdaBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty())
+            imported += saveUsdaBatch(batch);
+        return new ImportCounts(imported, skipped);
+    }
+
+    private UsdaMirrorFood toMirrorFood(JsonNode node) throws JsonProcessingException {
+        if (!node.path("fdcId").canConvertToLong())
+            return null;
+        UsdaFoodDTO food = new UsdaFoodDTO();
+        food.setFdcId(node.get("fdcId").asLong());
+        food.setDescription(text(node, "description"));
+        food.setBrandOwner(text(node, "brandOwner"));
+        food.setDataType(text(node, "dataType"));
+        food.setServingSize(node.hasNonNull("servingSize") ? node.get("servingSize").asDouble() : null);
+        food.setServingSizeUnit(text(node, "servingSizeUnit"));
+
+        // Las descargas anidan el nutriente ({"nutrient": {...}, "amount": x});
+        // la API de búsqueda lo devuelve plano (nutrientId, nutrientName, value)
+        List<UsdaNutrientDTO> nutrients = new ArrayList<>();
+        for (JsonNode item : node.path("foodNutrients")) {
+            JsonNode nutrient = item.path("nutrient");
+            if (nutrient.isObject()) {
+                UsdaNutrientDTO dto = new UsdaNutrientDTO();
+                dto.setNutrientId(nutrient.hasNonNull("id") ? nutrient.get("id").asInt() : null);
+                dto.setNutrientName(text(nutrient, "name"));
+                dto.setNutrientNumber(text(nutrient, "number"));
+                dto.setUnitName(text(nutrient, "unitName"));
+                dto.setValue(item.hasNonNull("amount") ? item.get("amount").asDouble() : null);
+                nutrients.add(dto);
+            } else {
+                nutrients.add(objectMapper.treeToValue(item, UsdaNutrientDTO.class));
+            }
+        }
+        food.setFoodNutrients(nutrients);
+
+        return UsdaMirrorFood.builder()
+                .fdcId(food.getFdcId())
+                .description(truncate(food.getDescription(), 500))
+                .searchText(truncate(SearchText.normalize(food.getDescription()), 500))
+                .dataType(truncate(food.getDataType(), 50))
+                .payload(objectMapper.writeValueAsString(food))
+                .importedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private long saveUsdaBatch(Map<Long, UsdaMirrorFood> batch) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        return tx.execute(status -> {
+            Map<Long, UsdaMirrorFood> existing = usdaRepository.findAllById(batch.keySet()).stream()
+                    .collect(Collectors.toMap(UsdaMirrorFood::getFdcId, Function.identity()));
+            List<UsdaMirrorFood> inserts = new ArrayList<>();
+            for (UsdaMirrorFood incoming : batch.values()) {
+                UsdaMirrorFood current = existing.get(incoming.getFdcId());
+                if (current == null) {
+                    inserts.add(incoming);
+                } else {
+                    current.setDescription(incoming.getDescription());
+                    current.setSearchText(incoming.getSearchText());
+                    current.setDataType(incoming.getDataType());
+                    current.setPayload(incoming.getPayload());
+                    current.setImportedAt(incoming.getImportedAt());
+                }
+            }
+            usdaRepository.saveAll(inserts);
+            return (long) batch.size();
+        });
+    }
+
+    // ===========================
+    // AUXILIARES
+    // ===========================
+
+    private static FoodMirrorImport.Source sourceOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".jsonl") || name.endsWith(".jsonl.gz"))
+            return FoodMirrorImport.Source.OPEN_FOOD_FACTS;
+        if (name.endsWith(".json") || name.endsWith(".json.gz"))
+            return FoodMirrorImport.Source.USDA;
+        return null;
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024);
+        return file.getFileName().toString().toLowerCase().endsWith(".gz") ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null)
+            return null;
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -0,0 +1,105 @@
+package com.trazia.trazia_project.service.external;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsProductDTO;
+import com.trazia.trazia_project.dto.external.usda.UsdaFoodDTO;
+import com.trazia.trazia_project.model.SearchText;
+import com.trazia.trazia_project.repository.external.OpenFoodFactsMirrorProductRepository;
+import com.trazia.trazia_project.repository.external.UsdaMirrorFoodRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Consulta del espejo local de Open Food Facts y USDA.
+ *
+ * OpenFoodFactsService y UsdaService lo consultan antes de salir a Internet;
+ * si el dato no está (o el espejo está desactivado o falla) siguen con la API.
+ * Las lecturas son por clave primaria o sobre la descripción normalizada.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class FoodMirrorService {
+
+    private final OpenFoodFactsMirrorProductRepository offRepository;
+    private final UsdaMirrorFoodRepository usdaRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${food-mirror.enabled:true}")
+    private boolean enabled;
+
+    public Optional<OpenFoodFactsProductDTO> findOpenFoodFactsProduct(String barcode) {
+        if (!enabled || barcode == null)
+            return Optional.empty();
+        try {
+            return offRepository.findById(barcode)
+                    .map(product -> read(product.getPayload(), OpenFoodFactsProductDTO.class));
+        } catch (DataAccessException e) {
+            log.warn("Food mirror lookup failed for barcode {}: {}", barcode, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public Optional<UsdaFoodDTO> findUsdaFood(Long fdcId) {
+        if (!enabled || fdcId == null)
+            return Optional.empty();
+        try {
+            return usdaRepository.findById(fdcId)
+                    .map(food -> read(food.getPayload(), UsdaFoodDTO.class));
+        } catch (DataAccessException e) {
+            log.warn("Food mirror lookup failed for FDC ID {}: {}", fdcId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Alimentos cuya descripción contiene todas las palabras de la consulta.
+     * Se filtra en base de datos por la palabra más larga y el resto en memoria.
+     */
+    public List<UsdaFoodDTO> searchUsdaFoods(String query, int limit) {
+        List<String> tokens = SearchText.tokens(query);
+        if (!enabled || tokens.isEmpty())
+            return List.of();
+        String longest = tokens.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        try {
+            List<UsdaFoodDTO> result = new ArrayList<>();
+            usdaRepository.searchByText(longest, Limit.of(limit * 4)).stream()
+                    .filter(food -> tokens.stream().allMatch(food.getSearchText()::contains))
+                    .limit(limit)
+                    .forEach(food -> result.add(read(food.getPayload(), UsdaFoodDTO.class)));
+            return result;
+        } catch (DataAccessException e) {
+            log.warn("Food mirror search failed for '{}': {}", query, e.getMessage());
+            return List.of();
+        }
+    }
+
+    public long countOpenFoodFactsProducts() {
+        return offRepository.count();
+    }
+
+    public long countUsdaFoods() {
+        return usdaRepository.count();
+    }
+
+    private <T> T read(String payload, Class<T> type) {
+        try {
+            return objectMapper.readValue(payload, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt food mirror payload", e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.trazia.trazia_project.service.external;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de un cliente HTTP (RestTemplate): peticiones, errores, llamadas
+ * en curso, latencia hasta recibir las cabeceras y respuestas comprimidas.
+ * Debe ir por dentro de GzipResponseInterceptor, que quita el Content-Encoding.
+ *
+ * Se crean a través de HttpClientMetricsRegistry para poder consultarlos.
+ */
+public final class HttpClientMetrics implements ClientHttpRequestInterceptor {
+
+    private final String name;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder totalLatencyMs = new LongAdder();
+    private final AtomicLong maxLatencyMs = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    HttpClientMetrics(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        requests.increment();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        long start = System.nanoTime();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getStatusCode().isError())
+                errors.increment();
+            if (response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING))
+                compressedResponses.increment();
+            return response;
+        } catch (IOException | RuntimeException e) {
+            errors.increment();
+            throw e;
+        } finally {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            totalLatencyMs.add(millis);
+            maxLatencyMs.accumulateAndGet(millis, Math::max);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /** Respuestas que llegaron comprimidas (antes de descomprimirlas) */
+    public long getCompressedResponses() {
+        return compressedResponses.sum();
+    }
+
+    public double getAverageLatencyMs() {
+        long count = requests.sum();
+        return count == 0 ? 0 : (double) totalLatencyMs.sum() / count;
+    }
+
+    public long getMaxLatencyMs() {
+        return maxLatencyMs.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+}
@@ -0,0 +1,38 @@
+package com.trazia.trazia_project.service.external;
+
+import com.trazia.trazia_project.dto.external.HttpClientStatsResponse;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Crea y guarda los HttpClientMetrics de los clientes HTTP externos.
+ */
+@Component
+public class HttpClientMetricsRegistry {
+
+    private final Map<String, HttpClientMetrics> clients = new ConcurrentHashMap<>();
+
+    public HttpClientMetrics create(String name) {
+        return clients.computeIfAbsent(name, HttpClientMetrics::new);
+    }
+
+    public List<HttpClientStatsResponse> stats() {
+        return clients.values().stream()
+                .map(client -> HttpClientStatsResponse.builder()
+                        .name(client.getName())
+                        .requests(client.getRequests())
+                        .errors(client.getErrors())
+                        .compressedResponses(client.getCompressedResponses())
+                        .averageLatencyMs(client.getAverageLatencyMs())
+                        .maxLatencyMs(client.getMaxLatencyMs())
+                        .inFlight(client.getInFlight())
+                        .peakInFlight(client.getPeakInFlight())
+                        .build())
+                .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                .toList();
+    }
+}
@@ -0,0 +1,115 @@
+package com.trazia.trazia_project.service.external;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Agrupa en una sola llamada al proveedor las claves pedidas dentro de una
+ * ventana corta (micro-batching).
+ *
+ * La primera clave abre la ventana; el lote sale al cerrarse la ventana o en
+ * cuanto alcanza maxBatchSize. Cada llamante recibe el valor de su clave, null
+ * si el proveedor no lo devolvió, o el error del lote completo.
+ */
+@Slf4j
+public final class MicroBatcher<K, V> implements AutoCloseable {
+
+    private final String name;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Function<List<K>, Map<K, V>> loader;
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Protegidos por this
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> flushTask;
+
+    public MicroBatcher(String name, Duration window, int maxBatchSize, Function<List<K>, Map<K, V>> loader) {
+        this.name = name;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.loader = loader;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name + "-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Añade la clave al lote en curso (o se une a la petición ya pendiente
+     * de la misma clave).
+     */
+    public CompletableFuture<V> submit(K key) {
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            future = pending.get(key);
+            if (future != null)
+                return future;
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+            if (pending.size() >= maxBatchSize) {
+                full = takePending();
+            } else if (flushTask == null) {
+                flushTask = timer.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null)
+            dispatch(full);
+        return future;
+    }
+
+    private void flush() {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty())
+            dispatch(batch);
+    }
+
+    /** Llamar con el lock tomado */
+    private Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        workers.execute(() -> {
+            List<K> keys = new ArrayList<>(batch.keySet());
+            log.debug("{}: loading batch of {} keys", name, keys.size());
+            try {
+                Map<K, V> values = loader.apply(keys);
+                batch.forEach((key, future) -> future.complete(values.get(key)));
+            } catch (RuntimeException | Error e) {
+                batch.values().forEach(future -> future.completeExceptionally(e));
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        workers.shutdown();
+    }
+}
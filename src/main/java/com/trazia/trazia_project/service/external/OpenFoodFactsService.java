@@ -1,27 +1,69 @@
 package com.trazia.trazia_project.service.external;
 
+import com.trazia.trazia_project.config.CacheNames;
+import com.trazia.trazia_project.config.CacheRefresher;
 import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsProductDTO;
 import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsResponseDTO;
 import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsSearchResultDTO;
+import com.trazia.trazia_project.exception.external.UpstreamUnavailableException;
 import com.trazia.trazia_project.exception.product.OpenFoodFactsApiException;
 import com.trazia.trazia_project.exception.product.ProductNotFoundException;
 
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+/**
+ * Cliente de Open Food Facts totalmente no bloqueante.
+ *
+ * Los métodos devuelven un Mono y nunca llaman a block(): la petición HTTP, los
+ * reintentos y el timeout corren sobre el event loop de WebClient, de modo que
+ * una lentitud de Open Food Facts no retiene hilos de Tomcat. Los controladores
+ * devuelven el Mono directamente (Spring MVC lo atiende como petición asíncrona).
+ *
+ * Las respuestas correctas se cachean con @Cacheable, que con el
+ * CacheManager en modo asíncrono guarda el valor resuelto del Mono. Detrás de
+ * la caché, las peticiones concurrentes con la misma clave se agrupan en una
+ * única llamada (SingleFlight), y los códigos de barras se buscan primero en el
+ * espejo local (FoodMirrorService) antes de salir a Internet. Los códigos que
+ * Open Food Facts no conoce se guardan en una caché negativa.
+ *
+ * Cada intento HTTP pasa por un UpstreamGuard (circuit breaker, límite de
+ * llamadas simultáneas y timeout adaptativo). Con la API caída o saturada, los
+ * códigos de barras se sirven desde la copia caducada de L2 si existe.
+ */
 @Service
 @Slf4j
-public class OpenFoodFactsService {
+public class OpenFoodFactsService implements CacheRefresher {
     
     private final WebClient webClient;
+
+    /** Escaneos simultáneos del mismo código comparten una sola llamada */
+    private final SingleFlight<String, OpenFoodFactsProductDTO> barcodeFlight;
+    private final SingleFlight<String, OpenFoodFactsSearchResultDTO> searchFlight;
+
+    private final UpstreamGuard upstreamGuard;
+
+    private final FoodMirrorService foodMirrorService;
+    private final ExternalCacheStore externalCacheStore;
+
+    /** Códigos que Open Food Facts no conoce: no se vuelven a consultar durante su TTL */
+    private final Cache notFoundCache;
     
     @Value("${openfoodfacts.api.user-agent}")
     private String userAgent;
@@ -32,7 +74,12 @@ public class OpenFoodFactsService {
     @Value("${openfoodfacts.api.retry-delay-seconds:2}")
     private int retryDelaySeconds;
     
-    public OpenFoodFactsService(@Value("${openfoodfacts.api.url}") @NonNull String baseUrl) {
+    public OpenFoodFactsService(@Value("${openfoodfacts.api.url}") @NonNull String baseUrl,
+                                SingleFlightRegistry singleFlightRegistry,
+                                UpstreamGuardRegistry upstreamGuardRegistry,
+                                FoodMirrorService foodMirrorService,
+                                ExternalCacheStore externalCacheStore,
+                                CacheManager cacheManager) {
         // Aumentar límite de buffer a 10 MB
         ExchangeStrategies strategies = ExchangeStrategies.builder()
             .codecs(configurer -> configurer
@@ -44,100 +91,164 @@ public class OpenFoodFactsService {
             .baseUrl(baseUrl)
             .exchangeStrategies(strategies)
             .build();
+        this.barcodeFlight = singleFlightRegistry.create("openFoodFacts.barcode");
+        this.searchFlight = singleFlightRegistry.create("openFoodFacts.search");
+        this.upstreamGuard = upstreamGuardRegistry.create("openFoodFacts");
+        this.foodMirrorService = foodMirrorService;
+        this.externalCacheStore = externalCacheStore;
+        this.notFoundCache = Objects.requireNonNull(cacheManager.getCache(CacheNames.OPEN_FOOD_FACTS_NOT_FOUND));
     }
     
     /**
      * Busca un producto en Open Food Facts por código de barras.
      * @param barcode Código de barras del producto.
-     * @return DTO con la información del producto.
-     * @throws IllegalArgumentException si el código de barras es nulo o vacío.
-     * @throws ProductNotFoundException si el producto no se encuentra.
-     * @throws OpenFoodFactsApiException si ocurre un error en la llamada a la API.
+     * @return Mono con la información del producto. Termina con error
+     *         IllegalArgumentException si el código de barras es nulo o vacío,
+     *         ProductNotFoundException si el producto no existe y
+     *         OpenFoodFactsApiException si falla la llamada a la API.
      */
-    @Cacheable(value = "openFoodFactsProducts", key = "#barcode")
-    public OpenFoodFactsProductDTO searchByBarcode(String barcode) {
+    @Cacheable(value = CacheNames.OPEN_FOOD_FACTS_PRODUCTS, key = "#barcode")
+    public Mono<OpenFoodFactsProductDTO> searchByBarcode(String barcode) {
         if (barcode == null || barcode.isBlank()) {
-            throw new IllegalArgumentException("Barcode cannot be null or empty");
+            return Mono.error(new IllegalArgumentException("Barcode cannot be null or empty"));
+        }
+        if (notFoundCache.get(barcode) != null) {
+            log.debug("Barcode {} is cached as not found", barcode);
+            return Mono.error(new ProductNotFoundException(barcode));
         }
+
+        return lookupBarcode(barcode)
+            .doOnError(ProductNotFoundException.class, e -> notFoundCache.put(barcode, Boolean.TRUE));
+    }
+
+    /**
+     * Recarga anticipada de openFoodFactsProducts (refresh-after-write).
+     */
+    @Override
+    public String cacheName() {
+        return CacheNames.OPEN_FOOD_FACTS_PRODUCTS;
+    }
+
+    @Override
+    public CompletableFuture<Object> reload(Object key, Executor executor) {
+        // La recarga no pasa por L2, que tendría el mismo valor que se quiere renovar
+        return loadBarcode((String) key).<Object>map(product -> product).toFuture();
+    }
+
+    /**
+     * Fallo de L1: caché persistente (L2) y, si no está, loadBarcode.
+     * Las consultas JPA se hacen fuera del event loop.
+     */
+    private Mono<OpenFoodFactsProductDTO> lookupBarcode(String barcode) {
+        return Mono.fromCallable(() -> externalCacheStore.getOpenFoodFactsProduct(barcode))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(Mono::justOrEmpty)
+            .switchIfEmpty(Mono.defer(() -> loadBarcode(barcode)));
+    }
+
+    /**
+     * Espejo local y, si no está, la API (cuya respuesta se guarda en L2).
+     * Si la API no responde, la copia caducada de L2 antes que un error.
+     */
+    private Mono<OpenFoodFactsProductDTO> loadBarcode(String barcode) {
+        return barcodeFlight.callMono(barcode, () -> Mono.fromCallable(() -> foodMirrorService.findOpenFoodFactsProduct(barcode))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(Mono::justOrEmpty)
+            .switchIfEmpty(Mono.defer(() -> fetchByBarcode(barcode)
+                .doOnNext(product -> externalCacheStore.putOpenFoodFactsProduct(barcode, product))))
+            .onErrorResume(e -> e instanceof UpstreamUnavailableException || e instanceof OpenFoodFactsApiException,
+                e -> staleBarcode(barcode, e)));
+    }
+
+    private Mono<OpenFoodFactsProductDTO> staleBarcode(String barcode, Throwable error) {
+        return Mono.fromCallable(() -> externalCacheStore.getStaleOpenFoodFactsProduct(barcode))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(Mono::justOrEmpty)
+            .doOnNext(product -> log.warn("Serving stale Open Food Facts product {}: {}", barcode, error.getMessage()))
+            .switchIfEmpty(Mono.error(error));
+    }
+
+    private Mono<OpenFoodFactsProductDTO> fetchByBarcode(String barcode) {
         long start = System.currentTimeMillis();
         log.info("Searching Open Food Facts for barcode: {}", barcode);
-        
-        try {
-            OpenFoodFactsResponseDTO response = webClient.get()
+
+        return upstreamGuard.callMono(() -> webClient.get()
                 .uri("/api/v0/product/{barcode}.json", barcode)
                 .header("User-Agent", userAgent)
                 .retrieve()
-                .bodyToMono(OpenFoodFactsResponseDTO.class)
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(retryDelaySeconds))
-                    .maxBackoff(Duration.ofSeconds(4))
-                    .filter(throwable -> !(throwable instanceof ProductNotFoundException)))
-                .timeout(Duration.ofSeconds(apiTimeoutSeconds))
-                .block();
-            
-            log.info("OpenFoodFacts barcode lookup took {} ms", System.currentTimeMillis() - start);
-            
-            if (response == null || response.getStatus() == 0 || response.getProduct() == null) {
+                .bodyToMono(OpenFoodFactsResponseDTO.class))
+            .retryWhen(retrySpec())
+            .timeout(Duration.ofSeconds(apiTimeoutSeconds))
+            .doOnTerminate(() -> log.info("OpenFoodFacts barcode lookup took {} ms",
+                System.currentTimeMillis() - start))
+            .onErrorMap(e -> !(e instanceof UpstreamUnavailableException), e -> {
+                log.error("Error calling Open Food Facts API for barcode {}: {}", barcode, e.getMessage());
+                return new OpenFoodFactsApiException("Failed to search product", e);
+            })
+            .filter(response -> response.getStatus() != 0 && response.getProduct() != null)
+            .switchIfEmpty(Mono.defer(() -> {
                 log.warn("Product not found in Open Food Facts: {}", barcode);
-                throw new ProductNotFoundException(barcode);
-            }
-            
-            log.info("Product found in Open Food Facts: {}", response.getProduct().getProductName());
-            return response.getProduct();
-            
-        } catch (Exception e) {
-            if (e instanceof ProductNotFoundException pnf) throw pnf;
-            log.error("Error calling Open Food Facts API for barcode {}: {}", barcode, e.getMessage());
-            throw new OpenFoodFactsApiException("Failed to search product", e);
-        }
+                return Mono.error(new ProductNotFoundException(barcode));
+            }))
+            .map(response -> {
+                log.info("Product found in Open Food Facts: {}", response.getProduct().getProductName());
+                return response.getProduct();
+            });
     }
     
     /**
      * Busca productos en Open Food Facts por nombre.
      * @param query Término de búsqueda.
      * @param pageSize Tamaño de página máximo 100.
-     * @return Resultado de búsqueda con lista de productos.
-     * @throws IllegalArgumentException si la consulta es nula o vacía.
-     * @throws OpenFoodFactsApiException si ocurre un error en la llamada a la API.
+     * @return Mono con el resultado de búsqueda. Termina con error
+     *         IllegalArgumentException si la consulta es nula o vacía y
+     *         OpenFoodFactsApiException si falla la llamada a la API.
      */
-    @Cacheable(value = "openFoodFactsSearch", key = "#query + '_' + #pageSize")
-    public OpenFoodFactsSearchResultDTO searchByName(String query, int pageSize) {
+    @Cacheable(value = CacheNames.OPEN_FOOD_FACTS_SEARCH, key = "#query + '_' + #pageSize")
+    public Mono<OpenFoodFactsSearchResultDTO> searchByName(String query, int pageSize) {
         if (query == null || query.isBlank()) {
-            throw new IllegalArgumentException("Search query cannot be null or empty");
+            return Mono.error(new IllegalArgumentException("Search query cannot be null or empty"));
         }
-        long start = System.currentTimeMillis();
-        log.info("Searching Open Food Facts for query: {}", query);
         
         final int finalPageSize = Math.min(pageSize, 100);
         
-        try {
-            OpenFoodFactsSearchResultDTO result = webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                    .path("/cgi/search.pl")
-                    .queryParam("search_terms", query)
-                    .queryParam("page_size", finalPageSize)
-                    .queryParam("json", 1)
-                    .build())
-                .header("User-Agent", userAgent)
-                .retrieve()
-                .bodyToMono(OpenFoodFactsSearchResultDTO.class)
-                .retryWhen(Retry.backoff(3, Duration.ofSeconds(retryDelaySeconds)))
+        return searchFlight.callMono(query + "_" + finalPageSize, () -> {
+            long start = System.currentTimeMillis();
+            log.info("Searching Open Food Facts for query: {}", query);
+
+            return upstreamGuard.callMono(() -> webClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                        .path("/cgi/search.pl")
+                        .queryParam("search_terms", query)
+                        .queryParam("page_size", finalPageSize)
+                        .queryParam("json", 1)
+                        .build())
+                    .header("User-Agent", userAgent)
+                    .retrieve()
+                    .bodyToMono(OpenFoodFactsSearchResultDTO.class))
+                .retryWhen(retrySpec())
                 .timeout(Duration.ofSeconds(apiTimeoutSeconds))
-                .block();
-            
-            log.info("OpenFoodFacts name search took {} ms", System.currentTimeMillis() - start);
-            
-            if (result == null) {
-                throw new OpenFoodFactsApiException("No response received from Open Food Facts");
-            }
-            
-            log.info("Found {} products for query: {}", 
-                result.getCount(), query);
-            
-            return result;
-            
-        } catch (Exception e) {
-            log.error("Error searching Open Food Facts for query {}: {}", query, e.getMessage());
-            throw new OpenFoodFactsApiException("Failed to search by name", e);
-        }
+                .doOnTerminate(() -> log.info("OpenFoodFacts name search took {} ms",
+                    System.currentTimeMillis() - start))
+                .switchIfEmpty(Mono.error(() -> new OpenFoodFactsApiException("No response received from Open Food Facts")))
+                .doOnNext(result -> log.info("Found {} products for query: {}", result.getCount(), query))
+                .onErrorMap(e -> !(e instanceof OpenFoodFactsApiException || e instanceof UpstreamUnavailableException), e -> {
+                    log.error("Error searching Open Food Facts for query {}: {}", query, e.getMessage());
+                    return new OpenFoodFactsApiException("Failed to search by name", e);
+                });
+        });
+    }
+
+    /**
+     * Reintentos con backoff solo para fallos transitorios: los 4xx (código
+     * inválido, petición mal formada) no mejoran repitiendo la llamada, y con
+     * el circuito abierto se falla en el acto.
+     */
+    private Retry retrySpec() {
+        return Retry.backoff(3, Duration.ofSeconds(retryDelaySeconds))
+            .maxBackoff(Duration.ofSeconds(4))
+            .filter(throwable -> !(throwable instanceof UpstreamUnavailableException)
+                && !(throwable instanceof WebClientResponseException ex
+                    && ex.getStatusCode().is4xxClientError()));
     }
 }
@@ -0,0 +1,135 @@
+package com.trazia.trazia_project.service.external;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupación de llamadas concurrentes idénticas (single-flight).
+ *
+ * Mientras hay una llamada en curso para una clave, las peticiones que llegan
+ * con la misma clave no salen al proveedor externo: esperan a la primera y
+ * reciben su mismo resultado (o su mismo error). Al terminar, la clave se
+ * libera y la siguiente petición vuelve a llamar (normalmente ya la sirve la
+ * caché que hay delante).
+ *
+ * Se crean a través de SingleFlightRegistry para poder consultar sus contadores.
+ */
+public final class SingleFlight<K, V> {
+
+    private final String name;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder upstreamCalls = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+
+    SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Versión bloqueante: el primer hilo ejecuta la llamada, el resto espera
+     * su resultado. Las excepciones del proveedor llegan tal cual a todos.
+     */
+    public V call(K key, Supplier<V> upstream) {
+        requests.increment();
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            coalescedCalls.increment();
+            return join(existing);
+        }
+
+        upstreamCalls.increment();
+        try {
+            V value = upstream.get();
+            inFlight.remove(key, promise);
+            promise.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, promise);
+            promise.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Versión reactiva: la llamada al proveedor se suscribe una sola vez por
+     * clave y todos los suscriptores comparten su resultado. Cancelar una
+     * petición no cancela la llamada compartida.
+     */
+    public Mono<V> callMono(K key, Supplier<Mono<V>> upstream) {
+        return Mono.defer(() -> {
+            requests.increment();
+            CompletableFuture<V> promise = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+            if (existing != null) {
+                coalescedCalls.increment();
+                return Mono.fromFuture(existing, true);
+            }
+
+            upstreamCalls.increment();
+            Mono<V> source;
+            try {
+                source = upstream.get();
+            } catch (RuntimeException e) {
+                source = Mono.error(e);
+            }
+            source.subscribe(
+                    value -> {
+                        inFlight.remove(key, promise);
+                        promise.complete(value);
+                    },
+                    error -> {
+                        inFlight.remove(key, promise);
+                        promise.completeExceptionally(error);
+                    },
+                    () -> {
+                        // Mono vacío: se propaga como vacío
+                        inFlight.remove(key, promise);
+                        promise.complete(null);
+                    });
+            return Mono.fromFuture(promise, true);
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getUpstreamCalls() {
+        return upstreamCalls.sum();
+    }
+
+    /** Llamadas externas ahorradas: peticiones servidas por una llamada ya en curso */
+    public long getCoalescedCalls() {
+        return coalescedCalls.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime)
+                throw runtime;
+            if (cause instanceof Error error)
+                throw error;
+            throw e;
+        }
+    }
+}
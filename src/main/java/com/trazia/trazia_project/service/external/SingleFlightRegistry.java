@@ -0,0 +1,37 @@
+package com.trazia.trazia_project.service.external;
+
+import com.trazia.trazia_project.dto.external.SingleFlightStatsResponse;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Crea y guarda los SingleFlight de los clientes externos para exponer sus
+ * contadores (llamadas reales frente a llamadas ahorradas).
+ */
+@Component
+public class SingleFlightRegistry {
+
+    private final Map<String, SingleFlight<?, ?>> flights = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <K, V> SingleFlight<K, V> create(String name) {
+        return (SingleFlight<K, V>) flights.computeIfAbsent(name, SingleFlight::new);
+    }
+
+    public List<SingleFlightStatsResponse> stats() {
+        return flights.values().stream()
+                .map(flight -> SingleFlightStatsResponse.builder()
+                        .name(flight.getName())
+                        .requests(flight.getRequests())
+                        .upstreamCalls(flight.getUpstreamCalls())
+                        .savedCalls(flight.getCoalescedCalls())
+                        .inFlight(flight.getInFlight())
+                        .build())
+                .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                .toList();
+    }
+}
@@ -1,6 +1,7 @@
 package com.trazia.trazia_project.service.external;
 
 import com.trazia.trazia_project.dto.recipe.*;
+import com.trazia.trazia_project.exception.external.UpstreamUnavailableException;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,22 +16,36 @@ public class SpoonacularService {
     private final WebClient webClient;
     private final String apiKey;
 
+    /** Análisis simultáneos de la misma lista de ingredientes comparten una sola llamada */
+    private final SingleFlight<List<String>, DietaryAnalysis> analysisFlight;
+
+    /** Circuit breaker, límite de llamadas simultáneas y timeout adaptativo */
+    private final UpstreamGuard upstreamGuard;
+
     private static final String API_URL = "https://api.spoonacular.com/recipes/analyze";
 
-    public SpoonacularService(@Value("${spoonacular.api.key}") String apiKey) {
+    public SpoonacularService(@Value("${spoonacular.api.key}") String apiKey,
+                              SingleFlightRegistry singleFlightRegistry,
+                              UpstreamGuardRegistry upstreamGuardRegistry) {
         this.webClient = WebClient.builder().baseUrl(API_URL).build();
         this.apiKey = apiKey;
+        this.analysisFlight = singleFlightRegistry.create("spoonacular.analysis");
+        this.upstreamGuard = upstreamGuardRegistry.create("spoonacular");
     }
 
     public DietaryAnalysis getDietaryAnalysis(List<String> ingredientLines) {
+        return analysisFlight.call(List.copyOf(ingredientLines), () -> fetchDietaryAnalysis(ingredientLines));
+    }
+
+    private DietaryAnalysis fetchDietaryAnalysis(List<String> ingredientLines) {
         try {
             SpoonacularRequest request = new SpoonacularRequest(ingredientLines);
 
-            SpoonacularResponse response = webClient.post()
+            SpoonacularResponse response = upstreamGuard.callMono(() -> webClient.post()
                     .uri(uriBuilder -> uriBuilder.queryParam("apiKey", apiKey).build())
                     .bodyValue(request)
                     .retrieve()
-                    .bodyToMono(SpoonacularResponse.class)
+                    .bodyToMono(SpoonacularResponse.class))
                     .block();
 
             if (response == null) {
@@ -47,6 +62,8 @@ public class SpoonacularService {
                     .healthScore(String.valueOf(response.getHealthScore()))
                     .build();
 
+        } catch (UpstreamUnavailableException ex) {
+            throw ex;
         } catch (Exception ex) {
             log.error("Error al conectar con Spoonacular API: {}", ex.getMessage(), ex);
             throw new RuntimeException("Fallo al obtener análisis dietético desde Spoonacular", ex);
@@ -0,0 +1,395 @@
+package com.trazia.trazia_project.service.external;
+
+import com.trazia.trazia_project.exception.external.UpstreamUnavailableException;
+import com.trazia.trazia_project.exception.product.ProductNotFoundException;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Capa de resiliencia de una API externa (upstream):
+ *
+ * - Circuit breaker por ventana de las últimas llamadas: si el porcentaje de
+ *   fallos supera el umbral se abre y rechaza las llamadas durante
+ *   openDuration; después deja pasar unas pocas de prueba (semiabierto) y se
+ *   cierra si todas van bien.
+ * - Bulkhead: máximo de llamadas simultáneas; las que no caben se rechazan
+ *   al momento en lugar de esperar.
+ * - Timeout adaptativo: p99 de las últimas latencias correctas por un
+ *   multiplicador, acotado entre minTimeout y maxTimeout (maxTimeout mientras
+ *   no hay muestras suficientes).
+ * - Histograma de latencias y contadores para /api/external/stats/upstreams.
+ *
+ * Las llamadas rechazadas terminan con UpstreamUnavailableException. Los
+ * errores de negocio (no encontrado, 4xx salvo 429) no cuentan como fallos.
+ */
+@Slf4j
+public final class UpstreamGuard {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /** Límites superiores (ms) de los buckets del histograma; el último es +Inf */
+    static final long[] LATENCY_BUCKETS_MS = { 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final String name;
+    private final Settings settings;
+    private final Semaphore bulkhead;
+
+    // Circuit breaker (protegido por this)
+    private State state = State.CLOSED;
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    // Latencias (protegido por latencies)
+    private final long[] latencies;
+    private int latencyIndex;
+    private int latencyCount;
+
+    private final LongAdder[] histogram = new LongAdder[LATENCY_BUCKETS_MS.length + 1];
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejectedOpen = new LongAdder();
+    private final LongAdder rejectedBulkhead = new LongAdder();
+
+    /**
+     * Configuración de un upstream.
+     */
+    public record Settings(int slidingWindowSize, int minimumCalls, double failureRateThreshold,
+            Duration openDuration, int halfOpenCalls, int maxConcurrentCalls,
+            Duration minTimeout, Duration maxTimeout, double timeoutMultiplier, int latencySamples) {
+    }
+
+    UpstreamGuard(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.bulkhead = new Semaphore(settings.maxConcurrentCalls());
+        this.window = new boolean[settings.slidingWindowSize()];
+        this.latencies = new long[settings.latencySamples()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    // ===========================
+    // LLAMADAS
+    // ===========================
+
+    /**
+     * Llamada reactiva: cada suscripción (también cada reintento) es un intento
+     * protegido, con el timeout adaptativo vigente.
+     */
+    public <T> Mono<T> callMono(Callable<Mono<T>> call) {
+        return Mono.defer(() -> {
+            acquire();
+            long start = System.nanoTime();
+            Duration timeout = currentTimeout();
+            Mono<T> source;
+            try {
+                source = call.call();
+            } catch (Exception e) {
+                source = Mono.error(e);
+            }
+            return source
+                    .timeout(timeout)
+                    .doOnSuccess(value -> onSuccess(System.nanoTime() - start))
+                    .doOnError(error -> onError(error))
+                    .doOnCancel(this::onCancel)
+                    .doFinally(signal -> release());
+        });
+    }
+
+    /**
+     * Llamada bloqueante: se ejecuta en el executor (hilos virtuales) y el
+     * llamante espera como mucho el timeout adaptativo. El permiso del bulkhead
+     * se mantiene hasta que la llamada real termina, para no acumular llamadas
+     * abandonadas por encima del límite.
+     */
+    public <T> T call(Callable<T> call, ExecutorService executor) {
+        acquire();
+        long start = System.nanoTime();
+        Duration timeout = currentTimeout();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    return call.call();
+                } finally {
+                    release();
+                }
+            });
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+
+        try {
+            T value = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            onSuccess(System.nanoTime() - start);
+            return value;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            TimeoutException timeoutError = new TimeoutException(name + " did not answer within " + timeout.toMillis() + " ms");
+            onError(timeoutError);
+            throw new IllegalStateException(timeoutError.getMessage(), timeoutError);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            onError(e);
+            throw new IllegalStateException("Interrupted while calling " + name, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            onError(cause);
+            if (cause instanceof RuntimeException runtime)
+                throw runtime;
+            throw new IllegalStateException(cause.getMessage(), cause);
+        }
+    }
+
+    // ===========================
+    // CIRCUIT BREAKER Y BULKHEAD
+    // ===========================
+
+    private void acquire() {
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() - openedAt < settings.openDuration().toMillis()) {
+                    rejectedOpen.increment();
+                    throw new UpstreamUnavailableException(name, name + " circuit breaker is open");
+                }
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenInFlight >= settings.halfOpenCalls()) {
+                    rejectedOpen.increment();
+                    throw new UpstreamUnavailableException(name, name + " circuit breaker is half-open");
+                }
+                halfOpenInFlight++;
+            }
+        }
+        if (!bulkhead.tryAcquire()) {
+            synchronized (this) {
+                if (state == State.HALF_OPEN)
+                    halfOpenInFlight--;
+            }
+            rejectedBulkhead.increment();
+            throw new UpstreamUnavailableException(name, name + " has too many concurrent calls");
+        }
+    }
+
+    private void release() {
+        bulkhead.release();
+    }
+
+    private void onSuccess(long elapsedNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        successes.increment();
+        recordLatency(millis);
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+                if (++halfOpenSuccesses >= settings.halfOpenCalls())
+                    transition(State.CLOSED);
+            } else {
+                recordOutcome(false);
+            }
+        }
+    }
+
+    /** Un intento cancelado (p. ej. por el timeout externo) no cuenta como resultado */
+    private synchronized void onCancel() {
+        if (state == State.HALF_OPEN)
+            halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+    }
+
+    private void onError(Throwable error) {
+        if (!isFailure(error)) {
+            synchronized (this) {
+                if (state == State.HALF_OPEN)
+                    halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            }
+            return;
+        }
+        failures.increment();
+        if (error instanceof TimeoutException)
+            timeouts.increment();
+        synchronized (this) {
+            if (state == State.HALF_OPEN) {
+                transition(State.OPEN);
+            } else {
+                recordOutcome(true);
+                if (windowCount >= settings.minimumCalls()
+                        && windowFailures * 100.0 / windowCount >= settings.failureRateThreshold())
+                    transition(State.OPEN);
+            }
+        }
+    }
+
+    /** Añade el resultado a la ventana circular (llamar con el lock tomado) */
+    private void recordOutcome(boolean failed) {
+        if (windowCount == window.length) {
+            if (window[windowIndex])
+                windowFailures--;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failed;
+        if (failed)
+            windowFailures++;
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    /** Cambia de estado y reinicia la ventana (llamar con el lock tomado) */
+    private void transition(State next) {
+        if (state == next)
+            return;
+        log.warn("Circuit breaker for {}: {} -> {}", name, state, next);
+        state = next;
+        halfOpenInFlight = 0;
+        halfOpenSuccesses = 0;
+        if (next == State.OPEN)
+            openedAt = System.currentTimeMillis();
+        if (next == State.CLOSED) {
+            Arrays.fill(window, false);
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+        }
+    }
+
+    /**
+     * Errores que indican un upstream caído o lento. Las respuestas de negocio
+     * (no encontrado, petición inválida) demuestran que el upstream responde.
+     */
+    static boolean isFailure(Throwable error) {
+        if (error instanceof UpstreamUnavailableException || error instanceof ProductNotFoundException
+                || error instanceof IllegalArgumentException)
+            return false;
+        if (error instanceof WebClientResponseException response)
+            return !response.getStatusCode().is4xxClientError() || response.getStatusCode().value() == 429;
+        if (error instanceof HttpStatusCodeException response)
+            return !response.getStatusCode().is4xxClientError() || response.getStatusCode().value() == 429;
+        return true;
+    }
+
+    // ===========================
+    // LATENCIAS Y TIMEOUT
+    // ===========================
+
+    private void recordLatency(long millis) {
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS_MS.length && millis > LATENCY_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        histogram[bucket].increment();
+        synchronized (latencies) {
+            latencies[latencyIndex] = millis;
+            latencyIndex = (latencyIndex + 1) % latencies.length;
+            latencyCount = Math.min(latencyCount + 1, latencies.length);
+        }
+    }
+
+    /**
+     * Percentil (0-100) de las últimas latencias correctas, o -1 sin muestras.
+     */
+    public long latencyPercentile(double percentile) {
+        long[] sorted;
+        synchronized (latencies) {
+            if (latencyCount == 0)
+                return -1;
+            sorted = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public Duration currentTimeout() {
+        int samples;
+        synchronized (latencies) {
+            samples = latencyCount;
+        }
+        if (samples < MIN_LATENCY_SAMPLES)
+            return settings.maxTimeout();
+        long adaptive = (long) (latencyPercentile(99) * settings.timeoutMultiplier());
+        long millis = Math.max(settings.minTimeout().toMillis(), Math.min(settings.maxTimeout().toMillis(), adaptive));
+        return Duration.ofMillis(millis);
+    }
+
+    // ===========================
+    // MÉTRICAS
+    // ===========================
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0 : windowFailures * 100.0 / windowCount;
+    }
+
+    public int getInFlight() {
+        return settings.maxConcurrentCalls() - bulkhead.availablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return settings.maxConcurrentCalls();
+    }
+
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getRejectedOpen() {
+        return rejectedOpen.sum();
+    }
+
+    public long getRejectedBulkhead() {
+        return rejectedBulkhead.sum();
+    }
+
+    /** Recuento por bucket, alineado con LATENCY_BUCKETS_MS más el bucket +Inf */
+    public long[] getLatencyHistogram() {
+        long[] counts = new long[histogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,101 @@
+package com.trazia.trazia_project.service.external;
+
+import com.trazia.trazia_project.dto.external.UpstreamStatsResponse;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Crea y guarda los UpstreamGuard de los clientes externos.
+ *
+ * Cada upstream se configura con external.resilience.<nombre>.*; lo que no se
+ * indique toma el valor de external.resilience.default.* y, si tampoco está,
+ * el valor por defecto de este registro.
+ */
+@Component
+public class UpstreamGuardRegistry {
+
+    private static final String PREFIX = "external.resilience.";
+
+    private final Environment environment;
+    private final Map<String, UpstreamGuard> guards = new ConcurrentHashMap<>();
+
+    /** Ejecuta las llamadas bloqueantes protegidas para poder abandonarlas al vencer el timeout */
+    private final ExecutorService blockingExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public UpstreamGuardRegistry(Environment environment) {
+        this.environment = environment;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        blockingExecutor.shutdownNow();
+    }
+
+    public UpstreamGuard create(String name) {
+        return guards.computeIfAbsent(name, key -> new UpstreamGuard(key, settings(key)));
+    }
+
+    public ExecutorService blockingExecutor() {
+        return blockingExecutor;
+    }
+
+    public List<UpstreamStatsResponse> stats() {
+        return guards.values().stream()
+                .map(guard -> {
+                    long[] counts = guard.getLatencyHistogram();
+                    Map<String, Long> histogram = new LinkedHashMap<>();
+                    for (int i = 0; i < counts.length; i++) {
+                        histogram.put(i < UpstreamGuard.LATENCY_BUCKETS_MS.length
+                                ? "le_" + UpstreamGuard.LATENCY_BUCKETS_MS[i] + "ms" : "le_inf", counts[i]);
+                    }
+                    return UpstreamStatsResponse.builder()
+                            .name(guard.getName())
+                            .state(guard.getState().name())
+                            .failureRate(guard.getFailureRate())
+                            .successes(guard.getSuccesses())
+                            .failures(guard.getFailures())
+                            .timeouts(guard.getTimeouts())
+                            .rejectedOpen(guard.getRejectedOpen())
+                            .rejectedBulkhead(guard.getRejectedBulkhead())
+                            .inFlight(guard.getInFlight())
+                            .maxConcurrentCalls(guard.getMaxConcurrentCalls())
+                            .currentTimeoutMs(guard.currentTimeout().toMillis())
+                            .p50Ms(guard.latencyPercentile(50))
+                            .p95Ms(guard.latencyPercentile(95))
+                            .p99Ms(guard.latencyPercentile(99))
+                            .latencyHistogram(histogram)
+                            .build();
+                })
+                .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                .toList();
+    }
+
+    private UpstreamGuard.Settings settings(String name) {
+        return new UpstreamGuard.Settings(
+                property(name, "sliding-window-size", Integer.class, 20),
+                property(name, "minimum-calls", Integer.class, 10),
+                property(name, "failure-rate-threshold", Double.class, 50.0),
+                property(name, "open-duration", Duration.class, Duration.ofSeconds(30)),
+                property(name, "half-open-calls", Integer.class, 3),
+                property(name, "max-concurrent-calls", Integer.class, 20),
+                property(name, "min-timeout", Duration.class, Duration.ofSeconds(2)),
+                property(name, "max-timeout", Duration.class, Duration.ofSeconds(15)),
+                property(name, "timeout-multiplier", Double.class, 2.0),
+                property(name, "latency-samples", Integer.class, 200));
+    }
+
+    private <T> T property(String name, String key, Class<T> type, T defaultValue) {
+        T fallback = environment.getProperty(PREFIX + "default." + key, type, defaultValue);
+        return environment.getProperty(PREFIX + name + "." + key, type, fallback);
+    }
+}
@@ -1,26 +1,54 @@
 package com.trazia.trazia_project.service.external;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
+import com.trazia.trazia_project.config.CacheNames;
+import com.trazia.trazia_project.config.CacheRefresher;
+import com.trazia.trazia_project.exception.external.UpstreamUnavailableException;
 import com.trazia.trazia_project.exception.external.UsdaApiException;
 
 import com.trazia.trazia_project.dto.external.usda.UsdaFoodDTO;
 import com.trazia.trazia_project.dto.external.usda.UsdaSearchResponseDTO;
 
+import jakarta.annotation.PreDestroy;
+
 import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Servicio para interactuar con la API de USDA FoodData Central.
+ * Consulta antes el espejo local (FoodMirrorService) y solo sale a la API si
+ * el alimento no está. Las llamadas HTTP pasan por un UpstreamGuard (circuit
+ * breaker, límite de llamadas simultáneas y timeout adaptativo); con la API
+ * caída, los alimentos se sirven desde la copia caducada de L2 si existe.
+ *
+ * El detalle de alimentos se pide por lotes (POST /foods, hasta 20 IDs): las
+ * consultas individuales que llegan dentro de una ventana corta se agrupan en
+ * una sola llamada (MicroBatcher) y cada alimento se cachea por separado.
  */
 @Slf4j
 @Service
-public class UsdaService {
+public class UsdaService implements CacheRefresher {
 
     @Value("${usda.api.key}")
     private String apiKey;
@@ -28,10 +56,48 @@ public class UsdaService {
     @Value("${usda.api.url}")
     private String apiUrl;
 
+    private static final int MAX_IDS_PER_REQUEST = 20;
+
     private final RestTemplate restTemplate;
 
-    public UsdaService(RestTemplate restTemplate) {
+    /** Búsquedas y consultas simultáneas idénticas comparten una sola llamada */
+    private final SingleFlight<String, List<UsdaFoodDTO>> searchFlight;
+    private final SingleFlight<Long, UsdaFoodDTO> foodFlight;
+
+    private final UpstreamGuard upstreamGuard;
+    private final ExecutorService guardExecutor;
+
+    /** Consultas de detalle agrupadas en llamadas POST /foods */
+    private final MicroBatcher<Long, UsdaFoodDTO> foodBatcher;
+
+    private final FoodMirrorService foodMirrorService;
+    private final ExternalCacheStore externalCacheStore;
+    private final Cache foodsCache;
+    /** Vista nativa de usdaFoods para consultar L1 sin disparar su cargador */
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> foodsL1;
+
+    public UsdaService(@Qualifier("usdaRestTemplate") RestTemplate restTemplate,
+            SingleFlightRegistry singleFlightRegistry, UpstreamGuardRegistry upstreamGuardRegistry,
+            FoodMirrorService foodMirrorService, ExternalCacheStore externalCacheStore, CacheManager cacheManager,
+            @Value("${usda.batch.window:10ms}") Duration batchWindow,
+            @Value("${usda.batch.max-size:20}") int batchMaxSize) {
         this.restTemplate = restTemplate;
+        this.upstreamGuard = upstreamGuardRegistry.create("usda");
+        this.guardExecutor = upstreamGuardRegistry.blockingExecutor();
+        this.foodMirrorService = foodMirrorService;
+        this.externalCacheStore = externalCacheStore;
+        this.searchFlight = singleFlightRegistry.create("usda.search");
+        this.foodFlight = singleFlightRegistry.create("usda.food");
+        this.foodsCache = Objects.requireNonNull(cacheManager.getCache(CacheNames.USDA_FOODS));
+        this.foodsL1 = ((CaffeineCache) foodsCache).getAsyncCache().synchronous();
+        // La API admite como mucho 20 IDs por petición
+        this.foodBatcher = new MicroBatcher<>("usda.foods", batchWindow, Math.min(batchMaxSize, MAX_IDS_PER_REQUEST),
+                this::fetchFoods);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        foodBatcher.close();
     }
 
     /**
@@ -41,13 +107,22 @@ public class UsdaService {
      * @param query Texto de búsqueda
      * @return Lista de alimentos encontrados
      */
-    @Cacheable(value = "usdaFoodSearchCache", key = "#query")
+    @Cacheable(value = CacheNames.USDA_SEARCH, key = "#query")
     public List<UsdaFoodDTO> searchFoods(String query) {
         if (query == null || query.isBlank()) {
             log.warn("Query for USDA search is empty or null");
             return List.of();
         }
 
+        // Primero el espejo local; la API solo si no hay coincidencias
+        List<UsdaFoodDTO> local = foodMirrorService.searchUsdaFoods(query, 25);
+        if (!local.isEmpty())
+            return local;
+
+        return searchFlight.call(query, () -> fetchSearch(query));
+    }
+
+    private List<UsdaFoodDTO> fetchSearch(String query) {
         try {
             log.info("Searching USDA FoodData Central for: {}", query);
 
@@ -60,7 +135,8 @@ public class UsdaService {
                     .build()
                     .toUri();
 
-            UsdaSearchResponseDTO response = restTemplate.getForObject(uri, UsdaSearchResponseDTO.class);
+            UsdaSearchResponseDTO response = upstreamGuard.call(
+                    () -> restTemplate.getForObject(uri, UsdaSearchResponseDTO.class), guardExecutor);
 
             if (response != null && response.getFoods() != null) {
                 log.info("Found {} foods in USDA database", response.getFoods().size());
@@ -70,6 +146,8 @@ public class UsdaService {
             log.warn("No foods found in USDA for query: {}", query);
             return List.of();
 
+        } catch (UpstreamUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error searching USDA FoodData Central: {}", e.getMessage(), e);
             throw new UsdaApiException("Failed to search USDA database", e);
@@ -82,27 +160,150 @@ public class UsdaService {
      * @param fdcId ID del alimento
      * @return DTO del alimento
      */
+    @Cacheable(value = CacheNames.USDA_FOODS, key = "#fdcId", condition = "#fdcId != null && #fdcId > 0")
     public UsdaFoodDTO getFoodById(Long fdcId) {
-        if (fdcId == null || fdcId <= 0) {
-            log.warn("Invalid USDA FDC ID: {}", fdcId);
-            throw new IllegalArgumentException("FDC ID must be positive and non-null");
+        validateFdcId(fdcId);
+
+        // Fallo de L1: caché persistente (L2) y, si no está, espejo o API
+        return externalCacheStore.getUsdaFood(fdcId)
+                .orElseGet(() -> loadFood(fdcId));
+    }
+
+    /**
+     * Obtiene varios alimentos con el menor número de llamadas: primero cada
+     * caché (L1, L2, espejo) por ID y el resto en lotes de la API. Cada
+     * alimento obtenido se guarda en L1 y L2 por separado.
+     *
+     * @param fdcIds IDs de los alimentos
+     * @return alimentos por ID, en el orden pedido; los que USDA no conoce no aparecen
+     */
+    public Map<Long, UsdaFoodDTO> getFoodsByIds(Collection<Long> fdcIds) {
+        Map<Long, UsdaFoodDTO> found = new HashMap<>();
+        Map<Long, UsdaFoodDTO> loaded = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        LinkedHashSet<Long> ids = new LinkedHashSet<>(fdcIds);
+        for (Long fdcId : ids) {
+            validateFdcId(fdcId);
+            // getIfPresent: Cache.get() de Spring cargaría la entrada de una en una
+            if (foodsL1.getIfPresent(fdcId) instanceof UsdaFoodDTO cached) {
+                found.put(fdcId, cached);
+                continue;
+            }
+            UsdaFoodDTO local = externalCacheStore.getUsdaFood(fdcId)
+                    .or(() -> foodMirrorService.findUsdaFood(fdcId))
+                    .orElse(null);
+            if (local != null) {
+                loaded.put(fdcId, local);
+            } else {
+                missing.add(fdcId);
+            }
         }
 
+        Map<Long, CompletableFuture<UsdaFoodDTO>> requests = new LinkedHashMap<>();
+        missing.forEach(fdcId -> requests.put(fdcId, foodBatcher.submit(fdcId)));
+        requests.forEach((fdcId, request) -> {
+            UsdaFoodDTO food = awaitFood(fdcId, request);
+            if (food != null)
+                loaded.put(fdcId, food);
+        });
+        // Solo lo que no estaba en L1, para no alargar la vida de las entradas vigentes
+        loaded.forEach(foodsCache::put);
+        found.putAll(loaded);
+
+        Map<Long, UsdaFoodDTO> result = new LinkedHashMap<>();
+        ids.forEach(fdcId -> {
+            UsdaFoodDTO food = found.get(fdcId);
+            if (food != null)
+                result.put(fdcId, food);
+        });
+        log.debug("USDA batch lookup: {} IDs, {} from API", ids.size(), missing.size());
+        return result;
+    }
+
+    /**
+     * Recarga anticipada de usdaFoods (refresh-after-write).
+     */
+    @Override
+    public String cacheName() {
+        return CacheNames.USDA_FOODS;
+    }
+
+    @Override
+    public CompletableFuture<Object> reload(Object key, Executor executor) {
+        // La recarga no pasa por L2, que tendría el mismo valor que se quiere renovar
+        return CompletableFuture.supplyAsync(() -> loadFood((Long) key), executor);
+    }
+
+    /**
+     * Espejo local y, si no está, la API a través del lote en curso.
+     */
+    private UsdaFoodDTO loadFood(Long fdcId) {
+        return foodMirrorService.findUsdaFood(fdcId)
+                .orElseGet(() -> foodFlight.call(fdcId, () -> {
+                    UsdaFoodDTO food = awaitFood(fdcId, foodBatcher.submit(fdcId));
+                    if (food == null)
+                        throw new UsdaApiException("USDA food not found: " + fdcId);
+                    return food;
+                }));
+    }
+
+    /**
+     * Espera el resultado del lote. Si la API no responde, la copia caducada
+     * de L2 antes que un error.
+     */
+    private UsdaFoodDTO awaitFood(Long fdcId, CompletableFuture<UsdaFoodDTO> request) {
         try {
-            log.info("Fetching USDA food with ID: {}", fdcId);
+            return request.join();
+        } catch (CompletionException e) {
+            RuntimeException cause = e.getCause() instanceof RuntimeException runtime
+                    ? runtime
+                    : new UsdaApiException("Failed to fetch USDA food", e.getCause());
+            if (!(cause instanceof UpstreamUnavailableException || cause instanceof UsdaApiException))
+                throw cause;
+            UsdaFoodDTO stale = externalCacheStore.getStaleUsdaFood(fdcId).orElseThrow(() -> cause);
+            log.warn("Serving stale USDA food {}: {}", fdcId, cause.getMessage());
+            return stale;
+        }
+    }
+
+    /**
+     * Una llamada POST /foods para todo el lote; las respuestas se guardan en L2.
+     */
+    private Map<Long, UsdaFoodDTO> fetchFoods(List<Long> fdcIds) {
+        try {
+            log.info("Fetching {} USDA foods in one request", fdcIds.size());
 
             URI uri = UriComponentsBuilder
-                    .fromUriString(apiUrl + "/food/" + fdcId)
+                    .fromUriString(apiUrl + "/foods")
                     .queryParam("api_key", apiKey)
                     .build()
                     .toUri();
+            Map<String, Object> body = Map.of("fdcIds", fdcIds, "format", "full");
+
+            UsdaFoodDTO[] foods = upstreamGuard.call(() -> restTemplate.postForObject(uri, body, UsdaFoodDTO[].class),
+                    guardExecutor);
 
-            UsdaFoodDTO food = restTemplate.getForObject(uri, UsdaFoodDTO.class);
-            return Objects.requireNonNullElse(food, new UsdaFoodDTO());
+            Map<Long, UsdaFoodDTO> byId = new HashMap<>();
+            for (UsdaFoodDTO food : Objects.requireNonNullElse(foods, new UsdaFoodDTO[0])) {
+                if (food != null && food.getFdcId() != null) {
+                    byId.put(food.getFdcId(), food);
+                    externalCacheStore.putUsdaFood(food.getFdcId(), food);
+                }
+            }
+            return byId;
 
+        } catch (UpstreamUnavailableException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Error fetching USDA food by ID: {}", e.getMessage(), e);
-            throw new UsdaApiException("Failed to fetch USDA food", e);
+            log.error("Error fetching USDA foods {}: {}", fdcIds, e.getMessage(), e);
+            throw new UsdaApiException("Failed to fetch USDA foods", e);
+        }
+    }
+
+    private static void validateFdcId(Long fdcId) {
+        if (fdcId == null || fdcId <= 0) {
+            log.warn("Invalid USDA FDC ID: {}", fdcId);
+            throw new IllegalArgumentException("FDC ID must be positive and non-null");
         }
     }
 }
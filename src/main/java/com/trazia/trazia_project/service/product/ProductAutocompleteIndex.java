@@ -0,0 +1,376 @@
+package com.trazia.trazia_project.service.product;
+
+import com.trazia.trazia_project.model.SearchText;
+import com.trazia.trazia_project.repository.product.ProductNameView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trie de autocompletado de los productos de un usuario sobre las palabras
+ * normalizadas (sin acentos, minúsculas) de nombre y marca.
+ *
+ * - Cada nodo guarda sus hijos en arrays ordenados (char[] + Node[]) en lugar
+ *   de mapas, y los ids de los productos cuyas palabras terminan en él.
+ * - Prefijo: se baja por el trie y se recoge el subárbol.
+ * - Tolerancia a erratas (distancia de edición 1): recorrido del trie con la
+ *   fila de Levenshtein, podando las ramas cuya distancia mínima ya supera 1.
+ * - Las actualizaciones son incrementales; lecturas y escrituras se protegen
+ *   con un ReadWriteLock por índice.
+ */
+public final class ProductAutocompleteIndex {
+
+    /** Las palabras más cortas solo se buscan por prefijo exacto */
+    public static final int MIN_FUZZY_LENGTH = 3;
+    /** Tope de candidatos por palabra de la consulta, para acotar el trabajo por petición */
+    private static final int MAX_CANDIDATES = 2000;
+
+    // Estimación de memoria (JVM 64 bits con compressed oops)
+    private static final int NODE_BYTES = 16 + 3 * 4 + 3 * 16;
+    private static final int EDGE_BYTES = 2 + 4;
+    private static final int POSTING_BYTES = 8;
+    private static final int ENTRY_BYTES = 96;
+    private static final int STRING_BYTES = 40;
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final long[] NO_IDS = new long[0];
+
+    private final Node root = new Node();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long nodeCount = 1;
+    private long postingCount;
+    private long entryBytes;
+
+    public record Match(Long productId, String name, String brand, boolean fuzzy) {
+    }
+
+    private record Entry(String name, String brand, String[] terms) {
+    }
+
+    public static ProductAutocompleteIndex build(Collection<ProductNameView> products) {
+        ProductAutocompleteIndex index = new ProductAutocompleteIndex();
+        for (ProductNameView product : products) {
+            index.addUnlocked(product.getId(), product.getName(), product.getBrand());
+        }
+        return index;
+    }
+
+    /**
+     * Añade el producto o sustituye sus palabras si ya estaba.
+     */
+    public void upsert(Long productId, String name, String brand) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(productId);
+            addUnlocked(productId, name, brand);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Productos cuyas palabras empiezan por todas las de la consulta; si hay
+     * menos de limit, se completan con coincidencias a distancia de edición 1.
+     * Primero las exactas, después por longitud y orden alfabético del nombre.
+     */
+    public List<Match> suggest(String query, int limit) {
+        List<String> tokens = SearchText.tokens(query);
+        if (tokens.isEmpty() || limit <= 0)
+            return List.of();
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Boolean> candidates = null;
+            for (String token : tokens) {
+                Map<Long, Boolean> matches = new HashMap<>();
+                Node node = find(token);
+                if (node != null)
+                    collect(node, matches, false);
+                if (token.length() >= MIN_FUZZY_LENGTH && matches.size() < limit)
+                    collectFuzzy(root, token, initialRow(token.length()), matches);
+
+                if (candidates == null) {
+                    candidates = matches;
+                } else {
+                    candidates.keySet().retainAll(matches.keySet());
+                    candidates.replaceAll((id, fuzzy) -> fuzzy || matches.get(id));
+                }
+                if (candidates.isEmpty())
+                    return List.of();
+            }
+
+            List<Match> result = new ArrayList<>(candidates.size());
+            candidates.forEach((id, fuzzy) -> {
+                Entry entry = entries.get(id);
+                if (entry != null)
+                    result.add(new Match(id, entry.name(), entry.brand(), fuzzy));
+            });
+            result.sort(Comparator.comparing(Match::fuzzy)
+                    .thenComparingInt((Match m) -> m.name() != null ? m.name().length() : 0)
+                    .thenComparing(Match::name, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+            return result.size() > limit ? result.subList(0, limit) : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int productCount() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long nodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Memoria aproximada del índice en bytes (nodos, aristas, ids y entradas).
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return nodeCount * NODE_BYTES + (nodeCount - 1) * EDGE_BYTES + postingCount * POSTING_BYTES + entryBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===========================
+    // MANTENIMIENTO
+    // ===========================
+
+    private void addUnlocked(Long productId, String name, String brand) {
+        Set<String> terms = new LinkedHashSet<>(SearchText.tokens(name));
+        terms.addAll(SearchText.tokens(brand));
+        if (terms.isEmpty())
+            return;
+
+        String[] termArray = terms.toArray(new String[0]);
+        for (String term : termArray) {
+            Node node = root;
+            for (int i = 0; i < term.length(); i++) {
+                char c = term.charAt(i);
+                Node child = node.child(c);
+                if (child == null) {
+                    child = node.addChild(c);
+                    nodeCount++;
+                }
+                node = child;
+            }
+            if (node.addId(productId))
+                postingCount++;
+        }
+        Entry entry = new Entry(name, brand, termArray);
+        entries.put(productId, entry);
+        entryBytes += sizeOf(entry);
+    }
+
+    private void removeUnlocked(Long productId) {
+        Entry entry = entries.remove(productId);
+        if (entry == null)
+            return;
+        for (String term : entry.terms()) {
+            removeTerm(root, term, 0, productId);
+        }
+        entryBytes -= sizeOf(entry);
+    }
+
+    private void removeTerm(Node node, String term, int depth, long productId) {
+        if (depth == term.length()) {
+            if (node.removeId(productId))
+                postingCount--;
+            return;
+        }
+        char c = term.charAt(depth);
+        Node child = node.child(c);
+        if (child == null)
+            return;
+        removeTerm(child, term, depth + 1, productId);
+        if (child.isEmpty()) {
+            node.removeChild(c);
+            nodeCount--;
+        }
+    }
+
+    private long sizeOf(Entry entry) {
+        long bytes = ENTRY_BYTES + length(entry.name()) + length(entry.brand());
+        for (String term : entry.terms()) {
+            bytes += STRING_BYTES + term.length();
+        }
+        return bytes;
+    }
+
+    private static long length(String value) {
+        return value != null ? STRING_BYTES + value.length() : 0;
+    }
+
+    // ===========================
+    // CONSULTA
+    // ===========================
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Añade los ids de todo el subárbol (sin sobrescribir coincidencias exactas).
+     */
+    private void collect(Node start, Map<Long, Boolean> out, boolean fuzzy) {
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty() && out.size() < MAX_CANDIDATES) {
+            Node node = stack.pop();
+            for (long id : node.ids) {
+                out.putIfAbsent(id, fuzzy);
+            }
+            for (Node child : node.children) {
+                stack.push(child);
+            }
+        }
+    }
+
+    /**
+     * prevRow[j] = distancia de edición entre el camino hasta node y los j
+     * primeros caracteres de la consulta. Si la consulta completa queda a
+     * distancia <= 1, todo el subárbol coincide por prefijo.
+     */
+    private void collectFuzzy(Node node, String query, int[] prevRow, Map<Long, Boolean> out) {
+        int m = query.length();
+        for (int i = 0; i < node.keys.length && out.size() < MAX_CANDIDATES; i++) {
+            char c = node.keys[i];
+            int[] row = new int[m + 1];
+            row[0] = prevRow[0] + 1;
+            int min = row[0];
+            for (int j = 1; j <= m; j++) {
+                int substitution = prevRow[j - 1] + (query.charAt(j - 1) == c ? 0 : 1);
+                row[j] = Math.min(Math.min(row[j - 1] + 1, prevRow[j] + 1), substitution);
+                min = Math.min(min, row[j]);
+            }
+
+            Node child = node.children[i];
+            if (row[m] <= 1) {
+                collect(child, out, true);
+            } else if (min <= 1) {
+                collectFuzzy(child, query, row, out);
+            }
+        }
+    }
+
+    private static int[] initialRow(int length) {
+        int[] row = new int[length + 1];
+        for (int j = 0; j <= length; j++) {
+            row[j] = j;
+        }
+        return row;
+    }
+
+    private static final class Node {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private long[] ids = NO_IDS;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        /**
+         * Crea el hijo de c; quien llama ya ha comprobado que no existe.
+         */
+        Node addChild(char c) {
+            int insertAt = -Arrays.binarySearch(keys, c) - 1;
+            Node child = new Node();
+            keys = insert(keys, insertAt, c);
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, insertAt);
+            grown[insertAt] = child;
+            System.arraycopy(children, insertAt, grown, insertAt + 1, children.length - insertAt);
+            children = grown;
+            return child;
+        }
+
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i < 0)
+                return;
+            char[] shrunkKeys = new char[keys.length - 1];
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(keys, 0, shrunkKeys, 0, i);
+            System.arraycopy(keys, i + 1, shrunkKeys, i, keys.length - i - 1);
+            System.arraycopy(children, 0, shrunk, 0, i);
+            System.arraycopy(children, i + 1, shrunk, i, children.length - i - 1);
+            keys = shrunkKeys.length == 0 ? NO_KEYS : shrunkKeys;
+            children = shrunk.length == 0 ? NO_CHILDREN : shrunk;
+        }
+
+        boolean addId(long id) {
+            for (long existing : ids) {
+                if (existing == id)
+                    return false;
+            }
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = id;
+            return true;
+        }
+
+        boolean removeId(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    long[] shrunk = new long[ids.length - 1];
+                    System.arraycopy(ids, 0, shrunk, 0, i);
+                    System.arraycopy(ids, i + 1, shrunk, i, ids.length - i - 1);
+                    ids = shrunk.length == 0 ? NO_IDS : shrunk;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isEmpty() {
+            return keys.length == 0 && ids.length == 0;
+        }
+
+        private static char[] insert(char[] array, int index, char value) {
+            char[] grown = new char[array.length + 1];
+            System.arraycopy(array, 0, grown, 0, index);
+            grown[index] = value;
+            System.arraycopy(array, index, grown, index + 1, array.length - index);
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.trazia.trazia_project.service.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.trazia.trazia_project.dto.product.AutocompleteStatsResponse;
+import com.trazia.trazia_project.dto.product.ProductAutocompleteResponse;
+import com.trazia.trazia_project.event.product.ProductCatalogChangedEvent;
+import com.trazia.trazia_project.repository.product.ProductNameView;
+import com.trazia.trazia_project.repository.product.ProductRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Autocompletado de productos en memoria, un trie por usuario.
+ *
+ * El índice se construye la primera vez que el usuario escribe y después se
+ * mantiene con los eventos de catálogo de ProductService, sin volver a la base
+ * de datos en cada pulsación. La memoria total está acotada por peso (bytes
+ * estimados de cada índice) y los usuarios inactivos se desalojan.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductAutocompleteService {
+
+    private final ProductRepository productRepository;
+
+    @Value("${products.autocomplete.max-memory-mb:64}")
+    private long maxMemoryMb;
+
+    @Value("${products.autocomplete.idle-eviction-minutes:30}")
+    private long idleEvictionMinutes;
+
+    /** Índices por userId; el peso es el tamaño estimado en KB */
+    private Cache<Long, ProductAutocompleteIndex> indexes;
+
+    @PostConstruct
+    void init() {
+        indexes = Caffeine.newBuilder()
+                .maximumWeight(maxMemoryMb * 1024)
+                .weigher((Long userId, ProductAutocompleteIndex index) -> (int) Math.min(Integer.MAX_VALUE,
+                        Math.max(1, index.estimatedBytes() / 1024)))
+                .expireAfterAccess(Duration.ofMinutes(idleEvictionMinutes))
+                .removalListener((Long userId, ProductAutocompleteIndex index, RemovalCause cause) -> {
+                    if (cause.wasEvicted())
+                        log.debug("Evicted autocomplete index of user {} ({})", userId, cause);
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Sugerencias para lo que el usuario lleva escrito.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductAutocompleteResponse> suggest(Long userId, String query, int limit) {
+        return indexes.get(userId, this::buildIndex).suggest(query, limit).stream()
+                .map(match -> ProductAutocompleteResponse.builder()
+                        .id(match.productId())
+                        .name(match.name())
+                        .brand(match.brand())
+                        .fuzzy(match.fuzzy())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Aplica el cambio al índice del usuario si está cargado; si no, se
+     * construirá con los datos ya confirmados cuando se use.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        if (event.userId() == null)
+            return;
+        // compute para que Caffeine vuelva a pesar el índice tras el cambio
+        indexes.asMap().computeIfPresent(event.userId(), (userId, index) -> {
+            if (event.removed()) {
+                index.remove(event.productId());
+            } else {
+                index.upsert(event.productId(), event.name(), event.brand());
+            }
+            return index;
+        });
+    }
+
+    public AutocompleteStatsResponse stats(Long userId) {
+        ProductAutocompleteIndex index = indexes.asMap().get(userId);
+        long totalBytes = indexes.asMap().values().stream()
+                .mapToLong(ProductAutocompleteIndex::estimatedBytes)
+                .sum();
+        CacheStats stats = indexes.stats();
+
+        return AutocompleteStatsResponse.builder()
+                .loaded(index != null)
+                .products(index != null ? index.productCount() : 0)
+                .trieNodes(index != null ? index.nodeCount() : 0)
+                .estimatedBytes(index != null ? index.estimatedBytes() : 0)
+                .loadedTenants(indexes.estimatedSize())
+                .totalEstimatedBytes(totalBytes)
+                .maxBytes(maxMemoryMb * 1024 * 1024)
+                .evictions(stats.evictionCount())
+                .hitRate(stats.hitRate())
+                .build();
+    }
+
+    private ProductAutocompleteIndex buildIndex(Long userId) {
+        long start = System.currentTimeMillis();
+        List<ProductNameView> products = productRepository.findNameViewsByUserId(userId);
+        ProductAutocompleteIndex index = ProductAutocompleteIndex.build(products);
+        log.info("Built autocomplete index for user {}: {} products, {} nodes, ~{} KB in {} ms",
+                userId, index.productCount(), index.nodeCount(), index.estimatedBytes() / 1024,
+                System.currentTimeMillis() - start);
+        return index;
+    }
+}
@@ -0,0 +1,238 @@
+package com.trazia.trazia_project.service.product;
+
+import com.trazia.trazia_project.config.CacheNames;
+import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsProductDTO;
+import com.trazia.trazia_project.dto.product.BarcodeImportResult;
+import com.trazia.trazia_project.entity.product.Product;
+import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.event.product.ProductCatalogChangedEvent;
+import com.trazia.trazia_project.exception.product.ProductNotFoundException;
+import com.trazia.trazia_project.mapper.ProductMapper;
+import com.trazia.trazia_project.repository.product.ProductRepository;
+import com.trazia.trazia_project.repository.user.UserRepository;
+import com.trazia.trazia_project.service.external.OpenFoodFactsService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Importación masiva de productos por código de barras desde Open Food Facts.
+ *
+ * - Los códigos se validan, se deduplican y se descartan los que el usuario
+ *   ya tiene, con una sola consulta.
+ * - Las consultas a Open Food Facts salen espaciadas según el límite de
+ *   peticiones por minuto y con un máximo de llamadas simultáneas; no se
+ *   bloquea ningún hilo mientras se espera la respuesta.
+ * - Los productos encontrados se agrupan y se insertan por lotes (saveAll con
+ *   el batching JDBC de Hibernate), cada lote en su propia transacción.
+ * - Cada código produce un BarcodeImportResult en cuanto se resuelve, para
+ *   devolverlo en streaming (NDJSON) mientras sigue la importación.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductBarcodeImportService {
+
+    private static final Pattern BARCODE = Pattern.compile("\\d{8,14}");
+
+    private final OpenFoodFactsService openFoodFactsService;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final ProductMapper productMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final CacheManager cacheManager;
+
+    @Value("${products.barcode-import.max-barcodes:5000}")
+    private int maxBarcodes;
+
+    @Value("${products.barcode-import.requests-per-minute:100}")
+    private int requestsPerMinute;
+
+    @Value("${products.barcode-import.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${products.barcode-import.batch-size:50}")
+    private int batchSize;
+
+    /** Producto de Open Food Facts pendiente de insertar */
+    private record Found(String barcode, OpenFoodFactsProductDTO product) {
+    }
+
+    /**
+     * Separa un CSV o texto plano de códigos (comas, punto y coma, espacios o
+     * saltos de línea); ignora una posible cabecera no numérica.
+     */
+    public static List<String> parseBarcodes(String text) {
+        if (text == null || text.isBlank())
+            return List.of();
+        List<String> barcodes = new ArrayList<>();
+        for (String value : text.split("[,;\\s]+")) {
+            String barcode = value.replace("\"", "").trim();
+            if (!barcode.isEmpty())
+                barcodes.add(barcode);
+        }
+        if (!barcodes.isEmpty() && !barcodes.get(0).chars().allMatch(Character::isDigit))
+            barcodes.remove(0);
+        return barcodes;
+    }
+
+    public Flux<BarcodeImportResult> importBarcodes(Long userId, Collection<String> rawBarcodes) {
+        Set<String> unique = new LinkedHashSet<>();
+        List<BarcodeImportResult> rejected = new ArrayList<>();
+        for (String raw : rawBarcodes) {
+            String barcode = raw != null ? raw.trim() : "";
+            if (!BARCODE.matcher(barcode).matches()) {
+                rejected.add(result(barcode, BarcodeImportResult.Status.INVALID_BARCODE, null, null,
+                        "Barcode must have 8 to 14 digits"));
+            } else {
+                unique.add(barcode);
+            }
+        }
+        if (unique.size() > maxBarcodes) {
+            throw new IllegalArgumentException("Too many barcodes: " + unique.size() + " (max " + maxBarcodes + ")");
+        }
+
+        Set<String> existing = unique.isEmpty()
+                ? Set.of()
+                : new HashSet<>(productRepository.findExistingBarcodes(userId, unique));
+        List<String> pending = new ArrayList<>();
+        for (String barcode : unique) {
+            if (existing.contains(barcode)) {
+                rejected.add(result(barcode, BarcodeImportResult.Status.ALREADY_EXISTS, null, null, null));
+            } else {
+                pending.add(barcode);
+            }
+        }
+        log.info("Barcode import for user {}: {} to fetch, {} skipped", userId, pending.size(), rejected.size());
+
+        long start = System.currentTimeMillis();
+        Duration interval = Duration.ofMillis(Math.max(1, 60_000L / Math.max(1, requestsPerMinute)));
+
+        Flux<BarcodeImportResult> fetched = Flux.fromIterable(pending)
+                .delayElements(interval)
+                .flatMap(this::fetch, Math.max(1, maxConcurrency))
+                .bufferTimeout(batchSize, Duration.ofSeconds(2))
+                .concatMap(batch -> Mono.fromCallable(() -> persistBatch(userId, batch))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(e -> Mono.just(failedBatch(batch, e))))
+                .flatMapIterable(results -> results);
+
+        return Flux.fromIterable(rejected)
+                .concatWith(fetched)
+                .doOnComplete(() -> log.info("Barcode import for user {} finished: {} barcodes in {} ms",
+                        userId, pending.size(), System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Consulta un código en Open Food Facts. Nunca termina con error: los
+     * fallos se convierten en el resultado del propio código.
+     */
+    private Mono<Object> fetch(String barcode) {
+        return openFoodFactsService.searchByBarcode(barcode)
+                .<Object>map(product -> new Found(barcode, product))
+                .onErrorResume(ProductNotFoundException.class,
+                        e -> Mono.just(result(barcode, BarcodeImportResult.Status.NOT_FOUND, null, null, null)))
+                .onErrorResume(e -> Mono.just(result(barcode, BarcodeImportResult.Status.ERROR, null, null,
+                        e.getMessage())));
+    }
+
+    /**
+     * Inserta en una transacción los productos encontrados del lote y devuelve
+     * el resultado de cada código del lote, en el mismo orden.
+     */
+    private List<BarcodeImportResult> persistBatch(Long userId, List<Object> batch) {
+        List<BarcodeImportResult> results = new ArrayList<>(batch.size());
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            User user = userRepository.getReferenceById(userId);
+
+            List<Product> products = new ArrayList<>();
+            for (Object item : batch) {
+                if (item instanceof Found found)
+                    products.add(productMapper.fromOpenFoodFacts(found.product(), found.barcode(), user));
+            }
+            Set<String> usedNames = products.isEmpty()
+                    ? new HashSet<>()
+                    : new HashSet<>(productRepository.findExistingNames(userId,
+                            products.stream().map(Product::getName).toList()));
+
+            List<Product> toSave = new ArrayList<>();
+            int next = 0;
+            for (Object item : batch) {
+                if (item instanceof BarcodeImportResult result) {
+                    results.add(result);
+                    continue;
+                }
+                Product product = products.get(next++);
+                if (!usedNames.add(product.getName())) {
+                    results.add(result(product.getBarcode(), BarcodeImportResult.Status.DUPLICATE_NAME, null,
+                            product.getName(), null));
+                    continue;
+                }
+                toSave.add(product);
+                results.add(null); // se completa tras el insert
+            }
+
+            List<Product> saved = productRepository.saveAll(toSave);
+            int savedIndex = 0;
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) == null) {
+                    Product product = saved.get(savedIndex++);
+                    results.set(i, result(product.getBarcode(), BarcodeImportResult.Status.CREATED,
+                            product.getId(), product.getName(), null));
+                    eventPublisher.publishEvent(ProductCatalogChangedEvent.upserted(product));
+                }
+            }
+        });
+
+        Cache counts = cacheManager.getCache(CacheNames.PRODUCT_COUNTS);
+        if (counts != null)
+            counts.evict(userId);
+        return results;
+    }
+
+    /**
+     * Si falla la transacción del lote, sus productos se informan como ERROR y
+     * la importación continúa con el siguiente lote.
+     */
+    private List<BarcodeImportResult> failedBatch(List<Object> batch, Throwable error) {
+        log.error("Barcode import batch of {} items failed: {}", batch.size(), error.getMessage());
+        return batch.stream()
+                .map(item -> item instanceof Found found
+                        ? result(found.barcode(), BarcodeImportResult.Status.ERROR, null, null,
+                                "Could not save product")
+                        : (BarcodeImportResult) item)
+                .toList();
+    }
+
+    private static BarcodeImportResult result(String barcode, BarcodeImportResult.Status status, Long productId,
+            String name, String message) {
+        return BarcodeImportResult.builder()
+                .barcode(barcode)
+                .status(status)
+                .productId(productId)
+                .name(name)
+                .message(message)
+                .build();
+    }
+}
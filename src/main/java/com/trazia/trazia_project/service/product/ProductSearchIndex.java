@@ -0,0 +1,95 @@
+package com.trazia.trazia_project.service.product;
+
+import com.trazia.trazia_project.entity.product.Product;
+import com.trazia.trazia_project.model.SearchText;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Índice invertido en memoria de los productos de un usuario, usado cuando la
+ * base de datos no es PostgreSQL (H2 en desarrollo). Inmutable una vez
+ * construido: los cambios de productos invalidan el índice y se reconstruye.
+ *
+ * Los términos se guardan ordenados, así que una palabra de la consulta se
+ * resuelve por prefijo con un subMap en O(log n + coincidencias).
+ */
+public final class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.0f;
+    private static final float ALLERGEN_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    /** Una coincidencia por prefijo puntúa menos que la palabra exacta */
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    /** término -> (productId -> peso del campo con mayor peso que lo contiene) */
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+
+    private ProductSearchIndex() {
+    }
+
+    public static ProductSearchIndex build(Collection<Product> products) {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (Product product : products) {
+            index.add(product.getId(), product.getName(), NAME_WEIGHT);
+            index.add(product.getId(), product.getBrand(), BRAND_WEIGHT);
+            if (product.getAllergens() != null) {
+                for (String allergen : product.getAllergens()) {
+                    index.add(product.getId(), allergen, ALLERGEN_WEIGHT);
+                }
+            }
+            index.add(product.getId(), product.getDescription(), DESCRIPTION_WEIGHT);
+        }
+        return index;
+    }
+
+    private void add(Long productId, String text, float weight) {
+        for (String token : SearchText.tokens(text)) {
+            postings.computeIfAbsent(token, t -> new HashMap<>()).merge(productId, weight, Math::max);
+        }
+    }
+
+    /**
+     * Ids de los productos que contienen todas las palabras (por prefijo),
+     * ordenados por relevancia descendente y, a igualdad, por id descendente.
+     */
+    public List<Long> search(List<String> queryTokens) {
+        Map<Long, Float> scores = null;
+        for (String queryToken : queryTokens) {
+            Map<Long, Float> tokenScores = new HashMap<>();
+            for (Map.Entry<String, Map<Long, Float>> term
+                    : postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, true).entrySet()) {
+                float factor = term.getKey().equals(queryToken) ? 1.0f : PREFIX_FACTOR;
+                term.getValue().forEach((id, weight) -> tokenScores.merge(id, weight * factor, Math::max));
+            }
+
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                Map<Long, Float> current = scores;
+                current.keySet().retainAll(tokenScores.keySet());
+                current.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty())
+                return List.of();
+        }
+        if (scores == null)
+            return List.of();
+
+        List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Float>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+        return ranked.stream().map(Map.Entry::getKey).toList();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+}
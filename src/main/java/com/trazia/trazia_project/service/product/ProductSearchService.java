@@ -0,0 +1,144 @@
+package com.trazia.trazia_project.service.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trazia.trazia_project.entity.product.Product;
+import com.trazia.trazia_project.event.product.ProductCatalogChangedEvent;
+import com.trazia.trazia_project.model.SearchText;
+import com.trazia.trazia_project.repository.product.ProductRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda de productos por nombre, marca, alérgenos y descripción.
+ *
+ * - PostgreSQL: índice GIN sobre el tsvector ponderado de search_name (peso A)
+ *   y search_document (peso B), con coincidencia por prefijo y orden por
+ *   ts_rank: el nombre pesa más que la marca o la descripción. El texto ya se
+ *   guarda sin acentos, así que no hace falta la extensión unaccent.
+ * - Otras bases (H2): índice invertido en memoria por usuario, acotado en
+ *   número de usuarios y reconstruido cuando cambian sus productos.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductSearchService {
+
+    /** Índice anterior, sin ponderar; se sustituye por idx_product_search_weighted */
+    private static final String DROP_UNWEIGHTED_INDEX = "DROP INDEX IF EXISTS idx_product_search_document";
+    private static final String CREATE_SEARCH_INDEX = "CREATE INDEX IF NOT EXISTS idx_product_search_weighted"
+            + " ON products USING GIN (" + ProductRepository.SEARCH_VECTOR + ")";
+
+    private final ProductRepository productRepository;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Índices en memoria por userId (solo sin PostgreSQL) */
+    private final Cache<Long, ProductSearchIndex> memoryIndexes = Caffeine.newBuilder()
+            .maximumSize(200)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    private volatile boolean postgres;
+
+    /**
+     * Se ejecuta cuando Hibernate ya ha creado las tablas (ddl-auto) para poder
+     * crear el índice GIN, que no se puede declarar con anotaciones JPA.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initSearchBackend() {
+        try (Connection connection = dataSource.getConnection()) {
+            postgres = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("postgresql");
+        } catch (SQLException e) {
+            log.warn("Could not detect database for product search, using in-memory index: {}", e.getMessage());
+            postgres = false;
+        }
+
+        if (postgres) {
+            try {
+                jdbcTemplate.execute(DROP_UNWEIGHTED_INDEX);
+                jdbcTemplate.execute(CREATE_SEARCH_INDEX);
+                log.info("Product search: PostgreSQL full-text index ready");
+            } catch (DataAccessException e) {
+                log.warn("Could not create product full-text index: {}", e.getMessage());
+            }
+        } else {
+            log.info("Product search: using in-memory index");
+        }
+    }
+
+    /**
+     * Productos del usuario que contienen todas las palabras de la consulta
+     * (por prefijo, sin distinguir acentos ni mayúsculas), por relevancia.
+     * Una consulta sin palabras devuelve todos los productos del usuario.
+     */
+    @Transactional(readOnly = true)
+    public Page<Product> search(String query, Long userId, Pageable pageable) {
+        List<String> tokens = SearchText.tokens(query);
+        if (tokens.isEmpty())
+            return productRepository.findByUserIdAndDeletedFalse(userId, pageable);
+
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        if (postgres)
+            return productRepository.fullTextSearch(userId, SearchText.toPrefixTsQuery(tokens), unsorted);
+        return searchInMemory(tokens, userId, unsorted);
+    }
+
+    /**
+     * Descarta el índice en memoria del usuario tras crear, modificar o borrar
+     * alguno de sus productos; se reconstruye en la siguiente búsqueda.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        if (!postgres && event.userId() != null)
+            memoryIndexes.invalidate(event.userId());
+    }
+
+    private Page<Product> searchInMemory(List<String> tokens, Long userId, Pageable pageable) {
+        ProductSearchIndex index = memoryIndexes.get(userId, this::buildIndex);
+        List<Long> ids = index.search(tokens);
+
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        List<Long> pageIds = ids.subList(from, to);
+
+        Map<Long, Product> byId = productRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> content = pageIds.stream()
+                .map(byId::get)
+                .filter(p -> p != null && !Boolean.TRUE.equals(p.getDeleted()))
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, ids.size());
+    }
+
+    private ProductSearchIndex buildIndex(Long userId) {
+        long start = System.currentTimeMillis();
+        List<Product> products = productRepository.findByUserIdAndDeletedFalse(userId);
+        ProductSearchIndex index = ProductSearchIndex.build(products);
+        log.debug("Built product search index for user {}: {} products, {} terms in {} ms",
+                userId, products.size(), index.termCount(), System.currentTimeMillis() - start);
+        return index;
+    }
+}
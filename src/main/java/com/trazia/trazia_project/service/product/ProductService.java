@@ -1,14 +1,19 @@
 package com.trazia.trazia_project.service.product;
 import java.util.Objects;
 
+import com.trazia.trazia_project.config.CacheNames;
+import com.trazia.trazia_project.dto.common.CursorPageResponse;
 import com.trazia.trazia_project.dto.product.*;
 import com.trazia.trazia_project.entity.product.Product;
 import com.trazia.trazia_project.entity.product.ProductCategory;
 import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.event.product.ProductCatalogChangedEvent;
+import com.trazia.trazia_project.event.product.ProductChangedEvent;
 import com.trazia.trazia_project.exception.product.DuplicateProductException;
 import com.trazia.trazia_project.exception.product.ProductNotFoundException;
 import com.trazia.trazia_project.exception.recipe.ResourceNotFoundException;
 import com.trazia.trazia_project.mapper.ProductMapper;
+import com.trazia.trazia_project.model.SeekCursor;
 import com.trazia.trazia_project.repository.product.ProductRepository;
 import com.trazia.trazia_project.repository.user.UserRepository;
 import com.trazia.trazia_project.service.common.ImageStorageService;
@@ -16,8 +21,11 @@ import com.trazia.trazia_project.service.common.ImageStorageService;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -25,6 +33,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
@@ -40,10 +49,13 @@ public class ProductService {
     private final ProductMapper productMapper;
     private final MessageSource messageSource;
     private final ImageStorageService imageStorageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchService productSearchService;
 
     // ==================== CRUD OPERATIONS ====================
 
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.PRODUCT_COUNTS, key = "#userId")
     public ProductResponse createProduct(ProductRequest request, Long userId) {
         log.info("Creating product '{}' for user ID: {}", request.getName(), userId);
 
@@ -52,9 +64,11 @@ public class ProductService {
 
         Product product = productMapper.toEntity(request, user);
         validateNutriments(product);
+        product.updateSearchDocument();
 
         // Guardar el producto asegurando que nunca sea nulo
         Product saved = saveNonNullProduct(product);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.upserted(saved));
         log.info("Product created successfully with ID: {}", saved.getId());
 
         return productMapper.toResponse(saved);
@@ -77,31 +91,47 @@ public class ProductService {
             checkDuplicateProduct(userId, request.getName());
         }
 
+        ProductChangedEvent.Snapshot before = ProductChangedEvent.Snapshot.of(product);
+        LocalDateTime changedAt = LocalDateTime.now();
         productMapper.updateEntity(product, request);
         validateNutriments(product);
+        product.updateSearchDocument();
 
         Product updated = Objects.requireNonNull(productRepository.save(product), "Updated product cannot be null");
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.upserted(updated));
         log.info("Product updated successfully: ID {}", productId);
 
+        // Las recetas que usan el producto se recalculan en segundo plano tras el commit
+        ProductChangedEvent event = new ProductChangedEvent(productId, before,
+                ProductChangedEvent.Snapshot.of(updated), changedAt);
+        if (event.affectsRecipes()) {
+            eventPublisher.publishEvent(event);
+        }
+
         return productMapper.toResponse(updated);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.PRODUCT_COUNTS, key = "#userId")
     public void softDeleteProduct(Long productId, Long userId) {
         Product product = getProductOrThrow(productId, userId);
         product.markAsDeleted();
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.removed(userId, productId));
         log.info("Soft deleted product ID: {} by user ID: {}", productId, userId);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.PRODUCT_COUNTS, key = "#userId")
     public void hardDeleteProduct(@NonNull Long productId, @NonNull Long userId) {
         Product product = Objects.requireNonNull(getProductOrThrow(productId, userId), "Product cannot be null");
         productRepository.delete(product);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.removed(userId, productId));
         log.info("Hard deleted product ID: {} by user ID: {}", productId, userId);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.PRODUCT_COUNTS, key = "#userId")
     public ProductResponse restoreProduct(Long productId, Long userId) {
         Product product = getProductOrThrow(productId, userId);
         if (!product.getDeleted())
@@ -109,6 +139,7 @@ public class ProductService {
 
         product.restore();
         Product restored = productRepository.save(product);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.upserted(restored));
         log.info("Product restored successfully: ID {}", productId);
         return productMapper.toResponse(restored);
     }
@@ -120,8 +151,39 @@ public class ProductService {
         return productMapper.toPageResponse(products);
     }
 
+    /**
+     * Paginación por clave (createdAt DESC, id DESC): el coste de cada bloque no
+     * depende de su profundidad. Se pide un elemento de más para saber si hay
+     * siguiente bloque sin count(*); el total solo se calcula si se pide y sale
+     * de caché.
+     */
+    public CursorPageResponse<ProductPageResponse.ProductSummaryDTO> getUserProductsByCursor(
+            Long userId, String cursor, int size, boolean includeTotal) {
+        Limit limit = Limit.of(size + 1);
+        List<Product> products;
+        if (cursor == null || cursor.isBlank()) {
+            products = productRepository.findFirstPageByUserId(userId, limit);
+        } else {
+            SeekCursor after = SeekCursor.decode(cursor);
+            products = productRepository.findPageByUserIdAfter(userId, after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasNext = products.size() > size;
+        if (hasNext)
+            products = products.subList(0, size);
+        Product last = products.isEmpty() ? null : products.get(products.size() - 1);
+
+        return CursorPageResponse.<ProductPageResponse.ProductSummaryDTO>builder()
+                .items(products.stream().map(productMapper::toProductSummaryDTO).collect(Collectors.toList()))
+                .nextCursor(hasNext ? new SeekCursor(last.getCreatedAt(), last.getId()).encode() : null)
+                .hasNext(hasNext)
+                .pageSize(size)
+                .totalElements(includeTotal ? productRepository.countByUserIdAndDeletedFalse(userId) : null)
+                .build();
+    }
+
     public ProductPageResponse searchProducts(String query, Long userId, Pageable pageable) {
-        Page<Product> products = productRepository.searchByNameOrBrand(query, userId, pageable);
+        Page<Product> products = productSearchService.search(query, userId, pageable);
         return productMapper.toPageResponse(products);
     }
 
@@ -0,0 +1,102 @@
+package com.trazia.trazia_project.service.recipe;
+
+import com.trazia.trazia_project.entity.product.Product;
+import com.trazia.trazia_project.entity.recipe.Recipe;
+import com.trazia.trazia_project.entity.recipe.RecipeIngredient;
+import com.trazia.trazia_project.model.NutrientVector;
+import com.trazia.trazia_project.model.RecipeAggregate;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cálculo puro de los agregados de una receta (coste, peso y nutrientes por 100g).
+ *
+ * No accede a la base de datos: los ingredientes y productos deben estar
+ * cargados y las sub-recetas se resuelven con la función recibida, que puede
+ * leer sus agregados materializados o un resultado memoizado. Por eso es
+ * seguro evaluar recetas independientes en paralelo.
+ */
+@Component
+public class RecipeAggregateCalculator {
+
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal ONE_THOUSAND = BigDecimal.valueOf(1000);
+
+    /**
+     * @param recipe           receta con ingredientes cargados
+     * @param subRecipeLookup  agregados de cada sub-receta usada como ingrediente
+     */
+    public RecipeAggregate calculate(Recipe recipe, Function<Recipe, RecipeAggregate> subRecipeLookup) {
+        if (recipe.getYieldWeightGrams() == null) {
+            throw new RuntimeException("Yield weight cannot be null");
+        }
+        if (recipe.getYieldWeightGrams().compareTo(BigDecimal.ZERO) == 0) {
+            throw new ArithmeticException("Yield weight cannot be zero");
+        }
+
+        List<RecipeIngredient> ingredients = recipe.getIngredients() != null ? recipe.getIngredients() : List.of();
+
+        BigDecimal totalWeight = BigDecimal.ZERO;
+        for (RecipeIngredient ri : ingredients) {
+            if (ri.getQuantityGrams() != null)
+                totalWeight = totalWeight.add(ri.getQuantityGrams());
+        }
+        double totalWeightGrams = totalWeight.doubleValue();
+
+        // sum by proportion of each ingredient relative to total ingredient weight
+        NutrientVector total = new NutrientVector();
+        BigDecimal totalCost = BigDecimal.ZERO;
+        for (RecipeIngredient ri : ingredients) {
+            if (ri.getQuantityGrams() == null)
+                continue;
+            double proportion = totalWeightGrams == 0.0 ? 0.0 : ri.getQuantityGrams().doubleValue() / totalWeightGrams;
+            if (ri.isSubRecipe()) {
+                RecipeAggregate sub = subRecipeLookup.apply(ri.getSubRecipe());
+                if (sub != null)
+                    total.addScaled(sub.per100g(), proportion);
+            } else {
+                Product product = ri.getProduct();
+                if (product != null)
+                    total.addScaled(product.getNutriments(), proportion);
+            }
+            totalCost = totalCost.add(ingredientCost(ri, subRecipeLookup));
+        }
+
+        NutrientVector per100g = total.per100g(recipe.getYieldWeightGrams().doubleValue());
+        totalCost = totalCost.setScale(6, RoundingMode.HALF_UP);
+
+        return new RecipeAggregate(per100g, totalCost, costPer100g(totalCost, recipe.getYieldWeightGrams()),
+                totalWeight, ingredients.size());
+    }
+
+    /**
+     * Coste de un ingrediente: coste por kg del producto o de la sub-receta × cantidad en kg.
+     */
+    public BigDecimal ingredientCost(RecipeIngredient ingredient, Function<Recipe, RecipeAggregate> subRecipeLookup) {
+        BigDecimal costPerKg;
+        if (ingredient.isSubRecipe()) {
+            RecipeAggregate sub = subRecipeLookup.apply(ingredient.getSubRecipe());
+            costPerKg = sub != null ? sub.costPerKg() : null;
+        } else {
+            costPerKg = ingredient.getProduct() != null ? ingredient.getProduct().getCostPerUnit() : null;
+        }
+        if (costPerKg == null || ingredient.getQuantityGrams() == null)
+            return BigDecimal.ZERO;
+
+        BigDecimal quantityKg = ingredient.getQuantityGrams().divide(ONE_THOUSAND, 6, RoundingMode.HALF_UP);
+        return costPerKg.multiply(quantityKg).setScale(6, RoundingMode.HALF_UP);
+    }
+
+    public BigDecimal costPer100g(BigDecimal totalCost, BigDecimal yieldWeight) {
+        if (totalCost == null || yieldWeight == null || yieldWeight.compareTo(BigDecimal.ZERO) == 0)
+            return BigDecimal.ZERO;
+        return totalCost.divide(yieldWeight, 6, RoundingMode.HALF_UP)
+                .multiply(ONE_HUNDRED)
+                .setScale(6, RoundingMode.HALF_UP);
+    }
+}
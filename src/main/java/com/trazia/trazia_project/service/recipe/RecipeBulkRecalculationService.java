@@ -0,0 +1,284 @@
+package com.trazia.trazia_project.service.recipe;
+
+import com.trazia.trazia_project.dto.recipe.RecipeRecalculationJobResponse;
+import com.trazia.trazia_project.entity.recipe.Recipe;
+import com.trazia.trazia_project.entity.recipe.RecipeRecalculationJob;
+import com.trazia.trazia_project.exception.recipe.ResourceNotFoundException;
+import com.trazia.trazia_project.model.RecipeAggregate;
+import com.trazia.trazia_project.repository.recipe.RecipeRecalculationJobRepository;
+import com.trazia.trazia_project.repository.recipe.RecipeRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recálculo masivo de todas las recetas de un usuario, p. ej. tras cambiar
+ * datos de referencia o importar costes.
+ *
+ * - Los ids se recorren por bloques en orden ascendente (paginación por clave).
+ * - Cada bloque se carga con un solo plan de carga, se evalúa en un pool de
+ *   workers acotado y se escribe en una transacción propia; las UPDATE se
+ *   agrupan en lotes JDBC al hacer commit.
+ * - El checkpoint (último id procesado) se guarda en la misma transacción que
+ *   los agregados: si la ejecución se interrumpe, al volver a lanzarla continúa
+ *   desde el último bloque confirmado.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecipeBulkRecalculationService {
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeRecalculationJobRepository jobRepository;
+    private final RecipeAggregateCalculator aggregateCalculator;
+    private final RecipeGraphService recipeGraphService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${recipes.bulk-recalculation.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${recipes.bulk-recalculation.worker-threads:0}")
+    private int workerThreads;
+
+    /** userId -> jobId de las ejecuciones activas en este nodo */
+    private final Map<Long, Long> runningJobs = new ConcurrentHashMap<>();
+
+    private ExecutorService coordinator;
+    private ExecutorService workers;
+    private volatile boolean shuttingDown;
+
+    @PostConstruct
+    void init() {
+        int threads = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+        coordinator = Executors.newCachedThreadPool(named("recipe-recalc-job"));
+        workers = Executors.newFixedThreadPool(threads, named("recipe-recalc-worker"));
+        log.info("Bulk recipe recalculation: chunk size {}, {} worker threads", chunkSize, threads);
+    }
+
+    /**
+     * Las ejecuciones en curso se quedan en RUNNING con su último checkpoint y
+     * se reanudan la próxima vez que se lancen.
+     */
+    @PreDestroy
+    void shutdown() {
+        shuttingDown = true;
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Lanza el recálculo de las recetas del usuario. Si ya hay uno activo lo
+     * devuelve; si el último no terminó (reinicio o error) lo reanuda.
+     */
+    public synchronized RecipeRecalculationJobResponse start(Long userId) {
+        Long activeJobId = runningJobs.get(userId);
+        if (activeJobId != null) {
+            return getJob(activeJobId, userId);
+        }
+
+        RecipeRecalculationJob job = jobRepository.findFirstByUserIdOrderByStartedAtDesc(userId)
+                .filter(j -> !j.isFinished())
+                .orElse(null);
+        if (job != null) {
+            log.info("Resuming recipe recalculation job {} for user {} after recipe {}",
+                    job.getId(), userId, job.getLastProcessedRecipeId());
+            job.setStatus(RecipeRecalculationJob.Status.RUNNING);
+            job.setErrorMessage(null);
+        } else {
+            job = RecipeRecalculationJob.builder()
+                    .userId(userId)
+                    .status(RecipeRecalculationJob.Status.RUNNING)
+                    .totalCount(recipeRepository.countByUserIdAndIdGreaterThan(userId, 0L))
+                    .startedAt(LocalDateTime.now())
+                    .build();
+            log.info("Starting recipe recalculation for user {} ({} recipes)", userId, job.getTotalCount());
+        }
+        job.setUpdatedAt(LocalDateTime.now());
+        job = jobRepository.save(job);
+
+        Long jobId = job.getId();
+        runningJobs.put(userId, jobId);
+        coordinator.submit(() -> run(jobId, userId));
+        return toResponse(job);
+    }
+
+    public RecipeRecalculationJobResponse getJob(Long jobId, Long userId) {
+        return jobRepository.findByIdAndUserId(jobId, userId)
+                .map(this::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Recalculation job not found with id: " + jobId));
+    }
+
+    public RecipeRecalculationJobResponse getLatestJob(Long userId) {
+        return jobRepository.findFirstByUserIdOrderByStartedAtDesc(userId)
+                .map(this::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("No recalculation job found for user: " + userId));
+    }
+
+    // ===========================
+    // EJECUCIÓN
+    // ===========================
+
+    private void run(Long jobId, Long userId) {
+        long startNanos = System.nanoTime();
+        long processedThisRun = 0;
+        try {
+            while (!shuttingDown) {
+                long processedBefore = processedThisRun;
+                Integer processed = transactionTemplate.execute(
+                        status -> processChunk(jobId, userId, startNanos, processedBefore));
+                if (processed == null || processed == 0)
+                    break;
+                processedThisRun += processed;
+            }
+            if (!shuttingDown) {
+                finish(jobId, RecipeRecalculationJob.Status.COMPLETED, null);
+                log.info("Recipe recalculation job {} completed: {} recipes in this run, {} recipes/s",
+                        jobId, processedThisRun, String.format("%.1f", rate(processedThisRun, startNanos)));
+            }
+        } catch (RuntimeException e) {
+            if (shuttingDown) {
+                log.info("Recipe recalculation job {} interrupted by shutdown; it will resume from its checkpoint", jobId);
+            } else {
+                log.error("Recipe recalculation job {} failed: {}", jobId, e.getMessage(), e);
+                finish(jobId, RecipeRecalculationJob.Status.FAILED, e.getMessage());
+            }
+        } finally {
+            runningJobs.remove(userId);
+        }
+    }
+
+    /**
+     * Recalcula el siguiente bloque y avanza el checkpoint en la misma transacción.
+     *
+     * @return número de recetas del bloque (0 cuando no quedan)
+     */
+    private int processChunk(Long jobId, Long userId, long startNanos, long processedBefore) {
+        RecipeRecalculationJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Recalculation job not found with id: " + jobId));
+        List<Long> ids = recipeRepository.findIdsByUserIdAfter(userId, job.getLastProcessedRecipeId(),
+                PageRequest.of(0, chunkSize));
+        if (ids.isEmpty())
+            return 0;
+
+        List<Recipe> recipes = recipeRepository.findDetailByIdIn(ids);
+        Map<Long, RecipeAggregate> results = evaluate(recipes);
+
+        // Las entidades solo se modifican en el hilo de la transacción
+        int failed = 0;
+        for (Recipe recipe : recipes) {
+            RecipeAggregate aggregate = results.get(recipe.getId());
+            if (aggregate != null) {
+                aggregate.applyTo(recipe);
+            } else {
+                failed++;
+            }
+        }
+
+        // Las recetas que usan alguna del bloque como sub-receta dependen de sus nuevos valores
+        recipeGraphService.recalculateAncestors(ids);
+
+        long processed = processedBefore + ids.size();
+        double rate = rate(processed, startNanos);
+        job.setLastProcessedRecipeId(ids.get(ids.size() - 1));
+        job.setProcessedCount(job.getProcessedCount() + ids.size());
+        job.setFailedCount(job.getFailedCount() + failed);
+        job.setRecipesPerSecond(rate);
+        job.setUpdatedAt(LocalDateTime.now());
+
+        log.info("Recipe recalculation job {}: {}/{} recipes, {} recipes/s",
+                jobId, job.getProcessedCount(), job.getTotalCount(), String.format("%.1f", rate));
+        return ids.size();
+    }
+
+    /**
+     * Evalúa las recetas del bloque en el pool de workers. Las sub-recetas se
+     * leen de sus agregados materializados, así que no hay accesos perezosos a
+     * la sesión desde otros hilos. Las recetas que fallan se devuelven sin valor.
+     */
+    private Map<Long, RecipeAggregate> evaluate(List<Recipe> recipes) {
+        List<Callable<RecipeAggregate>> tasks = new ArrayList<>(recipes.size());
+        for (Recipe recipe : recipes) {
+            tasks.add(() -> aggregateCalculator.calculate(recipe, RecipeAggregate::of));
+        }
+
+        Map<Long, RecipeAggregate> results = new HashMap<>();
+        try {
+            List<Future<RecipeAggregate>> futures = workers.invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++) {
+                Long recipeId = recipes.get(i).getId();
+                try {
+                    results.put(recipeId, futures.get(i).get());
+                } catch (ExecutionException e) {
+                    log.warn("Error recalculating recipe {}: {}", recipeId, e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recipe recalculation interrupted", e);
+        }
+        return results;
+    }
+
+    private void finish(Long jobId, RecipeRecalculationJob.Status status, String errorMessage) {
+        transactionTemplate.executeWithoutResult(tx -> jobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setErrorMessage(errorMessage != null && errorMessage.length() > 500
+                    ? errorMessage.substring(0, 500)
+                    : errorMessage);
+            job.setUpdatedAt(LocalDateTime.now());
+            if (status == RecipeRecalculationJob.Status.COMPLETED)
+                job.setFinishedAt(LocalDateTime.now());
+        }));
+    }
+
+    private double rate(long processed, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return seconds > 0 ? processed / seconds : 0.0;
+    }
+
+    private RecipeRecalculationJobResponse toResponse(RecipeRecalculationJob job) {
+        return RecipeRecalculationJobResponse.builder()
+                .id(job.getId())
+                .status(job.getStatus().name())
+                .running(job.getId().equals(runningJobs.get(job.getUserId())))
+                .processedCount(job.getProcessedCount())
+                .failedCount(job.getFailedCount())
+                .totalCount(job.getTotalCount())
+                .lastProcessedRecipeId(job.getLastProcessedRecipeId())
+                .recipesPerSecond(job.getRecipesPerSecond())
+                .errorMessage(job.getErrorMessage())
+                .startedAt(job.getStartedAt())
+                .updatedAt(job.getUpdatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
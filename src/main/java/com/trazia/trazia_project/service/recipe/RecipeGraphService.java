@@ -0,0 +1,164 @@
+package com.trazia.trazia_project.service.recipe;
+
+import com.trazia.trazia_project.entity.recipe.Recipe;
+import com.trazia.trazia_project.entity.recipe.RecipeIngredient;
+import com.trazia.trazia_project.model.RecipeAggregate;
+import com.trazia.trazia_project.repository.recipe.RecipeIngredientRepository;
+import com.trazia.trazia_project.repository.recipe.RecipeRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Grafo de sub-recetas: las recetas pueden usar otras recetas como ingrediente
+ * formando un DAG.
+ *
+ * - Al guardar se comprueba que la nueva arista no cierra un ciclo.
+ * - Cuando una receta cambia se recalculan sus ancestros por niveles
+ *   topológicos: cada sub-receta se evalúa una sola vez (memo) y las recetas
+ *   del mismo nivel, que no dependen entre sí, se evalúan en paralelo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecipeGraphService {
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final RecipeAggregateCalculator aggregateCalculator;
+
+    /**
+     * Lanza IllegalArgumentException si usar las sub-recetas indicadas dentro de
+     * la receta recipeId crearía un ciclo (directo o a través de otras recetas).
+     */
+    public void assertNoCycle(Long recipeId, Collection<Long> subRecipeIds) {
+        if (recipeId == null || subRecipeIds == null || subRecipeIds.isEmpty())
+            return;
+        if (subRecipeIds.contains(recipeId))
+            throw new IllegalArgumentException("A recipe cannot use itself as an ingredient");
+
+        // BFS hacia abajo, un nivel por consulta
+        Set<Long> visited = new HashSet<>(subRecipeIds);
+        Collection<Long> frontier = subRecipeIds;
+        while (!frontier.isEmpty()) {
+            List<Long> next = new ArrayList<>();
+            for (Long id : recipeIngredientRepository.findSubRecipeIdsByRecipeIdIn(frontier)) {
+                if (id.equals(recipeId))
+                    throw new IllegalArgumentException(
+                            "Sub-recipe cycle detected: recipe " + recipeId + " is already used by one of its ingredients");
+                if (visited.add(id))
+                    next.add(id);
+            }
+            frontier = next;
+        }
+    }
+
+    /**
+     * Recalcula todas las recetas que usan (directa o indirectamente) alguna de
+     * las recetas indicadas. Las recetas indicadas deben tener ya sus agregados
+     * actualizados.
+     *
+     * @return número de recetas recalculadas
+     */
+    @Transactional
+    public int recalculateAncestors(Collection<Long> changedRecipeIds) {
+        if (changedRecipeIds == null || changedRecipeIds.isEmpty())
+            return 0;
+
+        Set<Long> ancestorIds = findAncestorIds(changedRecipeIds);
+        if (ancestorIds.isEmpty())
+            return 0;
+
+        long start = System.currentTimeMillis();
+        Map<Long, Recipe> ancestors = recipeRepository.findDetailByIdIn(ancestorIds).stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+
+        // Dependencias dentro del subgrafo: receta -> sub-recetas que también hay que recalcular
+        Map<Long, Set<Long>> pending = new HashMap<>();
+        for (Recipe recipe : ancestors.values()) {
+            Set<Long> deps = new HashSet<>();
+            for (RecipeIngredient ri : recipe.getIngredients()) {
+                if (ri.isSubRecipe() && ancestors.containsKey(ri.getSubRecipe().getId()))
+                    deps.add(ri.getSubRecipe().getId());
+            }
+            pending.put(recipe.getId(), deps);
+        }
+
+        Map<Long, RecipeAggregate> memo = new ConcurrentHashMap<>();
+        Function<Recipe, RecipeAggregate> lookup = sub -> memo.computeIfAbsent(sub.getId(),
+                id -> RecipeAggregate.of(sub));
+
+        // Precarga de las sub-recetas externas al subgrafo (sus agregados no cambian)
+        for (Recipe recipe : ancestors.values()) {
+            for (RecipeIngredient ri : recipe.getIngredients()) {
+                if (ri.isSubRecipe() && !ancestors.containsKey(ri.getSubRecipe().getId()))
+                    lookup.apply(ri.getSubRecipe());
+            }
+        }
+
+        int recalculated = 0;
+        while (!pending.isEmpty()) {
+            List<Recipe> level = pending.entrySet().stream()
+                    .filter(e -> e.getValue().isEmpty())
+                    .map(e -> ancestors.get(e.getKey()))
+                    .toList();
+            if (level.isEmpty()) {
+                // No debería ocurrir porque se validan los ciclos al guardar
+                log.error("Sub-recipe cycle detected among recipes {}", pending.keySet());
+                break;
+            }
+
+            (level.size() > 1 ? level.parallelStream() : level.stream()).forEach(recipe -> {
+                try {
+                    memo.put(recipe.getId(), aggregateCalculator.calculate(recipe, lookup));
+                } catch (RuntimeException e) {
+                    log.error("Error recalculating recipe {}: {}", recipe.getId(), e.getMessage());
+                    memo.put(recipe.getId(), RecipeAggregate.of(recipe));
+                }
+            });
+
+            // Las entidades solo se modifican en el hilo de la transacción
+            for (Recipe recipe : level) {
+                memo.get(recipe.getId()).applyTo(recipe);
+                pending.remove(recipe.getId());
+                recalculated++;
+            }
+            Set<Long> done = level.stream().map(Recipe::getId).collect(Collectors.toSet());
+            pending.values().forEach(deps -> deps.removeAll(done));
+        }
+
+        log.info("Recalculated {} ancestor recipes of {} in {} ms",
+                recalculated, changedRecipeIds, System.currentTimeMillis() - start);
+        return recalculated;
+    }
+
+    /**
+     * BFS hacia arriba: todas las recetas que usan alguna de las indicadas.
+     */
+    private Set<Long> findAncestorIds(Collection<Long> recipeIds) {
+        Set<Long> ancestors = new HashSet<>();
+        Collection<Long> frontier = recipeIds;
+        while (!frontier.isEmpty()) {
+            List<Long> next = new ArrayList<>();
+            for (Long id : recipeIngredientRepository.findParentRecipeIdsBySubRecipeIdIn(frontier)) {
+                if (ancestors.add(id))
+                    next.add(id);
+            }
+            frontier = next;
+        }
+        return ancestors;
+    }
+}
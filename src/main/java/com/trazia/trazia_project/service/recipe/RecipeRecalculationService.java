@@ -0,0 +1,274 @@
+package com.trazia.trazia_project.service.recipe;
+
+import com.trazia.trazia_project.entity.recipe.Recipe;
+import com.trazia.trazia_project.entity.recipe.RecipeIngredient;
+import com.trazia.trazia_project.event.product.ProductChangedEvent;
+import com.trazia.trazia_project.model.NutrientVector;
+import com.trazia.trazia_project.repository.recipe.RecipeIngredientRepository;
+import com.trazia.trazia_project.repository.recipe.RecipeRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Propaga a las recetas los cambios de coste y nutrientes de sus productos.
+ *
+ * Los cambios se acumulan por producto tras el commit y se procesan en lotes
+ * periódicos: varios cambios del mismo producto se fusionan en uno y cada
+ * receta afectada se actualiza una sola vez por lote, aplicando solo la
+ * diferencia de los productos modificados sobre sus agregados materializados.
+ *
+ * - Una receta cuyos agregados se calcularon después del cambio (alta o
+ *   edición entre el commit y el lote) ya incluye los valores nuevos: se
+ *   recalcula entera en lugar de sumarle la diferencia otra vez.
+ * - Si el lote falla, sus cambios vuelven a la cola y se reintentan.
+ * - Los nutrientes materializados están redondeados a 2 decimales y cada
+ *   diferencia se suma sobre ellos: tras max-incremental-updates
+ *   actualizaciones seguidas la receta se recalcula entera, lo que acota el
+ *   error acumulado.
+ * - Si falla una sola receta, el resto del lote se confirma y esa receta se
+ *   recalcula entera en el siguiente lote (sin delta: no se sabe qué parte de
+ *   los cambios llegó a aplicarse).
+ * - Los cambios en memoria se pierden al reiniciar; al arrancar se recalculan
+ *   las recetas con agregados anteriores a la última modificación de sus productos.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecipeRecalculationService {
+
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal ONE_THOUSAND = BigDecimal.valueOf(1000);
+
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final RecipeRepository recipeRepository;
+    private final RecipeService recipeService;
+    private final RecipeGraphService recipeGraphService;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Cambios pendientes por productId, ya fusionados */
+    private final Map<Long, ProductChangedEvent> pendingChanges = new ConcurrentHashMap<>();
+    /** Recetas que fallaron en un lote confirmado; se recalculan enteras */
+    private final Set<Long> failedRecipeIds = ConcurrentHashMap.newKeySet();
+
+    @Value("${recipes.recalculation.max-products-per-batch:500}")
+    private int maxProductsPerBatch;
+
+    @Value("${recipes.recalculation.max-incremental-updates:20}")
+    private int maxIncrementalUpdates;
+
+    /**
+     * Encola el cambio una vez confirmada la transacción que modificó el producto.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        pendingChanges.merge(event.productId(), event, ProductChangedEvent::mergeWith);
+    }
+
+    public int getPendingCount() {
+        return pendingChanges.size();
+    }
+
+    public int getFailedRecipeCount() {
+        return failedRecipeIds.size();
+    }
+
+    /**
+     * Procesa un lote de cambios pendientes. Las recetas que usan varios de los
+     * productos del lote se recalculan una sola vez.
+     */
+    @Scheduled(fixedDelayString = "${recipes.recalculation.flush-interval-ms:2000}")
+    public void flushPendingChanges() {
+        retryFailedRecipes();
+
+        Map<Long, ProductChangedEvent> batch = drainBatch();
+        if (batch.isEmpty())
+            return;
+
+        try {
+            List<Long> failed = new ArrayList<>();
+            transactionTemplate.executeWithoutResult(status -> processBatch(batch, failed));
+            failedRecipeIds.addAll(failed);
+        } catch (RuntimeException e) {
+            requeue(batch);
+            log.error("Error recalculating recipes for {} changed products, batch re-queued: {}",
+                    batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula las recetas cuyos cambios pendientes se perdieron en un reinicio.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recalculateStaleRecipes() {
+        List<Long> staleIds = transactionTemplate.execute(status -> recipeRepository.findIdsWithStaleAggregates());
+        if (staleIds == null || staleIds.isEmpty())
+            return;
+
+        log.info("Recalculating {} recipes with aggregates older than their products", staleIds.size());
+        for (int from = 0; from < staleIds.size(); from += maxProductsPerBatch) {
+            List<Long> chunk = staleIds.subList(from, Math.min(from + maxProductsPerBatch, staleIds.size()));
+            try {
+                refreshRecipes(chunk);
+            } catch (RuntimeException e) {
+                log.error("Error recalculating stale recipes {}: {}", chunk, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Recalcula enteras las recetas que fallaron en lotes anteriores. Si vuelven
+     * a fallar siguen pendientes; tras un reinicio las recupera
+     * recalculateStaleRecipes, porque sus agregados no llegaron a actualizarse.
+     */
+    private void retryFailedRecipes() {
+        if (failedRecipeIds.isEmpty())
+            return;
+
+        List<Long> ids = new ArrayList<>(failedRecipeIds);
+        if (ids.size() > maxProductsPerBatch)
+            ids = ids.subList(0, maxProductsPerBatch);
+        try {
+            refreshRecipes(ids);
+            ids.forEach(failedRecipeIds::remove);
+            log.info("Recalculated {} recipes that failed in a previous batch", ids.size());
+        } catch (RuntimeException e) {
+            log.error("Error recalculating previously failed recipes {}: {}", ids, e.getMessage());
+        }
+    }
+
+    private void refreshRecipes(List<Long> recipeIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            recipeRepository.findDetailByIdIn(recipeIds).forEach(recipeService::refreshAggregates);
+            recipeGraphService.recalculateAncestors(recipeIds);
+        });
+    }
+
+    private void processBatch(Map<Long, ProductChangedEvent> batch, List<Long> failed) {
+        long start = System.currentTimeMillis();
+        Map<Long, Recipe> recipes = new LinkedHashMap<>();
+        Map<Long, List<RecipeIngredient>> changedIngredients = new HashMap<>();
+        for (RecipeIngredient ri : recipeIngredientRepository.findWithRecipeByProductIdIn(batch.keySet())) {
+            Recipe recipe = ri.getRecipe();
+            recipes.putIfAbsent(recipe.getId(), recipe);
+            changedIngredients.computeIfAbsent(recipe.getId(), id -> new ArrayList<>()).add(ri);
+        }
+
+        for (Recipe recipe : recipes.values()) {
+            try {
+                applyChanges(recipe, changedIngredients.get(recipe.getId()), batch);
+            } catch (RuntimeException e) {
+                failed.add(recipe.getId());
+                log.error("Error recalculating recipe {}, retrying with a full refresh: {}",
+                        recipe.getId(), e.getMessage());
+            }
+        }
+
+        // Las recetas que usan las recalculadas como sub-receta, por niveles
+        int ancestors = recipeGraphService.recalculateAncestors(recipes.keySet());
+
+        log.info("Recalculated {} recipes ({} through sub-recipes) for {} changed products in {} ms",
+                recipes.size() + ancestors, ancestors, batch.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Devuelve a la cola un lote fallido, delante de los cambios que llegaron
+     * mientras tanto para el mismo producto.
+     */
+    private void requeue(Map<Long, ProductChangedEvent> batch) {
+        batch.forEach((productId, failed) -> pendingChanges.merge(productId, failed,
+                (queued, retry) -> retry.mergeWith(queued)));
+    }
+
+    private Map<Long, ProductChangedEvent> drainBatch() {
+        Map<Long, ProductChangedEvent> batch = new HashMap<>();
+        Iterator<Long> ids = pendingChanges.keySet().iterator();
+        while (ids.hasNext() && batch.size() < maxProductsPerBatch) {
+            Long productId = ids.next();
+            ProductChangedEvent event = pendingChanges.remove(productId);
+            if (event != null)
+                batch.put(productId, event);
+        }
+        return batch;
+    }
+
+    /**
+     * Aplica sobre los agregados de la receta la diferencia de cada ingrediente
+     * cuyo producto ha cambiado. Las recetas sin agregados, con agregados
+     * calculados después de alguno de los cambios o que ya acumulan el máximo
+     * de actualizaciones incrementales se recalculan enteras.
+     */
+    private void applyChanges(Recipe recipe, List<RecipeIngredient> ingredients,
+            Map<Long, ProductChangedEvent> changes) {
+        BigDecimal totalWeight = recipe.getTotalWeightGrams();
+        BigDecimal yieldWeight = recipe.getYieldWeightGrams();
+        int incrementalUpdates = recipe.getIncrementalUpdates() != null ? recipe.getIncrementalUpdates() : 0;
+        if (!recipe.hasAggregates() || incrementalUpdates >= maxIncrementalUpdates || totalWeight == null || totalWeight.signum() == 0
+                || yieldWeight == null || yieldWeight.signum() == 0
+                || !isBeforeAllChanges(recipe.getAggregatesUpdatedAt(), ingredients, changes)) {
+            recipeService.refreshAggregates(recipe);
+            return;
+        }
+
+        double yieldFactor = 100.0 / yieldWeight.doubleValue();
+        double totalWeightGrams = totalWeight.doubleValue();
+        BigDecimal costDelta = BigDecimal.ZERO;
+        NutrientVector per100g = NutrientVector.of(recipe.getNutrimentsPor100g());
+
+        for (RecipeIngredient ri : ingredients) {
+            ProductChangedEvent change = changes.get(ri.getProduct().getId());
+            BigDecimal qty = ri.getQuantityGrams() != null ? ri.getQuantityGrams() : BigDecimal.ZERO;
+
+            BigDecimal costDiff = nullToZero(change.after().costPerUnit())
+                    .subtract(nullToZero(change.before().costPerUnit()));
+            costDelta = costDelta.add(costDiff.multiply(qty.divide(ONE_THOUSAND, 6, RoundingMode.HALF_UP)));
+
+            // Misma ponderación que el cálculo completo: proporción del ingrediente × 100 / rendimiento
+            double factor = qty.doubleValue() / totalWeightGrams * yieldFactor;
+            per100g.addScaled(change.after().nutriments(), factor)
+                    .addScaled(change.before().nutriments(), -factor);
+        }
+        recipe.setNutrimentsPor100g(per100g.clampNonNegative().toProductNutriments());
+
+        BigDecimal totalCost = nullToZero(recipe.getTotalCost()).add(costDelta).setScale(6, RoundingMode.HALF_UP);
+        recipe.setTotalCost(totalCost);
+        recipe.setCostPer100g(totalCost.divide(yieldWeight, 6, RoundingMode.HALF_UP)
+                .multiply(ONE_HUNDRED)
+                .setScale(6, RoundingMode.HALF_UP));
+        recipe.setAggregatesUpdatedAt(LocalDateTime.now());
+        recipe.setIncrementalUpdates(incrementalUpdates + 1);
+    }
+
+    private boolean isBeforeAllChanges(LocalDateTime aggregatesUpdatedAt, List<RecipeIngredient> ingredients,
+            Map<Long, ProductChangedEvent> changes) {
+        for (RecipeIngredient ri : ingredients) {
+            if (!aggregatesUpdatedAt.isBefore(changes.get(ri.getProduct().getId()).changedAt()))
+                return false;
+        }
+        return true;
+    }
+
+    private BigDecimal nullToZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -1,9 +1,11 @@
 package com.trazia.trazia_project.service.recipe;
 
+import com.trazia.trazia_project.dto.common.CursorPageResponse;
 import com.trazia.trazia_project.dto.product.LabelPrintDTO;
 import com.trazia.trazia_project.dto.recipe.RecipePageResponse;
 import com.trazia.trazia_project.dto.recipe.RecipeRequest;
 import com.trazia.trazia_project.dto.recipe.RecipeResponse;
+import com.trazia.trazia_project.dto.recipe.RecipeSummaryResponse;
 import com.trazia.trazia_project.entity.recipe.Recipe;
 import com.trazia.trazia_project.model.NutrimentsDTO;
 import org.springframework.data.domain.Pageable;
@@ -38,6 +40,17 @@ public interface RecipeService {
      * @return Paginated list of recipe summaries
      */
     RecipePageResponse getAllRecipes(Long userId, Pageable pageable);
+
+    /**
+     * Retrieves recipes newest first with keyset pagination.
+     * @param userId Owner user ID
+     * @param cursor Opaque token from the previous page (null for the first page)
+     * @param size Page size
+     * @param includeTotal Whether to include the (cached) total count
+     * @return Page of recipe summaries with the cursor for the next page
+     */
+    CursorPageResponse<RecipeSummaryResponse> getRecipesByCursor(Long userId, String cursor, int size,
+            boolean includeTotal);
     
     /**
      * Updates an existing recipe.
@@ -61,6 +74,21 @@ public interface RecipeService {
      * @param recipe Recipe entity with ingredients
      */
     void calculatePerServing(Recipe recipe);
+
+    /**
+     * Recomputes the materialized aggregates stored in the recipe entity
+     * (total cost, cost per 100g, total ingredient weight, ingredient count and
+     * nutriments per 100g).
+     * @param recipe Recipe entity with ingredients loaded
+     */
+    void refreshAggregates(Recipe recipe);
+
+    /**
+     * Recomputes the aggregates of every recipe that uses the given product.
+     * @param productId Product whose cost or nutriments changed
+     * @return Number of recipes recalculated
+     */
+    int recalculateRecipesUsingProduct(Long productId);
     
     /**
      * Calculates daily value percentages for given nutrients.
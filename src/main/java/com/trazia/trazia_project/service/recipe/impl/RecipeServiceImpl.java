@@ -2,6 +2,8 @@ package com.trazia.trazia_project.service.recipe.impl;
 
 import org.springframework.lang.NonNull;
 
+import com.trazia.trazia_project.config.CacheNames;
+import com.trazia.trazia_project.dto.common.CursorPageResponse;
 import com.trazia.trazia_project.dto.product.ProductDTO;
 import com.trazia.trazia_project.dto.recipe.*;
 import com.trazia.trazia_project.dto.recipe.RecipeIngredientRequest;
@@ -9,21 +11,32 @@ import com.trazia.trazia_project.dto.product.LabelPrintDTO;
 import com.trazia.trazia_project.entity.batch.FinalProductLot;
 import com.trazia.trazia_project.entity.product.Product;
 import com.trazia.trazia_project.entity.product.ProductCategory;
+import com.trazia.trazia_project.entity.product.ProductNutriments;
 import com.trazia.trazia_project.entity.recipe.Recipe;
 import com.trazia.trazia_project.entity.recipe.RecipeIngredient;
 import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.event.product.ProductCatalogChangedEvent;
+import com.trazia.trazia_project.exception.recipe.RecipeInUseException;
 import com.trazia.trazia_project.exception.recipe.ResourceNotFoundException;
 import com.trazia.trazia_project.mapper.ProductMapper;
 import com.trazia.trazia_project.model.NutrimentsDTO;
+import com.trazia.trazia_project.model.RecipeAggregate;
+import com.trazia.trazia_project.model.SeekCursor;
 import com.trazia.trazia_project.repository.product.ProductRepository;
 import com.trazia.trazia_project.repository.recipe.RecipeIngredientRepository;
 import com.trazia.trazia_project.repository.recipe.RecipeRepository;
 import com.trazia.trazia_project.service.common.NutritionConversionService;
+import com.trazia.trazia_project.service.recipe.RecipeAggregateCalculator;
+import com.trazia.trazia_project.service.recipe.RecipeGraphService;
 import com.trazia.trazia_project.service.recipe.RecipeService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,6 +46,7 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -49,6 +63,10 @@ public class RecipeServiceImpl implements RecipeService {
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
     private final NutritionConversionService nutritionConversionService;
+    private final RecipeAggregateCalculator aggregateCalculator;
+    private final RecipeGraphService recipeGraphService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
 
     // ===========================
     // PUBLIC CRUD METHODS
@@ -56,28 +74,28 @@ public class RecipeServiceImpl implements RecipeService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.RECIPE_COUNTS, key = "#userId")
     public RecipeResponse createRecipe(RecipeRequest request, Long userId) {
         Objects.requireNonNull(userId, "User ID cannot be null");
         log.info("Creating recipe '{}' for user {}", request.getName(), userId);
         Recipe recipe = Objects.requireNonNull(buildRecipeEntity(request, userId), "Recipe cannot be null");
         recipe = recipeRepository.save(recipe);
         List<RecipeIngredient> ingredients = createIngredientsFromRequest(recipe, request.getIngredients(), userId);
-        recipe.setIngredients(ingredients);
+        recipe.getIngredients().addAll(ingredients);
 
-        // HU 5.1: compute and store nutriments per 100g for later use
-        calculatePerServing(recipe);
+        // HU 5.1: compute and store nutriments, cost and weight for later reads
+        refreshAggregates(recipe);
         return buildRecipeResponse(recipe);
     }
 
     @Override
     @Transactional(readOnly = true)
     public RecipeResponse getRecipeById(Long recipeId, Long userId) {
-        Recipe recipe = recipeRepository.findByIdAndUserId(recipeId, userId)
+        Recipe recipe = recipeRepository.findDetailByIdAndUserId(recipeId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Recipe not found with id: " + recipeId));
 
-        // ensure nutriments are calculated
-        calculatePerServing(recipe);
+        ensureAggregates(recipe);
         return buildRecipeResponse(recipe);
     }
 
@@ -85,7 +103,7 @@ public class RecipeServiceImpl implements RecipeService {
     @Transactional(readOnly = true)
     public RecipePageResponse getAllRecipes(Long userId, Pageable pageable) {
         Page<Recipe> page = recipeRepository.findByUserId(userId, pageable);
-        List<RecipeSummaryResponse> summaries = page.getContent().stream()
+        List<RecipeSummaryResponse> summaries = loadSummaryGraph(page.getContent()).stream()
                 .map(this::buildRecipeSummaryResponse)
                 .collect(Collectors.toList());
 
@@ -102,11 +120,47 @@ public class RecipeServiceImpl implements RecipeService {
                 .build();
     }
 
+    /**
+     * Keyset pagination on (createdAt DESC, id DESC): every page costs the same
+     * regardless of depth. One extra row is fetched to know whether there is a
+     * next page, so no count(*) runs unless the (cached) total is requested.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<RecipeSummaryResponse> getRecipesByCursor(Long userId, String cursor, int size,
+            boolean includeTotal) {
+        Limit limit = Limit.of(size + 1);
+        List<Recipe> recipes;
+        if (cursor == null || cursor.isBlank()) {
+            recipes = recipeRepository.findFirstPageByUserId(userId, limit);
+        } else {
+            SeekCursor after = SeekCursor.decode(cursor);
+            recipes = recipeRepository.findPageByUserIdAfter(userId, after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasNext = recipes.size() > size;
+        if (hasNext)
+            recipes = recipes.subList(0, size);
+        Recipe last = recipes.isEmpty() ? null : recipes.get(recipes.size() - 1);
+
+        List<RecipeSummaryResponse> summaries = loadSummaryGraph(recipes).stream()
+                .map(this::buildRecipeSummaryResponse)
+                .collect(Collectors.toList());
+
+        return CursorPageResponse.<RecipeSummaryResponse>builder()
+                .items(summaries)
+                .nextCursor(hasNext ? new SeekCursor(last.getCreatedAt(), last.getId()).encode() : null)
+                .hasNext(hasNext)
+                .pageSize(size)
+                .totalElements(includeTotal ? recipeRepository.countByUserIdAndDeletedFalse(userId) : null)
+                .build();
+    }
+
     @Override
     @Transactional
     public RecipeResponse updateRecipe(Long recipeId, RecipeRequest request, Long userId) {
         log.info("Updating recipe {} for user {}", recipeId, userId);
-        Recipe recipe = recipeRepository.findByIdAndUserId(recipeId, userId)
+        Recipe recipe = recipeRepository.findDetailByIdAndUserId(recipeId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Recipe not found with id: " + recipeId));
 
@@ -117,24 +171,32 @@ public class RecipeServiceImpl implements RecipeService {
                 : BigDecimal.ZERO);
         recipe.setUpdatedAt(LocalDateTime.now());
 
-        // replace ingredients
-        recipeIngredientRepository.deleteByRecipeId(recipeId);
+        // replace ingredients: orphanRemoval deletes the previous rows in the same JDBC batch
+        recipe.getIngredients().clear();
         List<RecipeIngredient> newIngredients = createIngredientsFromRequest(recipe, request.getIngredients(), userId);
-        recipe.setIngredients(newIngredients);
+        recipe.getIngredients().addAll(newIngredients);
 
-        calculatePerServing(recipe);
+        refreshAggregates(recipe);
         recipeRepository.save(recipe);
+
+        // Las recetas que usan esta como sub-receta dependen de sus agregados
+        recipeGraphService.recalculateAncestors(List.of(recipe.getId()));
         return buildRecipeResponse(recipe);
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheNames.RECIPE_COUNTS, key = "#userId")
     public void deleteRecipe(Long recipeId, Long userId) {
         Recipe recipe = Objects.requireNonNull(
                 recipeRepository.findByIdAndUserId(recipeId, userId)
                         .orElseThrow(() -> new ResourceNotFoundException(
                                 "Recipe not found with id: " + recipeId)),
                 "Recipe cannot be null");
+        List<Long> parentIds = recipeIngredientRepository.findParentRecipeIdsBySubRecipeIdIn(List.of(recipeId));
+        if (!parentIds.isEmpty()) {
+            throw new RecipeInUseException(recipeId, parentIds);
+        }
         log.info("Deleting recipe {} for user {}", recipeId, userId);
         recipeRepository.delete(recipe);
     }
@@ -144,35 +206,36 @@ public class RecipeServiceImpl implements RecipeService {
      */
     @Override
     public void calculatePerServing(Recipe recipe) {
-        if (recipe.getYieldWeightGrams() == null) {
-            throw new RuntimeException("Yield weight cannot be null");
-        }
-        if (recipe.getYieldWeightGrams().compareTo(BigDecimal.ZERO) == 0) {
-            throw new ArithmeticException("Yield weight cannot be zero");
-        }
+        RecipeAggregate aggregate = aggregateCalculator.calculate(recipe, this::subRecipeAggregate);
+        recipe.setNutrimentsPor100g(aggregate.per100g().toProductNutriments());
+    }
 
-        NutrimentsDTO total = calculateTotalNutrients(recipe);
-        // BigDecimal used for all calculations, only convert to double here for service
-        // compatibility
-        NutrimentsDTO per100g = nutritionConversionService.calculatePer100g(
-                total,
-                recipe.getYieldWeightGrams() != null ? recipe.getYieldWeightGrams() : BigDecimal.ZERO);
-        // Validation to never assign null
-        if (per100g == null) {
-            per100g = NutrimentsDTO.builder()
-                    .calories(0.0)
-                    .protein(0.0)
-                    .carbohydrates(0.0)
-                    .sugars(0.0)
-                    .fat(0.0)
-                    .saturatedFat(0.0)
-                    .fiber(0.0)
-                    .sodium(0.0)
-                    .salt(0.0)
-                    .build();
+    /**
+     * Recomputes and stores every materialized aggregate of the recipe: total
+     * cost, cost per 100g, total ingredient weight, ingredient count and
+     * nutriments per 100g. Must be called whenever the recipe or one of its
+     * ingredient products changes.
+     */
+    @Override
+    public void refreshAggregates(Recipe recipe) {
+        aggregateCalculator.calculate(recipe, this::subRecipeAggregate).applyTo(recipe);
+    }
+
+    @Override
+    @Transactional
+    public int recalculateRecipesUsingProduct(Long productId) {
+        List<Recipe> recipes = recipeIngredientRepository.findByProductId(productId).stream()
+                .map(RecipeIngredient::getRecipe)
+                .distinct()
+                .collect(Collectors.toList());
+        for (Recipe recipe : recipes) {
+            refreshAggregates(recipe);
         }
-        // Only set the ProductNutriments entity, not the DTO
-        recipe.setNutrimentsPor100g(productMapper.toEntityProductNutriments(per100g));
+        recipeRepository.saveAll(recipes);
+        int ancestors = recipeGraphService.recalculateAncestors(
+                recipes.stream().map(Recipe::getId).collect(Collectors.toList()));
+        log.info("Recalculated {} recipes using product {}", recipes.size() + ancestors, productId);
+        return recipes.size() + ancestors;
     }
 
     /**
@@ -230,18 +293,19 @@ public class RecipeServiceImpl implements RecipeService {
 
         StringBuilder formattedList = new StringBuilder();
         for (RecipeIngredient ingredient : ingredients) {
-            String name = ingredient.getProduct() != null && ingredient.getProduct().getName() != null
-                    ? ingredient.getProduct().getName()
+            String name = ingredient.getDisplayName() != null
+                    ? ingredient.getDisplayName()
                     : "Unknown ingredient";
 
             BigDecimal quantity = ingredient.getQuantityGrams() != null ? ingredient.getQuantityGrams()
                     : BigDecimal.ZERO;
 
             // Allergen handling: include list of allergens in parentheses if present
+            // (sub-recipes contribute the allergens of all their nested products)
+            Set<String> ingredientAllergens = collectAllergens(ingredient, new LinkedHashSet<>(), new HashSet<>());
             String allergens = "";
-            if (ingredient.getProduct() != null && ingredient.getProduct().getAllergens() != null
-                    && !ingredient.getProduct().getAllergens().isEmpty()) {
-                allergens = " (Allergens: " + String.join(", ", ingredient.getProduct().getAllergens()) + ")";
+            if (!ingredientAllergens.isEmpty()) {
+                allergens = " (Allergens: " + String.join(", ", ingredientAllergens) + ")";
             }
 
             formattedList.append(name)
@@ -265,12 +329,12 @@ public class RecipeServiceImpl implements RecipeService {
     @Transactional(readOnly = true)
     public LabelPrintDTO generateLabel(Long recipeId, Long userId) {
         // Find user's recipe
-        Recipe recipe = recipeRepository.findByIdAndUserId(recipeId, userId)
+        Recipe recipe = recipeRepository.findLabelByIdAndUserId(recipeId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Recipe not found with id: " + recipeId));
 
-        // Ensure nutrients are calculated
-        calculatePerServing(recipe);
+        // Legacy rows without materialized aggregates are computed on the fly
+        ensureAggregates(recipe);
 
         // Create DTO for label and fill common info
         LabelPrintDTO label = buildLabelPrintDTO(recipe, false);
@@ -289,12 +353,12 @@ public class RecipeServiceImpl implements RecipeService {
     @Transactional(readOnly = true)
     public LabelPrintDTO generatePrintLabel(Long recipeId, Long userId) {
         // Obtener la receta del usuario
-        Recipe recipe = recipeRepository.findByIdAndUserId(recipeId, userId)
+        Recipe recipe = recipeRepository.findLabelByIdAndUserId(recipeId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Recipe not found with id: " + recipeId));
 
-        // Asegurar que los nutrientes estén calculados
-        calculatePerServing(recipe);
+        // Filas antiguas sin agregados materializados se calculan al vuelo
+        ensureAggregates(recipe);
 
         // Crear DTO para la etiqueta, incluyendo alérgenos y lote
         LabelPrintDTO label = buildLabelPrintDTO(recipe, true);
@@ -305,6 +369,64 @@ public class RecipeServiceImpl implements RecipeService {
     // PRIVATE HELPERS
     // ===========================
 
+    /**
+     * Summaries are plain column reads. Only recipes stored before aggregates
+     * were materialized need their ingredients, which are fetched for the
+     * whole page with one query; the recipes keep the original page order.
+     */
+    private List<Recipe> loadSummaryGraph(List<Recipe> recipes) {
+        List<Long> missing = recipes.stream()
+                .filter(r -> !r.hasAggregates())
+                .map(Recipe::getId)
+                .collect(Collectors.toList());
+        if (missing.isEmpty())
+            return recipes;
+        Map<Long, Recipe> loaded = recipeRepository.findSummaryByIdIn(missing).stream()
+                .collect(Collectors.toMap(Recipe::getId, r -> r, (a, b) -> a));
+        return recipes.stream()
+                .map(r -> loaded.getOrDefault(r.getId(), r))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Computes the aggregates in memory for recipes that have never been
+     * materialized (read-only transactions do not persist them).
+     */
+    private void ensureAggregates(Recipe recipe) {
+        if (!recipe.hasAggregates()) {
+            refreshAggregates(recipe);
+        }
+    }
+
+    /**
+     * Agregados de una sub-receta: los materializados si existen (memo
+     * persistente), si no se calculan recursivamente. El grafo es acíclico
+     * porque los ciclos se rechazan al guardar.
+     */
+    private RecipeAggregate subRecipeAggregate(Recipe subRecipe) {
+        return subRecipe.hasAggregates()
+                ? RecipeAggregate.of(subRecipe)
+                : aggregateCalculator.calculate(subRecipe, this::subRecipeAggregate);
+    }
+
+    /**
+     * Añade los alérgenos del producto del ingrediente o, si es una sub-receta,
+     * los de todos sus ingredientes anidados (cada sub-receta se visita una vez).
+     */
+    private Set<String> collectAllergens(RecipeIngredient ingredient, Set<String> allergens, Set<Long> visited) {
+        if (ingredient.isSubRecipe()) {
+            Recipe subRecipe = ingredient.getSubRecipe();
+            if (visited.add(subRecipe.getId()) && subRecipe.getIngredients() != null) {
+                for (RecipeIngredient nested : subRecipe.getIngredients()) {
+                    collectAllergens(nested, allergens, visited);
+                }
+            }
+        } else if (ingredient.getProduct() != null && ingredient.getProduct().getAllergens() != null) {
+            allergens.addAll(ingredient.getProduct().getAllergens());
+        }
+        return allergens;
+    }
+
     private Recipe buildRecipeEntity(@NonNull RecipeRequest request, @NonNull Long userId) {
         return Recipe.builder()
                 .name(request.getName())
@@ -317,58 +439,146 @@ public class RecipeServiceImpl implements RecipeService {
                 .build();
     }
 
+    /**
+     * Builds and persists all ingredients of a request in bulk: products are
+     * resolved with one query by id and one case-insensitive query by name,
+     * missing products are created together and ingredient rows are inserted
+     * with a single saveAll (JDBC batched thanks to the sequence generator).
+     */
     private List<RecipeIngredient> createIngredientsFromRequest(@NonNull Recipe recipe, List<RecipeIngredientRequest> reqs, Long userId) {
         if (reqs == null || reqs.isEmpty())
             return List.of();
 
-        List<RecipeIngredient> list = new ArrayList<>();
+        Map<Long, Recipe> subRecipesById = resolveSubRecipes(recipe, reqs, userId);
+        List<RecipeIngredientRequest> productReqs = reqs.stream()
+                .filter(r -> r.getSubRecipeId() == null)
+                .collect(Collectors.toList());
+        Map<Long, Product> productsById = resolveProductsById(productReqs);
+        Map<String, Product> productsByName = resolveProductsByName(productReqs, userId);
+
+        List<RecipeIngredient> list = new ArrayList<>(reqs.size());
         for (int i = 0; i < reqs.size(); i++) {
             RecipeIngredientRequest r = reqs.get(i);
-            
-            // ✅ ACEPTAR ingredientes por productId O por name
-            Product product;
-            if (r.getProductId() != null) {
-                // Usar productId si está disponible
-                product = productRepository.findById(r.getProductId())
-                        .orElseThrow(() -> new ResourceNotFoundException(
-                                "Product not found with id: " + r.getProductId()));
+
+            // ✅ ACEPTAR ingredientes por subRecipeId, productId O por name
+            Product product = null;
+            Recipe subRecipe = null;
+            if (r.getSubRecipeId() != null) {
+                subRecipe = subRecipesById.get(r.getSubRecipeId());
+            } else if (r.getProductId() != null) {
+                product = Objects.requireNonNull(productsById.get(r.getProductId()), "Product cannot be null");
             } else if (r.getName() != null && !r.getName().trim().isEmpty()) {
-                // ✅ ACEPTAR ingredientes por nombre
-                product = findOrCreateProductByName(r.getName().trim(), userId);
+                product = Objects.requireNonNull(productsByName.get(normalizeProductName(r.getName())),
+                        "Product cannot be null");
             } else {
-                throw new IllegalArgumentException("Ingredient must have either productId or name");
+                throw new IllegalArgumentException("Ingredient must have either subRecipeId, productId or name");
             }
 
             Integer displayOrder = r.getDisplayOrder() != null ? r.getDisplayOrder() : i;
-            RecipeIngredient ingredient = RecipeIngredient.builder()
+            list.add(RecipeIngredient.builder()
                     .recipe(Objects.requireNonNull(recipe, "Recipe cannot be null"))
-                    .product(Objects.requireNonNull(product, "Product cannot be null"))
+                    .product(product)
+                    .subRecipe(subRecipe)
                     .quantityGrams(r.getQuantityGrams() != null ? r.getQuantityGrams() : BigDecimal.ZERO)
                     .displayOrder(displayOrder)
-                    .build();
+                    .build());
+        }
+        return recipeIngredientRepository.saveAll(list);
+    }
 
-            // Guardar y asegurar que no sea nulo
-            RecipeIngredient saved = Objects.requireNonNull(
-                    recipeIngredientRepository.save(ingredient),
-                    "Saved RecipeIngredient cannot be null");
-            list.add(saved);
+    /**
+     * Carga en una sola consulta las sub-recetas del usuario referenciadas por
+     * la petición y rechaza las que cerrarían un ciclo en el grafo de recetas.
+     */
+    private Map<Long, Recipe> resolveSubRecipes(Recipe recipe, List<RecipeIngredientRequest> reqs, Long userId) {
+        Set<Long> ids = reqs.stream()
+                .map(RecipeIngredientRequest::getSubRecipeId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty())
+            return Map.of();
+
+        Map<Long, Recipe> subRecipesById = recipeRepository.findByUserIdAndIdIn(userId, ids).stream()
+                .collect(Collectors.toMap(Recipe::getId, r -> r));
+        for (Long id : ids) {
+            if (!subRecipesById.containsKey(id)) {
+                throw new ResourceNotFoundException("Recipe not found with id: " + id);
+            }
         }
-        return list;
+        recipeGraphService.assertNoCycle(recipe.getId(), ids);
+        return subRecipesById;
     }
 
     /**
-     * Busca producto por nombre o crea uno nuevo si no existe
+     * Loads every product referenced by id in a single findAllById.
      */
-    private Product findOrCreateProductByName(String productName, Long userId) {
-        // Buscar producto existente por nombre (case insensitive)
-        Optional<Product> existingProduct = productRepository.findByNameIgnoreCase(productName);
-        
-        if (existingProduct.isPresent()) {
-            return existingProduct.get();
+    private Map<Long, Product> resolveProductsById(List<RecipeIngredientRequest> reqs) {
+        Set<Long> ids = reqs.stream()
+                .map(RecipeIngredientRequest::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty())
+            return Map.of();
+
+        Map<Long, Product> productsById = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+        for (Long id : ids) {
+            if (!productsById.containsKey(id)) {
+                throw new ResourceNotFoundException("Product not found with id: " + id);
+            }
         }
-        
-        // Crear nuevo producto con todos los campos obligatorios
-        Product newProduct = Product.builder()
+        return productsById;
+    }
+
+    /**
+     * Busca por nombre (case insensitive) todos los productos sin productId en
+     * una sola consulta y crea juntos los que no existan.
+     * Si varios productos comparten nombre se prefiere el del propio usuario.
+     */
+    private Map<String, Product> resolveProductsByName(List<RecipeIngredientRequest> reqs, Long userId) {
+        Map<String, String> namesByKey = new LinkedHashMap<>();
+        for (RecipeIngredientRequest r : reqs) {
+            if (r.getProductId() == null && r.getName() != null && !r.getName().trim().isEmpty()) {
+                namesByKey.putIfAbsent(normalizeProductName(r.getName()), r.getName().trim());
+            }
+        }
+        if (namesByKey.isEmpty())
+            return Map.of();
+
+        Map<String, Product> productsByName = new HashMap<>();
+        for (Product p : productRepository.findByLowerNameIn(namesByKey.keySet())) {
+            productsByName.merge(normalizeProductName(p.getName()), p,
+                    (current, candidate) -> candidate.belongsToUser(userId) ? candidate : current);
+        }
+
+        List<Product> missing = namesByKey.entrySet().stream()
+                .filter(e -> !productsByName.containsKey(e.getKey()))
+                .map(e -> buildPlaceholderProduct(e.getValue(), userId))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            log.info("Creating {} new products from recipe ingredients for user {}", missing.size(), userId);
+            for (Product created : productRepository.saveAll(missing)) {
+                productsByName.put(normalizeProductName(created.getName()), created);
+                eventPublisher.publishEvent(ProductCatalogChangedEvent.upserted(created));
+            }
+            // Igual que ProductService al crear: el total de productos del usuario cambia
+            Cache counts = cacheManager.getCache(CacheNames.PRODUCT_COUNTS);
+            if (counts != null)
+                counts.evict(userId);
+        }
+        return productsByName;
+    }
+
+    private String normalizeProductName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Construye un producto nuevo con todos los campos obligatorios para un
+     * ingrediente que no existe todavía.
+     */
+    private Product buildPlaceholderProduct(String productName, Long userId) {
+        return Product.builder()
                 .name(productName)
                 .costPerUnit(BigDecimal.valueOf(0.01)) // ✅ Mayor que 0.0
                 .category(ProductCategory.OTHER) // ✅ Categoría no nula
@@ -379,12 +589,12 @@ public class RecipeServiceImpl implements RecipeService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
-        return productRepository.save(newProduct);
     }
 
     private RecipeResponse buildRecipeResponse(Recipe recipe) {
-        BigDecimal totalIngredientsWeight = calculateTotalIngredientsWeight(recipe);
-        BigDecimal totalCost = calculateTotalCost(recipe);
+        BigDecimal totalIngredientsWeight = recipe.getTotalWeightGrams() != null ? recipe.getTotalWeightGrams()
+                : BigDecimal.ZERO;
+        BigDecimal totalCost = recipe.getTotalCost() != null ? recipe.getTotalCost() : BigDecimal.ZERO;
 
         // Convert ProductNutriments to NutrimentsDTO safely for API response
         NutrimentsDTO nutritionPer100g = null;
@@ -398,12 +608,7 @@ public class RecipeServiceImpl implements RecipeService {
         }
 
         BigDecimal yieldWeight = recipe.getYieldWeightGrams() != null ? recipe.getYieldWeightGrams() : BigDecimal.ZERO;
-        BigDecimal costPerGram = BigDecimal.ZERO;
-        BigDecimal costPer100g = BigDecimal.ZERO;
-        if (yieldWeight.compareTo(BigDecimal.ZERO) != 0) {
-            costPerGram = totalCost.divide(yieldWeight, 6, RoundingMode.HALF_UP);
-            costPer100g = costPerGram.multiply(BigDecimal.valueOf(100)).setScale(6, RoundingMode.HALF_UP);
-        }
+        BigDecimal costPer100g = recipe.getCostPer100g();
 
         List<RecipeIngredientResponse> ingredientResponses = recipe.getIngredients().stream()
                 .sorted(Comparator.comparing(RecipeIngredient::getDisplayOrder))
@@ -428,36 +633,6 @@ public class RecipeServiceImpl implements RecipeService {
     // PRIVATE CALCULATIONS
     // ===========================
 
-    private BigDecimal calculateTotalIngredientsWeight(Recipe recipe) {
-        if (recipe.getIngredients() == null)
-            return BigDecimal.ZERO;
-        return recipe.getIngredients().stream()
-                .map(i -> i.getQuantityGrams() != null ? i.getQuantityGrams() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
-    private BigDecimal calculateIngredientCost(RecipeIngredient ingredient) {
-        Product product = ingredient.getProduct();
-        if (product == null || product.getCostPerUnit() == null)
-            return BigDecimal.ZERO;
-
-        BigDecimal quantityKg = ingredient.getQuantityGrams() != null
-                ? ingredient.getQuantityGrams().divide(BigDecimal.valueOf(1000), 6, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO;
-
-        BigDecimal cost = product.getCostPerUnit().multiply(quantityKg);
-        return cost.setScale(6, RoundingMode.HALF_UP);
-    }
-
-    private BigDecimal calculateTotalCost(Recipe recipe) {
-        if (recipe.getIngredients() == null)
-            return BigDecimal.ZERO;
-        return recipe.getIngredients().stream()
-                .map(this::calculateIngredientCost)
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .setScale(6, RoundingMode.HALF_UP);
-    }
-
     private BigDecimal calculateYieldLossPercentage(BigDecimal totalIngredientsWeight, BigDecimal yieldWeightGrams) {
         if (totalIngredientsWeight == null || totalIngredientsWeight.compareTo(BigDecimal.ZERO) == 0)
             return BigDecimal.ZERO;
@@ -472,7 +647,7 @@ public class RecipeServiceImpl implements RecipeService {
     private RecipeIngredientResponse buildIngredientResponse(RecipeIngredient ingredient,
             BigDecimal totalIngredientsWeight, BigDecimal totalCost) {
         ProductDTO productDTO = productMapper.toProductDTO(ingredient.getProduct());
-        BigDecimal ingredientCost = calculateIngredientCost(ingredient);
+        BigDecimal ingredientCost = aggregateCalculator.ingredientCost(ingredient, this::subRecipeAggregate);
         
         // Calcular porcentaje
         Double percentageOfTotal = 0.0;
@@ -486,76 +661,31 @@ public class RecipeServiceImpl implements RecipeService {
         return RecipeIngredientResponse.builder()
                 .id(ingredient.getId())
                 .product(productDTO)
+                .subRecipeId(ingredient.isSubRecipe() ? ingredient.getSubRecipe().getId() : null)
+                .subRecipeName(ingredient.isSubRecipe() ? ingredient.getSubRecipe().getName() : null)
                 .quantityGrams(ingredient.getQuantityGrams() != null ? ingredient.getQuantityGrams().doubleValue() : 0.0)
                 .percentageOfTotal(percentageOfTotal)
                 .cost(ingredientCost != null ? ingredientCost.doubleValue() : 0.0)
                 .build();
     }
 
-    /**
-     * Sums the nutrients of all ingredients (proportional to their quantity)
-     * Returns a NutrimentsDTO with absolute totals (before normalizing per 100g)
-     */
-    private NutrimentsDTO calculateTotalNutrients(Recipe recipe) {
-        NutrimentsDTO total = buildEmptyNutriments();
-
-        if (recipe.getIngredients() == null || recipe.getIngredients().isEmpty())
-            return total;
-
-        // sum by proportion of each ingredient relative to total ingredient weight
-        BigDecimal totalWeight = calculateTotalIngredientsWeight(recipe);
-        if (totalWeight.compareTo(BigDecimal.ZERO) == 0)
-            return total;
-
-        for (RecipeIngredient ri : recipe.getIngredients()) {
-            BigDecimal qty = ri.getQuantityGrams() != null ? ri.getQuantityGrams() : BigDecimal.ZERO;
-            BigDecimal proportion = totalWeight.compareTo(BigDecimal.ZERO) == 0 ? BigDecimal.ZERO
-                    : qty.divide(totalWeight, 6, RoundingMode.HALF_UP);
-            Product prod = ri.getProduct();
-            if (prod == null || prod.getNutriments() == null)
-                continue;
-
-            NutrimentsDTO prodN = productMapper.toNutrimentsDTO(prod.getNutriments());
-            total.setCalories(total.getCalories() + prodN.getCalories() * proportion.doubleValue());
-            total.setProtein(total.getProtein() + prodN.getProtein() * proportion.doubleValue());
-            total.setCarbohydrates(total.getCarbohydrates() + prodN.getCarbohydrates() * proportion.doubleValue());
-            total.setSugars(total.getSugars() + prodN.getSugars() * proportion.doubleValue());
-            total.setFat(total.getFat() + prodN.getFat() * proportion.doubleValue());
-            total.setSaturatedFat(total.getSaturatedFat() + prodN.getSaturatedFat() * proportion.doubleValue());
-            total.setFiber(total.getFiber() + prodN.getFiber() * proportion.doubleValue());
-            total.setSodium(total.getSodium() + prodN.getSodium() * proportion.doubleValue());
-            total.setSalt(total.getSalt() + prodN.getSalt() * proportion.doubleValue());
-        }
-
-        return total;
-    }
-
     private RecipeSummaryResponse buildRecipeSummaryResponse(Recipe recipe) {
-        // build a lightweight summary used in paginated lists
-        NutrimentsDTO nutrition = null;
-        if (recipe.getNutrimentsPor100g() != null) {
-            nutrition = productMapper.toNutrimentsDTO(recipe.getNutrimentsPor100g());
-        }
-
-        if (nutrition == null) {
-            nutrition = buildEmptyNutriments();
-        }
-
-        BigDecimal totalCost = calculateTotalCost(recipe);
-        BigDecimal costPer100g = BigDecimal.ZERO;
-        if (recipe.getYieldWeightGrams() != null && recipe.getYieldWeightGrams().compareTo(BigDecimal.ZERO) != 0) {
-            costPer100g = totalCost.divide(recipe.getYieldWeightGrams(), 6, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
-        }
+        // lightweight summary used in paginated lists: reads materialized columns only
+        ensureAggregates(recipe);
+        ProductNutriments nutrition = recipe.getNutrimentsPor100g();
 
         return RecipeSummaryResponse.builder()
                 .id(recipe.getId())
                 .name(recipe.getName())
+                .description(recipe.getDescription())
                 .yieldWeightGrams(recipe.getYieldWeightGrams() != null ? recipe.getYieldWeightGrams().doubleValue() : 0.0)
-                .totalCost(totalCost != null ? totalCost.doubleValue() : 0.0)
-                .costPer100g(costPer100g != null ? costPer100g.doubleValue() : 0.0)
-                .ingredientCount(recipe.getIngredients() != null ? recipe.getIngredients().size() : 0)
-                .calculatedCalories(nutrition != null ? nutrition.getCalories() : 0.0)
+                .totalCost(toDouble(recipe.getTotalCost()))
+                .costPer100g(toDouble(recipe.getCostPer100g()))
+                .ingredientCount(recipe.getIngredientCount() != null ? recipe.getIngredientCount() : 0)
+                .calculatedCalories(nutrition != null ? toDouble(nutrition.getCalories()) : 0.0)
+                .proteinPer100g(nutrition != null ? toDouble(nutrition.getProtein()) : 0.0)
+                .fatPer100g(nutrition != null ? toDouble(nutrition.getFat()) : 0.0)
+                .carbohydratesPer100g(nutrition != null ? toDouble(nutrition.getCarbohydrates()) : 0.0)
                 .createdAt(recipe.getCreatedAt())
                 .updatedAt(recipe.getUpdatedAt())
                 .build();
@@ -620,12 +750,12 @@ public class RecipeServiceImpl implements RecipeService {
 
         if (includeAllergensAndLot) {
             // Alérgenos
-            List<String> allergens = recipe.getIngredients().stream()
-                    .filter(ri -> ri.getProduct() != null && ri.getProduct().getAllergens() != null)
-                    .flatMap(ri -> ri.getProduct().getAllergens().stream())
-                    .distinct()
-                    .collect(Collectors.toList());
-            label.setAllergens(allergens);
+            Set<String> allergens = new LinkedHashSet<>();
+            Set<Long> visited = new HashSet<>();
+            for (RecipeIngredient ri : recipe.getIngredients()) {
+                collectAllergens(ri, allergens, visited);
+            }
+            label.setAllergens(new ArrayList<>(allergens));
 
             // Uso
             label.setUsageInstructions(recipe.getUsageInstructionsSafe());
@@ -648,4 +778,8 @@ public class RecipeServiceImpl implements RecipeService {
     private BigDecimal toBigDecimal(Double value) {
         return value != null ? BigDecimal.valueOf(value) : BigDecimal.ZERO;
     }
+
+    private Double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : 0.0;
+    }
 }
\ No newline at end of file
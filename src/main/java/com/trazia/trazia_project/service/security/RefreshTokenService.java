@@ -0,0 +1,203 @@
+package com.trazia.trazia_project.service.security;
+
+import com.trazia.trazia_project.entity.user.RefreshToken;
+import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.exception.auth.InvalidCredentialsException;
+import com.trazia.trazia_project.repository.user.RefreshTokenRepository;
+import com.trazia.trazia_project.repository.user.RevokedTokenView;
+import com.trazia.trazia_project.repository.user.UserRepository;
+import com.trazia.trazia_project.security.JwtTokenProvider;
+import com.trazia.trazia_project.security.SecurityAuditLog;
+import com.trazia.trazia_project.security.SecurityAuditLog.Category;
+import com.trazia.trazia_project.security.VerifiedToken;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emisión, rotación y revocación de refresh tokens.
+ *
+ * - Cada login abre una familia; cada /api/auth/refresh revoca el token usado
+ *   y emite el siguiente de la misma familia, sin volver a comprobar la
+ *   contraseña (BCrypt solo en el login).
+ * - Presentar un token ya revocado indica que se ha filtrado: se revoca la
+ *   familia entera y hay que volver a hacer login.
+ * - Los jti revocados y aún no caducados se guardan también en un conjunto en
+ *   memoria (jti -> caducidad) para rechazarlos en O(1) sin ir a la base de
+ *   datos. La tabla sigue siendo la fuente de verdad: la revocación
+ *   condicional (revokeIfActive) detecta la reutilización aunque otra
+ *   instancia no tenga el jti en memoria.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final UserStatusService userStatusService;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final SecurityAuditLog auditLog;
+
+    /** jti revocados -> caducidad en epoch millis */
+    private final Map<String, Long> revokedIds = new ConcurrentHashMap<>();
+
+    public record TokenPair(User user, String accessToken, String refreshToken) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevokedIds() {
+        List<RevokedTokenView> revoked = refreshTokenRepository.findRevokedNotExpired(LocalDateTime.now());
+        revoked.forEach(view -> revokedIds.put(view.getId(), toMillis(view.getExpiresAt())));
+        log.info("Loaded {} revoked refresh token ids", revoked.size());
+    }
+
+    /**
+     * Nuevo refresh token (nueva familia) tras un login o registro.
+     */
+    @Transactional
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Rota el refresh token: lo revoca y devuelve un token de acceso y un
+     * refresh token nuevos.
+     */
+    @Transactional(noRollbackFor = InvalidCredentialsException.class)
+    public TokenPair rotate(String refreshToken) {
+        VerifiedToken token = verifyRefreshToken(refreshToken);
+        String tokenId = token.tokenId();
+
+        if (revokedIds.containsKey(tokenId))
+            throw reuseDetected(token);
+
+        String nextId = UUID.randomUUID().toString();
+        if (refreshTokenRepository.revokeIfActive(tokenId, nextId, LocalDateTime.now()) == 0)
+            throw reuseDetected(token);
+        afterCommit(() -> revokedIds.put(tokenId, token.expiration().getTime()));
+
+        Long userId = token.userId();
+        if (!userStatusService.getStatus(userId).active()) {
+            auditLog.record(Category.ACCOUNT_INACTIVE, token.subject(), "/api/auth/refresh");
+            throw new InvalidCredentialsException("Invalid refresh token");
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new InvalidCredentialsException("Invalid refresh token"));
+
+        String nextRefreshToken = issue(user, token.familyId(), nextId);
+        auditLog.record(Category.TOKEN_REFRESHED, token.subject(), "/api/auth/refresh");
+        return new TokenPair(user, jwtTokenProvider.generateToken(user), nextRefreshToken);
+    }
+
+    /**
+     * Cierra la sesión: revoca la familia del token.
+     */
+    @Transactional
+    public void revoke(String refreshToken) {
+        VerifiedToken token = verifyRefreshToken(refreshToken);
+        revokeFamily(token.familyId());
+        auditLog.record(Category.LOGOUT, token.subject(), "/api/auth/logout");
+    }
+
+    @Scheduled(fixedDelayString = "${security.refresh-token.cleanup-interval-ms:3600000}",
+            initialDelayString = "${security.refresh-token.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void deleteExpired() {
+        long now = System.currentTimeMillis();
+        revokedIds.values().removeIf(expiresAt -> expiresAt < now);
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0)
+            log.info("Deleted {} expired refresh tokens", deleted);
+    }
+
+    public int revokedInMemory() {
+        return revokedIds.size();
+    }
+
+    // ===========================
+    // AUXILIARES
+    // ===========================
+
+    private String issue(User user, String familyId) {
+        return issue(user, familyId, UUID.randomUUID().toString());
+    }
+
+    private String issue(User user, String familyId, String tokenId) {
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .id(tokenId)
+                .familyId(familyId)
+                .userId(user.getId())
+                .issuedAt(now)
+                .expiresAt(now.plusNanos(jwtTokenProvider.getRefreshExpirationMillis() * 1_000_000))
+                .build());
+        return jwtTokenProvider.generateRefreshToken(user, tokenId, familyId);
+    }
+
+    private VerifiedToken verifyRefreshToken(String refreshToken) {
+        VerifiedToken token;
+        try {
+            token = jwtTokenProvider.verify(refreshToken);
+        } catch (Exception e) {
+            auditLog.record(Category.AUTH_FAILURE, null, "/api/auth/refresh", e.getClass().getSimpleName());
+            throw new InvalidCredentialsException("Invalid refresh token");
+        }
+        if (!token.isRefreshToken() || token.tokenId() == null || token.familyId() == null || token.userId() == null) {
+            auditLog.record(Category.AUTH_FAILURE, token.subject(), "/api/auth/refresh", "not a refresh token");
+            throw new InvalidCredentialsException("Invalid refresh token");
+        }
+        return token;
+    }
+
+    /**
+     * Un token revocado se ha vuelto a presentar: se revoca toda su familia.
+     * rotate() no hace rollback ante InvalidCredentialsException, así que la
+     * revocación se confirma aunque se lance la excepción.
+     */
+    private InvalidCredentialsException reuseDetected(VerifiedToken token) {
+        auditLog.record(Category.REFRESH_TOKEN_REUSE, token.subject(), "/api/auth/refresh", "family " + token.familyId());
+        revokeFamily(token.familyId());
+        return new InvalidCredentialsException("Refresh token has already been used");
+    }
+
+    private void revokeFamily(String familyId) {
+        // Cota superior de la caducidad de cualquier token vivo de la familia
+        long expiresAt = System.currentTimeMillis() + jwtTokenProvider.getRefreshExpirationMillis();
+        Collection<String> active = refreshTokenRepository.findActiveIdsByFamilyId(familyId);
+        refreshTokenRepository.revokeFamily(familyId, LocalDateTime.now());
+        afterCommit(() -> active.forEach(id -> revokedIds.put(id, expiresAt)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -3,16 +3,18 @@ package com.trazia.trazia_project.service.security;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.trazia.trazia_project.repository.user.UserRepository;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -32,4 +34,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         log.debug("User found: {} (email: {})", appUser.getUsername(), appUser.getEmail());
         return appUser;
     }
-}
\ No newline at end of file
+
+    /**
+     * Guarda el hash regenerado tras un login correcto cuando el factor de
+     * trabajo de BCrypt ha cambiado (lo invoca DaoAuthenticationProvider).
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        com.trazia.trazia_project.entity.user.User appUser = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + user.getUsername()));
+        appUser.setPassword(newPassword);
+        log.debug("Password hash upgraded for user {}", appUser.getId());
+        return userRepository.save(appUser);
+    }
+}
@@ -0,0 +1,58 @@
+package com.trazia.trazia_project.service.security;
+
+import com.trazia.trazia_project.config.CacheNames;
+import com.trazia.trazia_project.repository.user.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Estado de la cuenta de un usuario para la autenticación sin estado.
+ *
+ * El JWT ya identifica al usuario; solo hace falta saber si la cuenta sigue
+ * activa. El estado se cachea unos segundos (caches.userStatus.*), así que
+ * solo los fallos de caché consultan la base de datos y un bloqueo tarda como
+ * mucho ese TTL en aplicarse (o nada, si se llama a evict).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStatusService {
+
+    private final UserRepository userRepository;
+
+    public record UserStatus(boolean exists, boolean enabled, boolean accountNonExpired, boolean accountNonLocked,
+            boolean credentialsNonExpired) {
+
+        static final UserStatus MISSING = new UserStatus(false, false, false, false, false);
+
+        /** La cuenta existe y puede autenticarse */
+        public boolean active() {
+            return exists && enabled && accountNonExpired && accountNonLocked && credentialsNonExpired;
+        }
+    }
+
+    @Cacheable(value = CacheNames.USER_STATUS, key = "#userId")
+    public UserStatus getStatus(Long userId) {
+        log.debug("Loading account status of user {}", userId);
+        return userRepository.findStatusById(userId)
+                .map(view -> new UserStatus(true,
+                        Boolean.TRUE.equals(view.getEnabled()),
+                        Boolean.TRUE.equals(view.getAccountNonExpired()),
+                        Boolean.TRUE.equals(view.getAccountNonLocked()),
+                        Boolean.TRUE.equals(view.getCredentialsNonExpired())))
+                .orElse(UserStatus.MISSING);
+    }
+
+    /**
+     * Aplica al momento un cambio de estado (deshabilitar, bloquear) sin
+     * esperar al TTL.
+     */
+    @CacheEvict(value = CacheNames.USER_STATUS, key = "#userId")
+    public void evict(Long userId) {
+        log.debug("Evicted account status of user {}", userId);
+    }
+}
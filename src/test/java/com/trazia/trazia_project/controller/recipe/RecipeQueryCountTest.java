@@ -0,0 +1,169 @@
+package com.trazia.trazia_project.controller.recipe;
+
+import com.trazia.trazia_project.TestcontainersConfiguration;
+import com.trazia.trazia_project.dto.recipe.RecipeIngredientRequest;
+import com.trazia.trazia_project.dto.recipe.RecipeRequest;
+import com.trazia.trazia_project.entity.product.Product;
+import com.trazia.trazia_project.entity.product.ProductCategory;
+import com.trazia.trazia_project.entity.product.ProductNutriments;
+import com.trazia.trazia_project.entity.user.User;
+import com.trazia.trazia_project.repository.product.ProductRepository;
+import com.trazia.trazia_project.repository.user.UserRepository;
+import com.trazia.trazia_project.service.recipe.RecipeService;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Número de sentencias SQL por endpoint de recetas (planes de carga de
+ * Recipe.GRAPH_INGREDIENTS), medido con las estadísticas de Hibernate.
+ *
+ * - detalle: 1 (receta + ingredientes + productos)
+ * - etiqueta: 1 + ceil(n/100) alérgenos (@BatchSize); la de impresión, + 1 de lotes finales
+ * - listado: página + count + 1 para las filas sin agregados materializados
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false",
+        "food-mirror.enabled=false" })
+@AutoConfigureMockMvc
+@Import(TestcontainersConfiguration.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RecipeQueryCountTest {
+
+    /** Más de un lote de @BatchSize(100) de alérgenos */
+    private static final int INGREDIENTS = 150;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User owner;
+    private Long recipeId;
+    private Long legacyRecipeId;
+
+    @BeforeAll
+    void createRecipes() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        owner = userRepository.save(User.builder()
+                .username("counts-" + suffix)
+                .email("counts-" + suffix + "@trazia.test")
+                .password("{noop}unused")
+                .build());
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < INGREDIENTS; i++) {
+            products.add(Product.builder()
+                    .user(owner)
+                    .name("Ingrediente " + i)
+                    .category(ProductCategory.CONDIMENTS)
+                    .allergens(new ArrayList<>(List.of("gluten", "allergen-" + i)))
+                    .costPerUnit(BigDecimal.valueOf(2.5))
+                    .nutriments(ProductNutriments.builder()
+                            .calories(BigDecimal.valueOf(100 + i))
+                            .protein(BigDecimal.ONE)
+                            .build())
+                    .build());
+        }
+        products = productRepository.saveAll(products);
+
+        recipeId = recipeService.createRecipe(recipe("Receta grande", products), owner.getId()).getId();
+        legacyRecipeId = recipeService.createRecipe(recipe("Receta antigua", products.subList(0, 3)), owner.getId())
+                .getId();
+        // Fila anterior a los agregados materializados: el listado necesita sus ingredientes
+        jdbcTemplate.update("UPDATE recipes SET aggregates_updated_at = NULL WHERE id = ?", legacyRecipeId);
+    }
+
+    @BeforeEach
+    void resetStatistics() {
+        statistics.clear();
+    }
+
+    @Test
+    void detailUsesOneStatement() throws Exception {
+        mockMvc.perform(get("/api/recipes/{id}", recipeId).with(user(owner)))
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void labelLoadsAllergensInBatches() throws Exception {
+        mockMvc.perform(get("/api/recipes/{id}/label", recipeId).with(user(owner)))
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + allergenBatches());
+    }
+
+    @Test
+    void printLabelAddsOneStatementForFinalProductLots() {
+        recipeService.generatePrintLabel(recipeId, owner.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + allergenBatches() + 1);
+    }
+
+    @Test
+    void summaryPageLoadsIngredientsOnlyForRecipesWithoutAggregates() throws Exception {
+        // Página llena (2 de 2) para que Spring Data ejecute también el count
+        mockMvc.perform(get("/api/recipes").param("page", "0").param("size", "2").with(user(owner)))
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + 1 + 1);
+    }
+
+    private static long allergenBatches() {
+        return (INGREDIENTS + 99) / 100;
+    }
+
+    private static RecipeRequest recipe(String name, List<Product> products) {
+        List<RecipeIngredientRequest> ingredients = products.stream()
+                .map(product -> RecipeIngredientRequest.builder()
+                        .productId(product.getId())
+                        .quantityGrams(BigDecimal.TEN)
+                        .build())
+                .toList();
+        return RecipeRequest.builder()
+                .name(name)
+                .yieldWeightGrams(BigDecimal.valueOf(products.size() * 10L))
+                .ingredients(ingredients)
+                .build();
+    }
+}
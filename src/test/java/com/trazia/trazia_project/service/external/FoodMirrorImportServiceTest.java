@@ -0,0 +1,104 @@
+package com.trazia.trazia_project.service.external;
+
+import com.trazia.trazia_project.TestcontainersConfiguration;
+import com.trazia.trazia_project.dto.external.openfoodfacts.OpenFoodFactsProductDTO;
+import com.trazia.trazia_project.dto.external.usda.UsdaFoodDTO;
+import com.trazia.trazia_project.dto.external.usda.UsdaNutrientDTO;
+import com.trazia.trazia_project.service.external.FoodMirrorImportService.ImportCounts;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Carga del espejo con volcados pequeños de fixtures, sin red ni directorio
+ * de importación. batch-size=2 para que los ficheros ocupen varios lotes.
+ */
+@DataJpaTest(properties = {
+        "food-mirror.batch-size=2",
+        "food-mirror.import-dir=target/food-mirror-test" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ TestcontainersConfiguration.class, FoodMirrorImportService.class, FoodMirrorService.class })
+class FoodMirrorImportServiceTest {
+
+    @Autowired
+    private FoodMirrorImportService importService;
+
+    @Autowired
+    private FoodMirrorService mirrorService;
+
+    @Test
+    void importsOpenFoodFactsDumpAndServesLookups() throws IOException {
+        ImportCounts counts = importFixture("off-products.jsonl", true);
+
+        // La línea sin código se descarta; la vacía se ignora
+        assertThat(counts.imported()).isEqualTo(3);
+        assertThat(counts.skipped()).isEqualTo(1);
+        assertThat(mirrorService.countOpenFoodFactsProducts()).isEqualTo(3);
+
+        assertThat(mirrorService.findOpenFoodFactsProduct("3017620422003"))
+                .map(OpenFoodFactsProductDTO::getProductName)
+                .hasValue("Nutella");
+        assertThat(mirrorService.findOpenFoodFactsProduct("0000000000000")).isEmpty();
+    }
+
+    @Test
+    void deltaSkipsProductsOlderThanTheStoredOnes() throws IOException {
+        importFixture("off-products.jsonl", true);
+        ImportCounts counts = importFixture("off-delta.jsonl", true);
+
+        // last_modified_t anterior al guardado: se descarta y se conserva el dato actual
+        assertThat(counts.skipped()).isEqualTo(1);
+        assertThat(counts.imported()).isEqualTo(2);
+        assertThat(mirrorService.findOpenFoodFactsProduct("3017620422003"))
+                .map(OpenFoodFactsProductDTO::getProductName)
+                .hasValue("Nutella");
+
+        // Más reciente: actualiza; nuevo: inserta
+        assertThat(mirrorService.findOpenFoodFactsProduct("5449000000996"))
+                .map(OpenFoodFactsProductDTO::getProductName)
+                .hasValue("Coca-Cola Original");
+        assertThat(mirrorService.findOpenFoodFactsProduct("8410000000001")).isPresent();
+        assertThat(mirrorService.countOpenFoodFactsProducts()).isEqualTo(4);
+    }
+
+    @Test
+    void importsUsdaDownloadAndServesLookupsAndSearch() throws IOException {
+        ImportCounts counts = importFixture("usda-foundation.json", false);
+
+        assertThat(counts.imported()).isEqualTo(2);
+        assertThat(counts.skipped()).isEqualTo(1);
+
+        UsdaFoodDTO cheddar = mirrorService.findUsdaFood(328637L).orElseThrow();
+        assertThat(cheddar.getDescription()).isEqualTo("Cheese, cheddar");
+        // Formato anidado de las descargas ({"nutrient": {...}, "amount": x}) aplanado como en la API
+        assertThat(cheddar.getFoodNutrients())
+                .extracting(UsdaNutrientDTO::getNutrientName, UsdaNutrientDTO::getValue)
+                .containsExactly(
+                        tuple("Protein", 23.3),
+                        tuple("Energy", 408.0));
+        assertThat(mirrorService.findUsdaFood(1L)).isEmpty();
+
+        List<UsdaFoodDTO> results = mirrorService.searchUsdaFoods("cheddar cheese", 10);
+        assertThat(results).extracting(UsdaFoodDTO::getFdcId).containsExactly(328637L);
+    }
+
+    private ImportCounts importFixture(String name, boolean openFoodFacts) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/food-mirror/" + name)) {
+            assertThat(in).as("fixture %s", name).isNotNull();
+            return openFoodFacts ? importService.importOpenFoodFacts(in) : importService.importUsda(in);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.trazia.trazia_project.service.product;
+
+import com.trazia.trazia_project.repository.product.ProductNameView;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contabilidad de nodos y memoria del trie, que usa el weigher de la caché de
+ * índices por usuario.
+ */
+class ProductAutocompleteIndexTest {
+
+    private static final long EMPTY_BYTES = new ProductAutocompleteIndex().estimatedBytes();
+
+    @Test
+    void buildCountsEveryTrieNode() {
+        // azucar (6) + moreno (6) + acme (comparte la "a": 3) + raíz
+        ProductAutocompleteIndex index = ProductAutocompleteIndex.build(List.of(
+                new Name(1L, "Azúcar moreno", "Acme")));
+
+        assertThat(index.nodeCount()).isEqualTo(16);
+        assertThat(index.estimatedBytes()).isGreaterThan(EMPTY_BYTES);
+    }
+
+    @Test
+    void upsertAndRemoveKeepNodeCountInSync() {
+        ProductAutocompleteIndex index = ProductAutocompleteIndex.build(List.of(
+                new Name(1L, "Azúcar moreno", "Acme"),
+                new Name(2L, "Azul", null)));
+        // "azul" solo añade la "l"
+        assertThat(index.nodeCount()).isEqualTo(17);
+        long withAzul = index.estimatedBytes();
+
+        // Se va la "l" de azul; "miel" comparte la "m" de moreno y añade i, e, l
+        index.upsert(2L, "Miel", null);
+        assertThat(index.nodeCount()).isEqualTo(19);
+        assertThat(index.estimatedBytes()).isGreaterThan(withAzul);
+
+        // Quedan la raíz y m-i-e-l
+        index.remove(1L);
+        assertThat(index.nodeCount()).isEqualTo(5);
+        assertThat(index.suggest("miel", 10)).extracting(ProductAutocompleteIndex.Match::productId)
+                .containsExactly(2L);
+
+        index.remove(2L);
+        assertThat(index.nodeCount()).isEqualTo(1);
+        assertThat(index.productCount()).isZero();
+        assertThat(index.estimatedBytes()).isEqualTo(EMPTY_BYTES);
+    }
+
+    @Test
+    void removingUnknownProductLeavesCountsUntouched() {
+        ProductAutocompleteIndex index = ProductAutocompleteIndex.build(List.of(new Name(1L, "Harina", null)));
+        long bytes = index.estimatedBytes();
+
+        index.remove(99L);
+
+        assertThat(index.nodeCount()).isEqualTo(7);
+        assertThat(index.estimatedBytes()).isEqualTo(bytes);
+    }
+
+    private record Name(Long id, String name, String brand) implements ProductNameView {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getBrand() {
+            return brand;
+        }
+    }
+}